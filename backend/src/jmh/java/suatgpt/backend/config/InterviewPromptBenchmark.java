@@ -0,0 +1,42 @@
+package suatgpt.backend.config;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 面试提示词拼装：String.format(INTERVIEW_TEMPLATE, ...) 在长对话历史下的开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InterviewPromptBenchmark {
+
+    @Param({"5", "15", "60"})
+    public int rounds;
+
+    private String context;
+    private String history;
+    private String stageTask;
+
+    @Setup
+    public void setup() {
+        StringBuilder ctx = new StringBuilder("【岗位描述】：负责高并发后端服务的设计与实现。\n\n【候选人简历深度画像】：\n");
+        for (int i = 0; i < 40; i++) ctx.append("- 参与项目 ").append(i).append("：负责缓存与消息队列改造，QPS 提升 3 倍。\n");
+        context = ctx.toString();
+
+        StringBuilder h = new StringBuilder();
+        for (int i = 0; i < rounds; i++) {
+            h.append("\n【候选人】: 我在第 ").append(i).append(" 个项目里主要做了数据库分库分表和慢查询治理，具体来说……");
+            h.append("\n【AI考官】: 请具体说明分片键的选择依据，以及跨分片查询是如何处理的？");
+        }
+        history = h.toString();
+        stageTask = InterviewPromptRegistry.getDynamicStageTask(rounds, "后端开发工程师");
+    }
+
+    @Benchmark
+    public String format() {
+        return String.format(InterviewPromptRegistry.INTERVIEW_TEMPLATE,
+                "张三", "后端开发工程师", context, rounds, stageTask, history, "我认为分片键应该按用户 ID 哈希。");
+    }
+}
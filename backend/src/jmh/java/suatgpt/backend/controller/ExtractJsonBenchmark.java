@@ -0,0 +1,37 @@
+package suatgpt.backend.controller;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 课程萃取结果的 JSON 截取：模型常在 JSON 前后夹带说明文字，输出动辄数 KB
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ExtractJsonBenchmark {
+
+    @Param({"4096", "32768"})
+    public int length;
+
+    private String raw;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder("好的，以下是根据您的主题生成的课程结构：\n```json\n{\"slides\":[");
+        int i = 0;
+        while (sb.length() < length) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"title\":\"第").append(i).append("页：核心概念\",\"visual\":\"流程图\",\"time\":\"3min\"}");
+            i++;
+        }
+        sb.append("],\"markdown\":\"# 课程大纲\"}\n```\n以上内容可直接用于 PPT 生成。");
+        raw = sb.toString();
+    }
+
+    @Benchmark
+    public String extract() {
+        return CourseController.extractJson(raw);
+    }
+}
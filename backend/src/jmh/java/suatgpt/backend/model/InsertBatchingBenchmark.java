@@ -0,0 +1,197 @@
+package suatgpt.backend.model;
+
+import jakarta.persistence.*;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量插入吞吐：IDENTITY 主键（改造前）vs id_generator 号段 + JDBC batch（改造后）
+ * <p>
+ * 两组 Hibernate 配置完全相同（batch_size 50、order_inserts），差别只在主键生成方式。
+ * 库是内存 H2，每次 execute / executeBatch / commit 额外等待 rttMicros，模拟到 MySQL 的一次往返
+ * （线上开了 rewriteBatchedStatements，一个 batch 合成一条多值 INSERT，只算一次往返）。
+ * 结果单位为每秒插入行数。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class InsertBatchingBenchmark {
+
+    private static final int ROWS = 500;
+
+    // 0：只看库内开销；200：同机房一次往返的量级
+    @Param({"0", "200"})
+    public long rttMicros;
+
+    private SessionFactory sessionFactory;
+
+    @Setup
+    public void setup() {
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting("hibernate.connection.provider_class", new LatencyConnectionProvider(
+                        "jdbc:h2:mem:bench-" + rttMicros + ";MODE=MySQL;DB_CLOSE_DELAY=-1", TimeUnit.MICROSECONDS.toNanos(rttMicros)))
+                .applySetting("hibernate.hbm2ddl.auto", "create")
+                // 与 Spring Boot 默认一致：studentName -> student_name
+                .applySetting("hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName())
+                .applySetting("hibernate.id.optimizer.pooled.preferred", "pooled-lo")
+                .applySetting("hibernate.jdbc.batch_size", "50")
+                .applySetting("hibernate.order_inserts", "true")
+                .build();
+        sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClass(HomeworkRecord.class)
+                .addAnnotatedClass(IdentityHomeworkRecord.class)
+                .buildMetadata()
+                .buildSessionFactory();
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() {
+        // 表保持同样的规模，两组结果才可比
+        sessionFactory.inTransaction(session -> {
+            session.createMutationQuery("DELETE FROM HomeworkRecord").executeUpdate();
+            session.createMutationQuery("DELETE FROM IdentityHomeworkRecord").executeUpdate();
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void identity() {
+        sessionFactory.inTransaction(session -> {
+            for (int i = 0; i < ROWS; i++) {
+                IdentityHomeworkRecord r = new IdentityHomeworkRecord();
+                r.studentId = "S" + i;
+                r.studentName = "学生" + i;
+                r.mentorName = i % 2 == 0 ? "张老师" : "李老师";
+                r.weekNumber = i % 16 + 1;
+                r.status = "SUBMITTED";
+                r.aiEvaluation = "审计报告";
+                r.chatHistory = "质询";
+                r.submitTime = LocalDateTime.now();
+                session.persist(r);
+            }
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void pooled() {
+        sessionFactory.inTransaction(session -> {
+            for (int i = 0; i < ROWS; i++) {
+                HomeworkRecord r = new HomeworkRecord();
+                r.setStudentId("S" + i);
+                r.setStudentName("学生" + i);
+                r.setMentorName(i % 2 == 0 ? "张老师" : "李老师");
+                r.setWeekNumber(i % 16 + 1);
+                r.setStatus("SUBMITTED");
+                r.setAiEvaluation("审计报告");
+                r.setChatHistory("质询");
+                session.persist(r);
+            }
+        });
+    }
+
+    /** 改造前的映射：与 HomeworkRecord 同样的列，主键仍为 IDENTITY */
+    @Entity(name = "IdentityHomeworkRecord")
+    @Table(name = "homework_record_identity")
+    public static class IdentityHomeworkRecord {
+        @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+        Long id;
+        String studentName;
+        String studentId;
+        String mentorName;
+        Integer weekNumber;
+        @Column(columnDefinition = "TEXT")
+        String aiEvaluation;
+        @Column(columnDefinition = "TEXT")
+        String chatHistory;
+        String status;
+        Integer score;
+        LocalDateTime submitTime;
+    }
+
+    /**
+     * 给每次数据库往返加上固定延迟的连接：Statement 的 execute* 与 Connection.commit 各算一次
+     */
+    static final class LatencyConnectionProvider implements ConnectionProvider {
+        private final String url;
+        private final long rttNanos;
+
+        LatencyConnectionProvider(String url, long rttNanos) {
+            this.url = url;
+            this.rttNanos = rttNanos;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection target = DriverManager.getConnection(url, "sa", "");
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                if (method.getName().equals("commit")) roundTrip();
+                Object result = invoke(target, method, args);
+                return result instanceof Statement statement ? wrap(statement) : result;
+            });
+        }
+
+        private Statement wrap(Statement target) {
+            return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), target.getClass().getInterfaces(), (proxy, method, args) -> {
+                if (method.getName().startsWith("execute")) roundTrip();
+                return invoke(target, method, args);
+            });
+        }
+
+        private void roundTrip() {
+            // 自旋而不是 sleep：微秒级的 sleep 实际会睡得更久
+            long deadline = System.nanoTime() + rttNanos;
+            while (System.nanoTime() < deadline) Thread.onSpinWait();
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        @Override
+        public void closeConnection(Connection conn) throws SQLException {
+            conn.close();
+        }
+
+        @Override
+        public boolean supportsAggressiveRelease() {
+            return false;
+        }
+
+        @Override
+        public boolean isUnwrappableAs(Class<?> unwrapType) {
+            return false;
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> unwrapType) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package suatgpt.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OpenClaw CLI 输出清洗：新的单遍状态机 vs 旧版逐行 10 次 contains 的黑名单过滤（作为基线保留）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AgentOutputBenchmark {
+
+    @Param({"50", "500"})
+    public int bodyLines;
+
+    private OpenClawAgentBridge bridge;
+    private String output;
+
+    @Setup
+    public void setup() {
+        bridge = new OpenClawAgentBridge(new AiMetrics(new SimpleMeterRegistry()), null);
+        StringBuilder sb = new StringBuilder()
+                .append("🦞 OpenClaw 2026.3.1\n\n")
+                .append("Gateway agent failed; falling back to embedded: Error: gateway closed (1006)\n")
+                .append("Gateway target: ws://127.0.0.1:18789\n")
+                .append("Source: local loopback\n")
+                .append("Config: /root/.openclaw/openclaw.json\n")
+                .append("Bind: loopback\n")
+                .append("[agent/embedded] run start\n\n");
+        for (int i = 0; i < bodyLines; i++) {
+            sb.append("**第").append(i).append("点**：请具体说明你在该项目中负责的模块、技术选型理由以及遇到的性能瓶颈。\n");
+            if (i % 8 == 7) sb.append('\n');
+        }
+        output = sb.toString();
+    }
+
+    @Benchmark
+    public void stateMachine(Blackhole bh) throws IOException {
+        bh.consume(bridge.readText(new BufferedReader(new StringReader(output))));
+    }
+
+    @Benchmark
+    public void legacyBlacklist(Blackhole bh) throws IOException {
+        StringBuilder result = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new StringReader(output))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (legacyIsNotGarbage(line)) result.append(line).append("\n");
+            }
+        }
+        bh.consume(result.toString().trim());
+    }
+
+    // 旧版 InterviewService / ConsultService.isNotGarbage 原样拷贝
+    private static boolean legacyIsNotGarbage(String line) {
+        String l = line.trim();
+        return !l.isEmpty() && !l.contains("Gateway") && !l.contains("target:") && !l.contains("Source:") && !l.contains("Config:") && !l.contains("Bind:") && !l.contains("embedded") && !l.contains("ls: cannot access") && !l.contains("No such file") && !l.contains("🦞");
+    }
+}
@@ -0,0 +1,32 @@
+package suatgpt.backend.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求体拼装前的 JSON 转义（用户消息里常带简历全文、代码片段）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EscapeJsonBenchmark {
+
+    @Param({"1024", "16384", "131072"})
+    public int length;
+
+    private String input;
+
+    @Setup
+    public void setup() {
+        String unit = "候选人说：\"我负责了 C:\\\\build 下的脚本\"\r\n然后继续描述项目细节。";
+        StringBuilder sb = new StringBuilder(length + unit.length());
+        while (sb.length() < length) sb.append(unit);
+        input = sb.substring(0, length);
+    }
+
+    @Benchmark
+    public String escape() {
+        return AiService.escapeJson(input);
+    }
+}
@@ -0,0 +1,50 @@
+package suatgpt.backend.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SSE 增量解析：模拟一次流式回复的全部 data 行（OpenAI 兼容格式 + WeKnora 格式混合）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SseDeltaBenchmark {
+
+    @Param({"200", "2000"})
+    public int chunks;
+
+    private AiService aiService;
+    private List<String> lines;
+
+    @Setup
+    public void setup() {
+        aiService = new AiService(null, null, null, null, null, null, null);
+        lines = new ArrayList<>(chunks * 2 + 1);
+        for (int i = 0; i < chunks; i++) {
+            if (i % 10 == 9) {
+                lines.add("data: {\"content\":\"第" + i + "段，\\\"引号\\\"与换行\\n\"}");
+            } else {
+                lines.add("data: {\"id\":\"chatcmpl-1\",\"object\":\"chat.completion.chunk\",\"created\":1700000000,"
+                        + "\"model\":\"qwen-plus\",\"choices\":[{\"index\":0,\"delta\":{\"content\":\"面试官追问" + i
+                        + "\"},\"finish_reason\":null}]}");
+            }
+            lines.add("");
+        }
+        lines.add("data: [DONE]");
+    }
+
+    @Benchmark
+    public void parseStream(Blackhole bh) {
+        StringBuilder full = new StringBuilder();
+        for (String line : lines) {
+            String chunk = aiService.parseDelta(line);
+            if (chunk != null && !chunk.isEmpty()) full.append(chunk);
+        }
+        bh.consume(full);
+    }
+}
@@ -0,0 +1,51 @@
+package suatgpt.backend.utils;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT 签发 / 解析 / 校验：每个受保护请求都会经过 JwtTokenFilter 走一遍解析与校验
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtBenchmark {
+
+    // 与 application.yml 中的 jwt.secret 保持同样长度
+    private static final String SECRET = "YmFja2VuZC1rZXktZm9yLXN1YXQtZ3B0LXN0cnVjdHVyZS1leGFhbXBsZS1zZWNydC1oZXJlCg==";
+
+    private JwtUtils jwtUtils;
+    private UserDetails user;
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        jwtUtils = new JwtUtils();
+        Field secret = JwtUtils.class.getDeclaredField("secret");
+        secret.setAccessible(true);
+        secret.set(jwtUtils, SECRET);
+
+        user = new User("SUAT24000137", "n/a", List.of());
+        token = jwtUtils.generateToken(user);
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtUtils.generateToken(user);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtUtils.extractUsername(token);
+    }
+
+    @Benchmark
+    public Boolean validate() {
+        return jwtUtils.isTokenValid(token, user);
+    }
+}
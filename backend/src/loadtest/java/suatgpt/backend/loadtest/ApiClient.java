@@ -0,0 +1,153 @@
+package suatgpt.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 压测用的最小 HTTP 客户端：JSON、multipart 上传、SSE 流式读取，并顺带计时
+ */
+public class ApiClient {
+
+    private final String baseUrl;
+    private final HttpClient http;
+    private final Map<String, String> headers;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public ApiClient(String baseUrl) {
+        this(baseUrl, HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build(), Map.of());
+    }
+
+    private ApiClient(String baseUrl, HttpClient http, Map<String, String> headers) {
+        this.baseUrl = baseUrl;
+        this.http = http;
+        this.headers = headers;
+    }
+
+    /** 共用连接池、每个请求额外带一个请求头的客户端 */
+    public ApiClient withHeader(String name, String value) {
+        Map<String, String> merged = new LinkedHashMap<>(headers);
+        merged.put(name, value);
+        return new ApiClient(baseUrl, http, merged);
+    }
+
+    /** 一次调用的结果：状态码、响应 JSON、总耗时与首字耗时（纳秒，非流式为 -1） */
+    public record Result(int status, JsonNode body, long latencyNanos, long ttftNanos) {
+        public boolean ok() {
+            return status / 100 == 2;
+        }
+    }
+
+    public Result postJson(String path, Object payload, String token) throws IOException, InterruptedException {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofMinutes(5))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(payload)));
+        return send(auth(b, token).build());
+    }
+
+    public Result get(String path, String token) throws IOException, InterruptedException {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .GET();
+        return send(auth(b, token).build());
+    }
+
+    public Result delete(String path, String token) throws IOException, InterruptedException {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .DELETE();
+        return send(auth(b, token).build());
+    }
+
+    public Result upload(String path, Map<String, String> fields, String fileName, byte[] file, String token)
+            throws IOException, InterruptedException {
+        String boundary = "----loadtest" + UUID.randomUUID().toString().replace("-", "");
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (Map.Entry<String, String> f : fields.entrySet()) {
+            body.writeBytes(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + f.getKey() + "\"\r\n\r\n"
+                    + f.getValue() + "\r\n").getBytes(StandardCharsets.UTF_8));
+        }
+        body.writeBytes(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"" + fileName
+                + "\"\r\nContent-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(file);
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofMinutes(5))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()));
+        return send(auth(b, token).build());
+    }
+
+    /**
+     * 读取 SSE 直到服务端关闭连接；首个正文 data 行到达的时间记为 TTFT。
+     * 具名事件（如排队名次 event:queue）不算正文
+     */
+    public Result stream(String path, Object payload, String token) throws IOException, InterruptedException {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofMinutes(10))
+                .header("Content-Type", "application/json")
+                .header("Accept", "text/event-stream")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(payload)));
+        long start = System.nanoTime();
+        HttpResponse<InputStream> resp = http.send(auth(b, token).build(), HttpResponse.BodyHandlers.ofInputStream());
+        long ttft = -1;
+        int chunks = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resp.body(), StandardCharsets.UTF_8))) {
+            String line;
+            boolean named = false;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    named = false;
+                } else if (line.startsWith("event:")) {
+                    named = true;
+                } else if (line.startsWith("data:") && !named) {
+                    if (ttft < 0) ttft = System.nanoTime() - start;
+                    chunks++;
+                }
+            }
+        }
+        long latency = System.nanoTime() - start;
+        int status = resp.statusCode() == 200 && chunks == 0 ? 204 : resp.statusCode();
+        return new Result(status, null, latency, ttft);
+    }
+
+    private Result send(HttpRequest req) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<byte[]> resp = http.send(req, HttpResponse.BodyHandlers.ofByteArray());
+        long latency = System.nanoTime() - start;
+        JsonNode body = null;
+        byte[] bytes = resp.body();
+        if (bytes.length > 0 && (bytes[0] == '{' || bytes[0] == '[')) {
+            try {
+                body = mapper.readTree(bytes);
+            } catch (IOException ignore) {
+                // 非 JSON 响应只看状态码
+            }
+        }
+        return new Result(resp.statusCode(), body, latency, -1);
+    }
+
+    private HttpRequest.Builder auth(HttpRequest.Builder b, String token) {
+        headers.forEach(b::header);
+        return token != null ? b.header("Authorization", "Bearer " + token) : b;
+    }
+}
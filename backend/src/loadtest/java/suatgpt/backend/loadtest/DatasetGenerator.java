@@ -0,0 +1,455 @@
+package suatgpt.backend.loadtest;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import suatgpt.backend.model.CompressedTextConverter;
+
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 大规模造数：往任意数据源灌入接近线上形态的数据，供容量压测与慢查询排查
+ * <p>
+ * 直接走 JDBC batch（不经过 Hibernate），每批提交一次；主键从 id_generator 一次性预留整段，
+ * 与应用的号段分配互不冲突，造完的库可以直接拿来启动后端。目标库会先跑一遍 Flyway 迁移。
+ * <pre>
+ * mvn -Pdataset -DskipTests test -Ddataset.args="--url=jdbc:mysql://127.0.0.1:3306/suat_perf --user=root --password=xxx --scale=1"
+ * </pre>
+ * 参数（均可省略）：
+ * --url / --user / --password 目标库，默认 target/dataset 下的 H2 文件库（MySQL 模式）
+ * --scale 规模系数，1 = 10 万用户、5 万会话 100 万条消息、2 万份面试记录、16 周周报 | --seed 随机种子 | --batch 每批行数
+ * <p>
+ * 同一个 seed + scale 生成的内容逐字节相同（时间以固定基准日推算，不取当前时间）；主键从库里已有的最大号之后开始，
+ * 所以只有空库上连主键也一致。造出来的账号用户名以 syn 开头，密码都是 123456；同一个库不能重复造。
+ */
+public class DatasetGenerator {
+
+    /** 所有时间以这一天为基准往前推，保证重复生成结果一致 */
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2026, 3, 2, 9, 0);
+    private static final String PREFIX = "syn";
+    private static final int WEEKS = 16;
+
+    private final Connection conn;
+    private final long seed;
+    private final int batchSize;
+    private final Map<String, Long> written = new LinkedHashMap<>();
+
+    private DatasetGenerator(Connection conn, long seed, int batchSize) {
+        this.conn = conn;
+        this.seed = seed;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 各表行数，scale = 1 时即需求里的目标量
+     */
+    record Volumes(int users, int sessions, int messages, int jobs, int interviews, int tenants,
+                   int students, int mentors) {
+        static Volumes of(double scale) {
+            int sessions = scaled(50_000, scale);
+            return new Volumes(scaled(100_000, scale), sessions, Math.max(scaled(1_000_000, scale), sessions * 2),
+                    scaled(400, scale), scaled(20_000, scale), scaled(2_000, scale), scaled(2_000, scale), scaled(80, scale));
+        }
+
+        private static int scaled(int base, double scale) {
+            return (int) Math.max(1, Math.round(base * scale));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = LoadTestRunner.parse(args);
+        String url = opts.getOrDefault("url", "jdbc:h2:file:./target/dataset/suatgpt;MODE=MySQL");
+        // MySQL 驱动不开 rewriteBatchedStatements 时 batch 仍是逐条往返，百万行要慢一个数量级
+        if (url.startsWith("jdbc:mysql:") && !url.contains("rewriteBatchedStatements")) {
+            url += (url.contains("?") ? "&" : "?") + "rewriteBatchedStatements=true";
+        }
+        String user = opts.getOrDefault("user", "sa");
+        String password = opts.getOrDefault("password", "");
+        double scale = Double.parseDouble(opts.getOrDefault("scale", "1"));
+        long seed = Long.parseLong(opts.getOrDefault("seed", "20260302"));
+        Volumes volumes = Volumes.of(scale);
+
+        Flyway.configure().dataSource(url, user, password).locations("classpath:db/migration")
+                .baselineOnMigrate(true).baselineVersion("1").load().migrate();
+
+        long start = System.currentTimeMillis();
+        try (Connection conn = DriverManager.getConnection(url, user, password)) {
+            conn.setAutoCommit(false);
+            DatasetGenerator generator = new DatasetGenerator(conn, seed, LoadTestRunner.intOpt(opts, "batch", 1000));
+            System.out.printf("🚀 造数开始：scale=%s seed=%d -> %s%n   %s%n", scale, seed, url, volumes);
+            generator.generate(volumes);
+            System.out.printf("✅ 造数完成，用时 %.1f 秒：%s%n", (System.currentTimeMillis() - start) / 1000.0, generator.written);
+        }
+    }
+
+    private void generate(Volumes v) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) FROM users WHERE username LIKE ?")) {
+            ps.setString(1, PREFIX + "%");
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                if (rs.getLong(1) > 0) throw new IllegalStateException("目标库里已有造数账号（" + PREFIX + "*），请换一个空库或先清理");
+            }
+        }
+        long firstUser = users(v.users());
+        tenants(v.tenants());
+        chats(v.sessions(), v.messages(), firstUser, v.users());
+        long firstJob = jobs(v.jobs(), firstUser, Math.max(1, v.users() / 200));
+        interviews(v.interviews(), firstJob, v.jobs(), v.tenants());
+        homework(v.students(), v.mentors());
+    }
+
+    // ---------- 用户 ----------
+
+    /** 每 200 个账号里放一个管理员（排在最前面，岗位发布人从中挑），其余是候选人 */
+    private long users(int count) throws SQLException {
+        Random rnd = random("users");
+        // BCrypt 一次要几十毫秒，所有账号共用一份哈希；盐也由种子决定
+        SecureRandom saltSource = new SecureRandom() {
+            @Override
+            public void nextBytes(byte[] bytes) { rnd.nextBytes(bytes); }
+        };
+        String hash = BCrypt.hashpw("123456", BCrypt.gensalt(10, saltSource));
+        int admins = Math.max(1, count / 200);
+        long first = reserveIds("users", count);
+        try (Batch batch = new Batch("users",
+                "INSERT INTO users (id, username, password, role, status, last_heartbeat) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < count; i++) {
+                PreparedStatement ps = batch.ps;
+                ps.setLong(1, first + i);
+                ps.setString(2, PREFIX + String.format("%06d", i + 1));
+                ps.setString(3, hash);
+                ps.setString(4, i < admins ? "ADMIN" : "CANDIDATE");
+                int s = rnd.nextInt(100);
+                ps.setString(5, s < 80 ? "ACTIVE" : s < 95 ? "TIMEOUT" : "GUEST");
+                ps.setTimestamp(6, minutesAgo(rnd.nextInt(60 * 24 * 30)));
+                batch.add();
+            }
+        }
+        return first;
+    }
+
+    // ---------- 租户 ----------
+
+    private void tenants(int count) throws SQLException {
+        Random rnd = random("tenant_configs");
+        long first = reserveIds("tenant_configs", count);
+        try (Batch batch = new Batch("tenant_configs",
+                "INSERT INTO tenant_configs (id, tenant_id, remark, prompt_interview, prompt_resume, prompt_ad, email_sender, " +
+                        "email_password, email_host, email_port, email_subject, email_template, ui_title, ui_subtitle, ui_btn_text, " +
+                        "updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < count; i++) {
+                PreparedStatement ps = batch.ps;
+                String college = SyntheticText.pick(rnd, SyntheticText.COLLEGES);
+                ps.setLong(1, first + i);
+                ps.setString(2, tenantId(i));
+                ps.setString(3, college + " 招聘通道 " + (i + 1));
+                ps.setString(4, SyntheticText.prompt(rnd, college + "的 AI 面试官", 1500 + rnd.nextInt(1500)));
+                ps.setString(5, SyntheticText.prompt(rnd, "简历初筛专家", 800 + rnd.nextInt(800)));
+                ps.setString(6, SyntheticText.prompt(rnd, "招聘公告润色助手", 500 + rnd.nextInt(500)));
+                ps.setString(7, "hr" + (i + 1) + "@example.edu.cn");
+                ps.setString(8, "synthetic");
+                ps.setString(9, "smtp.example.edu.cn");
+                ps.setInt(10, 465);
+                ps.setString(11, college + "录用通知");
+                ps.setString(12, "您好，恭喜您通过" + college + "的面试，请于一周内回复确认。");
+                ps.setString(13, college + "智能招聘");
+                ps.setString(14, "AI 面试 · 全程记录");
+                ps.setString(15, "开始面试");
+                ps.setTimestamp(16, minutesAgo(rnd.nextInt(60 * 24 * 180)));
+                batch.add();
+            }
+        }
+    }
+
+    private static String tenantId(int i) {
+        return PREFIX + "-tenant-" + String.format("%04d", i + 1);
+    }
+
+    // ---------- AI 对话 ----------
+
+    /**
+     * 会话挂在用户上，越靠前的账号会话越多（近似长尾）；消息一问一答成对生成，
+     * 每个会话至少一对，其余对数随机分配，总数恰好是 messages（向下取偶）。
+     */
+    private void chats(int sessions, int messages, long firstUser, int users) throws SQLException {
+        Random rnd = random("chat_sessions");
+        int[] pairs = new int[sessions];
+        Arrays.fill(pairs, 1);
+        for (int extra = messages / 2 - sessions; extra > 0; extra--) {
+            pairs[(int) (sessions * Math.pow(rnd.nextDouble(), 1.5))]++;
+        }
+
+        long firstSession = reserveIds("chat_sessions", sessions);
+        LocalDateTime[] createdAt = new LocalDateTime[sessions];
+        try (Batch batch = new Batch("chat_sessions",
+                "INSERT INTO chat_sessions (id, title, user_id, created_at) VALUES (?, ?, ?, ?)")) {
+            for (int i = 0; i < sessions; i++) {
+                PreparedStatement ps = batch.ps;
+                createdAt[i] = BASE_TIME.minusMinutes(rnd.nextInt(60 * 24 * 120));
+                ps.setLong(1, firstSession + i);
+                ps.setString(2, SyntheticText.chatTitle(rnd));
+                ps.setLong(3, firstUser + (long) (users * Math.pow(rnd.nextDouble(), 2)));
+                ps.setTimestamp(4, Timestamp.valueOf(createdAt[i]));
+                batch.add();
+            }
+        }
+
+        Random text = random("chat_messages");
+        long firstMessage = reserveIds("chat_messages", messages / 2 * 2);
+        long id = firstMessage;
+        try (Batch batch = new Batch("chat_messages",
+                "INSERT INTO chat_messages (id, session_id, sender, content, timestamp) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < sessions; i++) {
+                LocalDateTime at = createdAt[i];
+                for (int p = 0; p < pairs[i]; p++) {
+                    at = at.plusSeconds(20 + text.nextInt(600));
+                    message(batch, id++, firstSession + i, "USER", SyntheticText.userMessage(text), at);
+                    at = at.plusSeconds(3 + text.nextInt(40));
+                    message(batch, id++, firstSession + i, "AI", SyntheticText.aiMessage(text), at);
+                }
+            }
+        }
+    }
+
+    private void message(Batch batch, long id, long session, String sender, String content, LocalDateTime at) throws SQLException {
+        PreparedStatement ps = batch.ps;
+        ps.setLong(1, id);
+        ps.setLong(2, session);
+        ps.setString(3, sender);
+        ps.setBytes(4, CompressedTextConverter.compress(content));
+        ps.setTimestamp(5, Timestamp.valueOf(at));
+        batch.add();
+    }
+
+    // ---------- 招聘 ----------
+
+    private long jobs(int count, long firstUser, int admins) throws SQLException {
+        Random rnd = random("jobs");
+        long first = reserveIds("jobs", count);
+        try (Batch batch = new Batch("jobs",
+                "INSERT INTO jobs (id, title, description, status, publisher, needs_test, ad_text, publisher_id) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < count; i++) {
+                PreparedStatement ps = batch.ps;
+                String title = jobTitle(i);
+                int publisher = rnd.nextInt(admins);
+                ps.setLong(1, first + i);
+                ps.setString(2, title);
+                ps.setString(3, SyntheticText.jobDescription(rnd, title));
+                ps.setString(4, rnd.nextInt(10) < 7 ? "OPEN" : "CLOSED");
+                ps.setString(5, PREFIX + String.format("%06d", publisher + 1));
+                ps.setBoolean(6, needsTest(i));
+                ps.setString(7, SyntheticText.jobAd(rnd, title));
+                ps.setLong(8, firstUser + publisher);
+                batch.add();
+            }
+        }
+        return first;
+    }
+
+    // 面试记录要回填岗位名和是否笔试，按序号推出来，省得把岗位整表留在内存里
+    private static String jobTitle(int i) {
+        int n = SyntheticText.JOB_TITLES.length;
+        return SyntheticText.JOB_TITLES[i % n] + (i < n ? "" : "（" + (i / n + 1) + "）");
+    }
+
+    private static boolean needsTest(int i) {
+        return i % 3 == 0;
+    }
+
+    /** 状态分布大致对齐线上：多数停在初筛 / 面试中，少数录用或淘汰；进入面试的才有实录（2~8 KB） */
+    private void interviews(int count, long firstJob, int jobs, int tenants) throws SQLException {
+        Random rnd = random("interview_records");
+        long first = reserveIds("interview_records", count);
+        try (Batch batch = new Batch("interview_records",
+                "INSERT INTO interview_records (id, job_id, job_title, candidate_name, email, file_name, needs_written_test, " +
+                        "status, resume_analysis, written_test_paper, written_test_answer, written_test_evaluation, job_ad, " +
+                        "chat_history, interview_date, tenant_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < count; i++) {
+                PreparedStatement ps = batch.ps;
+                int job = rnd.nextInt(jobs);
+                String title = jobTitle(job);
+                String name = SyntheticText.name(rnd);
+                boolean tested = needsTest(job);
+                int s = rnd.nextInt(100);
+                String status = s < 30 ? "APPLIED" : s < 40 ? (tested ? "TESTING" : "APPLIED") : s < 60 ? "INTERVIEWING"
+                        : s < 75 ? "INTERRUPTED" : s < 85 ? "HIRED" : "REJECTED";
+                boolean interviewed = !"APPLIED".equals(status) && !"TESTING".equals(status);
+
+                ps.setLong(1, first + i);
+                ps.setLong(2, firstJob + job);
+                ps.setString(3, title);
+                ps.setString(4, name);
+                ps.setString(5, PREFIX + (i + 1) + "@example.com");
+                ps.setString(6, "简历_" + name + ".pdf");
+                ps.setBoolean(7, tested);
+                ps.setString(8, status);
+                ps.setBytes(9, CompressedTextConverter.compress(
+                        SyntheticText.resumeAnalysis(rnd, name, title, 1000 + rnd.nextInt(2000))));
+                boolean answered = tested && !"APPLIED".equals(status);
+                ps.setString(10, answered ? SyntheticText.writtenTestPaper(rnd, title) : null);
+                ps.setString(11, answered && interviewed ? SyntheticText.writtenTestAnswer(rnd) : null);
+                ps.setString(12, answered && interviewed ? "笔试得分 " + (50 + rnd.nextInt(50)) : null);
+                ps.setString(13, SyntheticText.jobAd(rnd, title));
+                ps.setBytes(14, interviewed
+                        ? CompressedTextConverter.compress(SyntheticText.interviewTranscript(rnd, 2048 + rnd.nextInt(6144))) : null);
+                ps.setTimestamp(15, minutesAgo(rnd.nextInt(60 * 24 * 90)));
+                ps.setString(16, tenantId(rnd.nextInt(tenants)));
+                batch.add();
+            }
+        }
+    }
+
+    // ---------- 双创周报 ----------
+
+    /**
+     * 学生名单写进 mentor_mapping（自增主键，不走号段），每人 16 周里约九成周次交了周报；
+     * 已评审的带导师评分，约三成周报有助教质询实录。
+     */
+    private void homework(int students, int mentors) throws SQLException {
+        Random rnd = random("homework_record");
+        String[] mentorNames = new String[mentors];
+        for (int m = 0; m < mentors; m++) mentorNames[m] = SyntheticText.name(rnd) + "老师";
+        String[] studentNames = new String[students];
+        String[] studentMentor = new String[students];
+
+        try (Batch batch = new Batch("mentor_mapping",
+                "INSERT INTO mentor_mapping (student_name, student_id, college, mentor_name) VALUES (?, ?, ?, ?)")) {
+            for (int i = 0; i < students; i++) {
+                PreparedStatement ps = batch.ps;
+                studentNames[i] = SyntheticText.name(rnd);
+                studentMentor[i] = mentorNames[rnd.nextInt(mentors)];
+                ps.setString(1, studentNames[i]);
+                ps.setString(2, studentId(i));
+                ps.setString(3, SyntheticText.pick(rnd, SyntheticText.COLLEGES));
+                ps.setString(4, studentMentor[i]);
+                batch.add();
+            }
+        }
+
+        boolean[] submitted = new boolean[students * WEEKS];
+        int records = 0;
+        for (int k = 0; k < submitted.length; k++) {
+            submitted[k] = rnd.nextInt(10) != 0;
+            if (submitted[k]) records++;
+        }
+        long id = reserveIds("homework_record", records);
+        LocalDateTime termStart = BASE_TIME.minusWeeks(WEEKS);
+        try (Batch batch = new Batch("homework_record",
+                "INSERT INTO homework_record (id, student_name, student_id, mentor_name, week_number, ai_evaluation, " +
+                        "chat_history, status, score, submit_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            // 按周次、再按学生的顺序插入，和线上每周集中提交的到达顺序一致
+            for (int week = 1; week <= WEEKS; week++) {
+                for (int i = 0; i < students; i++) {
+                    if (!submitted[i * WEEKS + week - 1]) continue;
+                    PreparedStatement ps = batch.ps;
+                    int s = rnd.nextInt(10);
+                    String status = s < 4 ? "SUBMITTED" : s < 8 ? "APPROVED" : "REJECTED";
+                    ps.setLong(1, id++);
+                    ps.setString(2, studentNames[i]);
+                    ps.setString(3, studentId(i));
+                    ps.setString(4, studentMentor[i]);
+                    ps.setInt(5, week);
+                    ps.setBytes(6, CompressedTextConverter.compress(
+                            SyntheticText.homeworkEvaluation(rnd, week, 800 + rnd.nextInt(1600))));
+                    ps.setString(7, rnd.nextInt(10) < 3 ? SyntheticText.homeworkChat(rnd, 1 + rnd.nextInt(5)) : null);
+                    ps.setString(8, status);
+                    if ("SUBMITTED".equals(status)) ps.setNull(9, Types.INTEGER);
+                    else ps.setInt(9, "APPROVED".equals(status) ? 70 + rnd.nextInt(31) : 30 + rnd.nextInt(30));
+                    ps.setTimestamp(10, Timestamp.valueOf(termStart.plusWeeks(week - 1).plusMinutes(rnd.nextInt(60 * 24 * 7))));
+                    batch.add();
+                }
+            }
+        }
+    }
+
+    private static String studentId(int i) {
+        return PREFIX.toUpperCase() + String.format("%07d", i + 1);
+    }
+
+    // ---------- 公共 ----------
+
+    /** 每张表一条独立的随机序列：改动某张表的生成逻辑不会让其他表的内容跟着变 */
+    private Random random(String table) {
+        return new Random(seed * 31 + table.hashCode());
+    }
+
+    private static Timestamp minutesAgo(int minutes) {
+        return Timestamp.valueOf(BASE_TIME.minusMinutes(minutes));
+    }
+
+    /**
+     * 从 id_generator 预留 count 个连续主键，返回第一个。next_val 记的是已分出去的最大 id（见 V4 迁移），
+     * 应用实例之后取号段会从预留段之后开始。
+     */
+    private long reserveIds(String sequence, long count) throws SQLException {
+        long last;
+        try (PreparedStatement ps = conn.prepareStatement("SELECT next_val FROM id_generator WHERE sequence_name = ? FOR UPDATE")) {
+            ps.setString(1, sequence);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) throw new IllegalStateException("id_generator 缺少号段: " + sequence);
+                last = rs.getLong(1);
+            }
+        }
+        try (PreparedStatement ps = conn.prepareStatement("UPDATE id_generator SET next_val = ? WHERE sequence_name = ?")) {
+            ps.setLong(1, last + count);
+            ps.setString(2, sequence);
+            ps.executeUpdate();
+        }
+        conn.commit();
+        return last + 1;
+    }
+
+    /**
+     * 攒够 batchSize 行执行一次 batch 并提交，关闭时补齐尾批并打印吞吐
+     */
+    private final class Batch implements AutoCloseable {
+        private final String table;
+        private final PreparedStatement ps;
+        private final long start = System.currentTimeMillis();
+        private long rows;
+        private int pending;
+
+        Batch(String table, String sql) throws SQLException {
+            this.table = table;
+            this.ps = conn.prepareStatement(sql);
+        }
+
+        void add() throws SQLException {
+            ps.addBatch();
+            rows++;
+            if (++pending >= batchSize) flush();
+            if (rows % 200_000 == 0) System.out.printf("   %s 已写入 %d 行%n", table, rows);
+        }
+
+        private void flush() throws SQLException {
+            if (pending == 0) return;
+            ps.executeBatch();
+            conn.commit();
+            pending = 0;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                flush();
+            } finally {
+                ps.close();
+            }
+            long cost = Math.max(1, System.currentTimeMillis() - start);
+            written.put(table, rows);
+            System.out.printf("   %-18s %,10d 行  %6.1f 秒  %,8d 行/秒%n", table, rows, cost / 1000.0, rows * 1000 / cost);
+        }
+    }
+}
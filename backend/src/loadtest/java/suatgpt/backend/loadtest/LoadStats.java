@@ -0,0 +1,144 @@
+package suatgpt.backend.loadtest;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 压测统计：按操作名分别记录延迟 / 首字延迟 / 错误数，同时定时采样 JVM 堆与线程数
+ */
+public class LoadStats {
+
+    private final Map<String, Op> ops = new ConcurrentHashMap<>();
+    private final List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private ScheduledExecutorService sampler;
+    private long heapMax, heapSum, threadSum, samples;
+    private int threadPeak;
+
+    private long startedNanos;
+    private long elapsedNanos;
+
+    public void start() {
+        threads.resetPeakThreadCount();
+        startedNanos = System.nanoTime();
+        sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "loadtest-sampler");
+            t.setDaemon(true);
+            return t;
+        });
+        sampler.scheduleAtFixedRate(this::sample, 0, 200, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        elapsedNanos = System.nanoTime() - startedNanos;
+        sampler.shutdownNow();
+        sample();
+        threadPeak = Math.max(threadPeak, threads.getPeakThreadCount());
+    }
+
+    private synchronized void sample() {
+        long heap = memory.getHeapMemoryUsage().getUsed();
+        int live = threads.getThreadCount();
+        heapMax = Math.max(heapMax, heap);
+        heapSum += heap;
+        threadSum += live;
+        threadPeak = Math.max(threadPeak, live);
+        samples++;
+    }
+
+    public void success(String op, long latencyNanos, long ttftNanos) {
+        Op o = op(op);
+        o.count.incrementAndGet();
+        o.latencies.add(latencyNanos);
+        if (ttftNanos >= 0) o.ttfts.add(ttftNanos);
+    }
+
+    public void failure(String op, String reason) {
+        Op o = op(op);
+        o.count.incrementAndGet();
+        o.errors.incrementAndGet();
+        o.lastError = reason;
+    }
+
+    private Op op(String name) {
+        return ops.computeIfAbsent(name, k -> {
+            order.add(k);
+            return new Op();
+        });
+    }
+
+    public Map<String, Object> report(String scenario) {
+        double seconds = elapsedNanos / 1e9;
+        List<Map<String, Object>> operations = new ArrayList<>();
+        for (String name : new ArrayList<>(order)) {
+            Op o = ops.get(name);
+            List<Long> lat = sorted(o.latencies);
+            List<Long> ttft = sorted(o.ttfts);
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("operation", name);
+            m.put("requests", o.count.get());
+            m.put("errors", o.errors.get());
+            m.put("throughputPerSec", round(lat.size() / seconds));
+            m.put("latencyP50Ms", millis(percentile(lat, 50)));
+            m.put("latencyP99Ms", millis(percentile(lat, 99)));
+            if (!ttft.isEmpty()) {
+                m.put("ttftP50Ms", millis(percentile(ttft, 50)));
+                m.put("ttftP99Ms", millis(percentile(ttft, 99)));
+            }
+            if (o.lastError != null) m.put("lastError", o.lastError);
+            operations.add(m);
+        }
+
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("scenario", scenario);
+        r.put("durationSec", round(seconds));
+        r.put("operations", operations);
+        r.put("heapMaxMb", round(heapMax / 1048576.0));
+        r.put("heapAvgMb", round(samples == 0 ? 0 : heapSum / (double) samples / 1048576.0));
+        r.put("threadsPeak", threadPeak);
+        r.put("threadsAvg", round(samples == 0 ? 0 : threadSum / (double) samples));
+        return r;
+    }
+
+    private static List<Long> sorted(ConcurrentLinkedQueue<Long> q) {
+        List<Long> list = new ArrayList<>(q);
+        Collections.sort(list);
+        return list;
+    }
+
+    private static long percentile(List<Long> sorted, int p) {
+        if (sorted.isEmpty()) return 0;
+        int idx = (int) Math.ceil(p / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(idx, sorted.size() - 1)));
+    }
+
+    private static double millis(long nanos) {
+        return round(nanos / 1e6);
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 100) / 100.0;
+    }
+
+    private static final class Op {
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        final ConcurrentLinkedQueue<Long> ttfts = new ConcurrentLinkedQueue<>();
+        volatile String lastError;
+    }
+}
@@ -0,0 +1,379 @@
+package suatgpt.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import suatgpt.backend.SuatGptBackendApplication;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地容量压测入口（无需外网、无需 openclaw 容器）
+ * <p>
+ * 启动模型替身与 openclaw 替身脚本，在同一 JVM 内以 H2 内存库拉起完整后端，
+ * 然后按场景以 N 个并发用户持续施压，输出吞吐、TTFT、p50/p99 延迟、堆占用与线程数。
+ * <pre>
+ * mvn -Ploadtest -DskipTests test -Dloadtest.args="--users=50 --duration=60 --scenarios=chat,interview"
+ * </pre>
+ * 参数（均可省略）：
+ * --users 并发用户数 | --duration 每个场景的采样秒数 | --warmup 预热秒数 | --scenarios chat,interview,consult,homework,deadline
+ * --tokens-per-sec 模型吐字速度 | --reply-tokens 每次回复 token 数 | --first-token-ms 首字延迟 | --jitter-ms 抖动
+ * --agent-delay-ms openclaw 替身耗时 | --report 结果 JSON 路径
+ * 注意：压测端与被测服务同进程，堆与线程数包含压测端自身（N 个用户线程 + 替身线程）。
+ * 后端配置照常可用环境变量覆盖，例如 AI_SCHEDULER_CAPACITY=1000 相当于不限 AI 名额。
+ * <p>
+ * deadline 场景模拟周报截止前的高峰：四分之一的用户走面试流程，其余用户同时交周报，
+ * 看批处理的审计排队时实时面试对话（interview.chat）的延迟是否仍与单独压测时相当。
+ * <p>
+ * 每个场景写完都会调一次对应的读接口（{@link #READ_BACK}）。服务关了 open-in-view，接口漏取的 LAZY 列
+ * 在序列化时抛 LazyInitializationException、返回 500；读接口出现任何错误时进程以退出码 1 结束。
+ * 面试场景还会带同一个 Idempotency-Key 把简历再传一次，拿到的必须是首次上传的记录。
+ */
+public class LoadTestRunner {
+
+    /**
+     * 出错即说明逻辑有问题、而不是容量问题的操作：写完即读的详情 / 历史接口（取数计划漏了列），
+     * 以及带同一幂等键的重复上传（没有回放首次结果）
+     */
+    private static final Set<String> READ_BACK = Set.of("chat.history", "interview.detail", "homework.detail",
+            "interview.upload.retry");
+
+    private final Map<String, String> opts;
+    private final ApiClient api;
+    private final List<String> studentIds;
+    private final Map<Integer, Long> chatSessions = new ConcurrentHashMap<>();
+    private String userToken;
+    private String adminToken;
+    private Long jobId;
+
+    private LoadTestRunner(Map<String, String> opts, String baseUrl, List<String> studentIds) {
+        this.opts = opts;
+        this.api = new ApiClient(baseUrl);
+        this.studentIds = studentIds;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parse(args);
+        int users = intOpt(opts, "users", 20);
+
+        MockLlmServer llm = new MockLlmServer(intOpt(opts, "tokens-per-sec", 40), intOpt(opts, "reply-tokens", 80),
+                intOpt(opts, "first-token-ms", 300), intOpt(opts, "jitter-ms", 30));
+        llm.start();
+
+        Path work = Files.createTempDirectory("suat-loadtest");
+        Path stub = StubAgent.install(work, intOpt(opts, "agent-delay-ms", 800), intOpt(opts, "jitter-ms", 30));
+
+        List<String> props = backendProps("loadtest", llm, stub, work);
+        props.add("--server.tomcat.threads.max=" + Math.max(200, users * 2));
+
+        ConfigurableApplicationContext ctx = SpringApplication.run(SuatGptBackendApplication.class, props.toArray(new String[0]));
+        String port = ctx.getEnvironment().getProperty("local.server.port");
+        System.out.printf("🚀 后端已在 :%s 启动，模型替身 %s，openclaw 替身 %s%n", port, llm.baseUrl(), stub);
+
+        LoadTestRunner runner = new LoadTestRunner(opts, "http://127.0.0.1:" + port, loadStudentIds());
+        List<Map<String, Object>> reports = new ArrayList<>();
+        try {
+            runner.prepare();
+            for (String scenario : opts.getOrDefault("scenarios", "chat,interview,consult,homework").split(",")) {
+                reports.add(runner.run(scenario.trim(), users));
+            }
+        } finally {
+            ctx.close();
+            llm.stop();
+        }
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("config", opts);
+        out.put("users", users);
+        out.put("mockLlmRequests", llm.requestCount());
+        out.put("scenarios", reports);
+        Path report = Paths.get(opts.getOrDefault("report", "target/loadtest-report.json"));
+        if (report.getParent() != null) Files.createDirectories(report.getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(report.toFile(), out);
+        System.out.println("📄 压测结果已写入 " + report.toAbsolutePath());
+        System.exit(readBackErrors(reports) > 0 ? 1 : 0);
+    }
+
+    /**
+     * 进程内拉起后端的公共参数：H2 内存库 + 模型替身 + openclaw 替身，日志只留 WARN
+     */
+    static List<String> backendProps(String database, MockLlmServer llm, Path stub, Path work) {
+        // devtools 的重启类加载器会把进程内启动的应用再拉起一遍，压测时关掉
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        List<String> props = new ArrayList<>(List.of(
+                "--server.port=0",
+                // 建表走与线上相同的 Flyway 脚本，H2 以 MySQL 兼容模式执行
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--openclaw.agent.command=" + stub,
+                "--openclaw.workspace.host-dir=" + work.resolve("workspace"),
+                "--logging.level.root=WARN",
+                "--logging.level.suatgpt.backend=WARN"));
+        for (String key : List.of("anything-llm", "qwen-internal", "deepseek-internal", "qwen-public", "deepseek-public", "deepseek", "aliyun-coding")) {
+            props.add("--ai." + key + ".base-url=" + llm.baseUrl());
+            props.add("--ai." + key + ".api-key=loadtest");
+        }
+        return props;
+    }
+
+    // ==========================================
+    // 准备：账号、岗位、等待名单导入
+    // ==========================================
+    private void prepare() throws Exception {
+        ApiClient.Result login = api.postJson("/api/auth/login", Map.of("username", "loadtest01", "password", "loadtest01"), null);
+        if (!login.ok()) throw new IllegalStateException("压测账号登录失败: " + login.status());
+        userToken = login.body().path("token").asText();
+        // 周报详情只对导师本人与总负责人开放
+        ApiClient.Result admin = api.postJson("/api/auth/login", Map.of("username", "admin", "password", "123456"), null);
+        if (!admin.ok()) throw new IllegalStateException("管理员账号登录失败: " + admin.status());
+        adminToken = admin.body().path("token").asText();
+
+        ApiClient.Result job = api.postJson("/api/recruit/jobs/publish", Map.of(
+                "title", "后端开发工程师",
+                "description", "负责高并发服务设计与实现",
+                "adText", "【岗位】后端开发工程师：熟悉 Java / Spring，有性能调优经验者优先。"), null);
+        if (!job.ok()) throw new IllegalStateException("压测岗位创建失败: " + job.status());
+        jobId = job.body().path("id").asLong();
+
+        // 名单由后台任务在启动后导入，等它落库再开始周报场景
+        String probe = studentIds.get(0);
+        for (int i = 0; i < 60; i++) {
+            if (api.get("/api/homework/student-info?studentId=" + probe, userToken).ok()) return;
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("学生名单导入超时");
+    }
+
+    private Map<String, Object> run(String scenario, int users) throws Exception {
+        int warmup = intOpt(opts, "warmup", 5);
+        int duration = intOpt(opts, "duration", 30);
+        if (warmup > 0) drive(scenario, users, warmup, new LoadStats());
+
+        LoadStats stats = new LoadStats();
+        stats.start();
+        drive(scenario, users, duration, stats);
+        stats.stop();
+
+        Map<String, Object> report = stats.report(scenario);
+        print(report);
+        return report;
+    }
+
+    private void drive(String scenario, int users, int seconds, LoadStats stats) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService pool = Executors.newFixedThreadPool(users);
+        for (int u = 0; u < users; u++) {
+            int user = u;
+            pool.submit(() -> {
+                while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                    try {
+                        iterate(scenario, user, stats);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (Exception e) {
+                        stats.failure(scenario, e.getClass().getSimpleName() + ": " + e.getMessage());
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        // 让进行中的请求自然结束，避免把尾部慢请求截断成错误
+        if (!pool.awaitTermination(seconds + 600L, TimeUnit.SECONDS)) pool.shutdownNow();
+    }
+
+    // ==========================================
+    // 场景：一次迭代 = 一个用户走完一段典型流程
+    // ==========================================
+    private void iterate(String scenario, int user, LoadStats stats) throws Exception {
+        switch (scenario) {
+            case "chat" -> chat(user, stats);
+            case "interview" -> interview(user, stats);
+            case "consult" -> consult(user, stats);
+            case "homework" -> homework(user, stats);
+            case "deadline" -> {
+                if (user % 4 == 0) interview(user, stats);
+                else homework(user, stats);
+            }
+            default -> throw new IllegalArgumentException("未知场景: " + scenario);
+        }
+    }
+
+    private void chat(int user, LoadStats stats) throws Exception {
+        Long sessionId = chatSessions.get(user);
+        if (sessionId == null) {
+            ApiClient.Result s = api.postJson("/api/ai/sessions", Map.of("title", "压测会话 " + user), userToken);
+            if (!record(stats, "chat.session", s)) return;
+            sessionId = s.body().path("id").asLong();
+            chatSessions.put(user, sessionId);
+        }
+        ApiClient.Result r = api.stream("/api/ai/chat/stream", Map.of(
+                "message", "请帮我梳理一下分布式事务的常见方案。", "modelKey", "qwen-public", "sessionId", sessionId), userToken);
+        record(stats, "chat.stream", r);
+        record(stats, "chat.history", api.get("/api/ai/history/" + sessionId, userToken));
+    }
+
+    private void interview(int user, LoadStats stats) throws Exception {
+        // 前端每次提交生成一个新的幂等键；网关重试沿用同一个键
+        ApiClient keyed = api.withHeader("Idempotency-Key", UUID.randomUUID().toString());
+        Map<String, String> fields = Map.of(
+                "jobId", String.valueOf(jobId), "candidateName", "候选人" + user, "email", "c" + user + "@example.com");
+        byte[] resume = fakeDocument();
+        ApiClient.Result up = keyed.upload("/api/interview/upload", fields, "resume.docx", resume, null);
+        if (!record(stats, "interview.upload", up)) return;
+        String recordId = up.body().path("recordId").asText();
+        ApiClient.Result retry = keyed.upload("/api/interview/upload", fields, "resume.docx", resume, null);
+        if (retry.ok() && !recordId.equals(retry.body().path("recordId").asText())) {
+            stats.failure("interview.upload.retry", "重复上传新建了记录 " + retry.body().path("recordId").asText());
+        } else {
+            record(stats, "interview.upload.retry", retry);
+        }
+        for (int round = 1; round <= 2; round++) {
+            ApiClient.Result chat = api.postJson("/api/interview/chat", Map.of(
+                    "recordId", recordId, "message", "我主要负责订单服务的性能优化。", "chatCount", String.valueOf(round)), null);
+            record(stats, "interview.chat", chat);
+        }
+        record(stats, "interview.detail", api.get("/api/recruit/candidate/" + recordId, null));
+    }
+
+    private void consult(int user, LoadStats stats) throws Exception {
+        ApiClient.Result up = api.upload("/api/consult/upload", Map.of(
+                "userName", "咨询者" + user, "email", "u" + user + "@example.com"),
+                "resume.docx", fakeDocument(), null);
+        if (!record(stats, "consult.upload", up)) return;
+        String recordId = up.body().path("recordId").asText();
+        ApiClient.Result chat = api.postJson("/api/consult/chat", Map.of(
+                "recordId", recordId, "message", "我更喜欢做有挑战的技术工作。"), null);
+        record(stats, "consult.chat", chat);
+    }
+
+    private void homework(int user, LoadStats stats) throws Exception {
+        String studentId = studentIds.get(user % studentIds.size());
+        int week = ThreadLocalRandom.current().nextInt(1, 17);
+        ApiClient.Result up = api.upload("/api/homework/upload", Map.of(
+                "studentName", studentId, "weekNumber", String.valueOf(week)),
+                "report.docx", fakeDocument(), userToken);
+        if (!record(stats, "homework.upload", up)) return;
+        long recordId = up.body().path("recordId").asLong();
+        // 审计在后台排队，轮询记录直到审计报告回写；从上传到出报告的总耗时记为 homework.audit
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MINUTES.toNanos(5);
+        while (true) {
+            ApiClient.Result poll = api.get("/api/homework/records/" + recordId, adminToken);
+            if (!poll.ok()) {
+                record(stats, "homework.audit", poll);
+                return;
+            }
+            if (!poll.body().path("aiEvaluation").isNull()) break;
+            if (System.nanoTime() > deadline) {
+                stats.failure("homework.audit", "审计 5 分钟未出结果");
+                return;
+            }
+            Thread.sleep(500);
+        }
+        stats.success("homework.audit", System.nanoTime() - start, -1);
+        ApiClient.Result chat = api.postJson("/api/homework/chat", Map.of(
+                "recordId", recordId, "message", "本周完成了接口联调。", "chatCount", 1), userToken);
+        record(stats, "homework.chat", chat);
+        record(stats, "homework.detail", api.get("/api/homework/records/" + recordId, adminToken));
+    }
+
+    private static boolean record(LoadStats stats, String op, ApiClient.Result r) {
+        if (r.ok()) {
+            stats.success(op, r.latencyNanos(), r.ttftNanos());
+            return true;
+        }
+        JsonNode err = r.body() != null ? r.body().path("error") : null;
+        stats.failure(op, "HTTP " + r.status() + (err != null && !err.isMissingNode() ? " " + err.asText() : ""));
+        return false;
+    }
+
+    private static byte[] fakeDocument() {
+        // 替身 agent 不读取文件内容，给一个 32KB 的占位文件模拟真实上传体积
+        byte[] doc = new byte[32 * 1024];
+        ThreadLocalRandom.current().nextBytes(doc);
+        return doc;
+    }
+
+    private static List<String> loadStudentIds() throws Exception {
+        List<String> ids = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ClassPathResource("roster/mentor_mapping.csv").getInputStream(), StandardCharsets.UTF_8))) {
+            reader.readLine(); // 表头
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comma = line.indexOf(',');
+                if (comma > 0) ids.add(line.substring(0, comma).trim());
+            }
+        }
+        if (ids.isEmpty()) throw new IllegalStateException("内置名单为空");
+        return ids;
+    }
+
+    // ==========================================
+    // 输出
+    // ==========================================
+    @SuppressWarnings("unchecked")
+    private static void print(Map<String, Object> report) {
+        System.out.printf("%n== 场景 %s（%s 秒）堆峰值 %s MB / 均值 %s MB，线程峰值 %s / 均值 %s ==%n",
+                report.get("scenario"), report.get("durationSec"), report.get("heapMaxMb"), report.get("heapAvgMb"),
+                report.get("threadsPeak"), report.get("threadsAvg"));
+        System.out.printf("%-18s %8s %7s %10s %10s %10s %10s %10s%n",
+                "operation", "requests", "errors", "req/s", "p50 ms", "p99 ms", "ttft p50", "ttft p99");
+        for (Map<String, Object> op : (List<Map<String, Object>>) report.get("operations")) {
+            System.out.printf("%-18s %8s %7s %10s %10s %10s %10s %10s%n",
+                    op.get("operation"), op.get("requests"), op.get("errors"), op.get("throughputPerSec"),
+                    op.get("latencyP50Ms"), op.get("latencyP99Ms"),
+                    op.getOrDefault("ttftP50Ms", "-"), op.getOrDefault("ttftP99Ms", "-"));
+            if (op.get("lastError") != null) System.out.println("    last error: " + op.get("lastError"));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long readBackErrors(List<Map<String, Object>> reports) {
+        long errors = 0;
+        for (Map<String, Object> report : reports) {
+            for (Map<String, Object> op : (List<Map<String, Object>>) report.get("operations")) {
+                if (READ_BACK.contains(op.get("operation"))) errors += ((Number) op.get("errors")).longValue();
+            }
+        }
+        if (errors > 0) System.out.println("❌ 读接口 / 重复上传出错 " + errors + " 次，检查对应接口的实体图 / 投影是否漏了列、幂等回放是否生效");
+        return errors;
+    }
+
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> opts = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) continue;
+            int eq = arg.indexOf('=');
+            if (eq > 0) opts.put(arg.substring(2, eq), arg.substring(eq + 1));
+            else opts.put(arg.substring(2), "true");
+        }
+        return opts;
+    }
+
+    static int intOpt(Map<String, String> opts, String key, int def) {
+        String v = opts.get(key);
+        return v == null || v.isBlank() ? def : Integer.parseInt(v.trim());
+    }
+}
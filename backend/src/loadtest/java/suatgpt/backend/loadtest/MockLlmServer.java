@@ -0,0 +1,118 @@
+package suatgpt.backend.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地 OpenAI 兼容模型替身
+ * 任意以 /chat/completions 或 /chat/stream 结尾的 POST 都会被接住：
+ * stream=true 时按设定的 token/s 逐个推送 SSE 增量（带随机抖动），否则等价时长后一次性返回。
+ */
+public class MockLlmServer {
+
+    private static final String[] TOKENS = {"请", "具体", "说明", "你在", "项目", "中的", "职责", "，", "以及", "遇到的",
+            "技术", "难点", "和", "解决", "方案", "。", "另外", "，", "如何", "评估", "效果", "？"};
+
+    private final int tokensPerSecond;
+    private final int replyTokens;
+    private final int firstTokenMillis;
+    private final int jitterMillis;
+
+    private final AtomicLong requests = new AtomicLong();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public MockLlmServer(int tokensPerSecond, int replyTokens, int firstTokenMillis, int jitterMillis) {
+        this.tokensPerSecond = Math.max(1, tokensPerSecond);
+        this.replyTokens = Math.max(1, replyTokens);
+        this.firstTokenMillis = Math.max(0, firstTokenMillis);
+        this.jitterMillis = Math.max(0, jitterMillis);
+    }
+
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        // 流式响应会占住线程直到推送结束，用无界线程池避免替身本身成为瓶颈
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "mock-llm");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public void stop() {
+        if (server != null) server.stop(0);
+        if (executor != null) executor.shutdownNow();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1";
+    }
+
+    public long requestCount() {
+        return requests.get();
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        try (ex) {
+            String path = ex.getRequestURI().getPath();
+            if (!"POST".equals(ex.getRequestMethod()) || !(path.endsWith("/chat/completions") || path.endsWith("/chat/stream"))) {
+                ex.sendResponseHeaders(404, -1);
+                return;
+            }
+            requests.incrementAndGet();
+            String body = new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            if (body.replace(" ", "").contains("\"stream\":true")) {
+                stream(ex);
+            } else {
+                complete(ex);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void stream(HttpExchange ex) throws IOException, InterruptedException {
+        ex.getResponseHeaders().set("Content-Type", "text/event-stream");
+        ex.sendResponseHeaders(200, 0);
+        OutputStream out = ex.getResponseBody();
+        sleep(firstTokenMillis);
+        for (int i = 0; i < replyTokens; i++) {
+            if (i > 0) sleep(1000 / tokensPerSecond);
+            String chunk = "data: {\"id\":\"mock\",\"object\":\"chat.completion.chunk\",\"choices\":[{\"index\":0,\"delta\":{\"content\":\""
+                    + TOKENS[i % TOKENS.length] + "\"},\"finish_reason\":null}]}\n\n";
+            out.write(chunk.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+        out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void complete(HttpExchange ex) throws IOException, InterruptedException {
+        sleep(firstTokenMillis + (long) replyTokens * 1000 / tokensPerSecond);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < replyTokens; i++) text.append(TOKENS[i % TOKENS.length]);
+        byte[] json = ("{\"id\":\"mock\",\"object\":\"chat.completion\",\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":\""
+                + text + "\"},\"finish_reason\":\"stop\"}]}").getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(200, json.length);
+        ex.getResponseBody().write(json);
+    }
+
+    private void sleep(long millis) throws InterruptedException {
+        long jitter = jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(-jitterMillis, jitterMillis + 1) : 0;
+        long total = Math.max(0, millis + jitter);
+        if (total > 0) Thread.sleep(total);
+    }
+}
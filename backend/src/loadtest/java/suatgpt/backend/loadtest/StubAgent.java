@@ -0,0 +1,39 @@
+package suatgpt.backend.loadtest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * openclaw 可执行文件替身
+ * 生成一个 sh 脚本，通过 openclaw.agent.command 替换 docker exec 调用：
+ * 先打印与真实 CLI 同形态的诊断前导，按设定延迟（带抖动）后输出一段固定回复。
+ */
+public final class StubAgent {
+
+    private StubAgent() {}
+
+    public static Path install(Path dir, int delayMillis, int jitterMillis) throws IOException {
+        Files.createDirectories(dir);
+        Path script = dir.resolve("openclaw-stub.sh");
+        String content = """
+                #!/bin/sh
+                # 本地压测用 openclaw 替身，参数形如: agent --agent main --message "..."
+                echo "🦞 OpenClaw (stub)"
+                echo "Gateway agent failed; falling back to embedded: stub"
+                echo "Config: /dev/null"
+                echo ""
+                sleep $(awk -v base=%d -v jitter=%d 'BEGIN { srand(); d = base + (rand() * 2 - 1) * jitter; if (d < 0) d = 0; printf "%%.3f", d / 1000 }')
+                echo "【替身回复】请进一步说明你在项目中的具体职责，以及遇到的最大技术难点。"
+                echo ""
+                echo "1. 你负责的模块边界是什么？"
+                echo "2. 关键指标提升了多少，如何度量？"
+                """.formatted(delayMillis, jitterMillis);
+        Files.writeString(script, content, StandardCharsets.UTF_8);
+        if (!script.toFile().setExecutable(true)) {
+            throw new IOException("无法设置可执行权限: " + script);
+        }
+        return script;
+    }
+}
@@ -0,0 +1,194 @@
+package suatgpt.backend.loadtest;
+
+import java.util.Random;
+
+/**
+ * 造数用的中文文本：姓名、岗位、简历画像、面试实录、周报审计、闲聊消息
+ * <p>
+ * 全部由调用方传入的 {@link Random} 驱动，同一个种子得到逐字节相同的文本。
+ * 格式沿用线上写入的样子（轮次标记、Markdown 骨架），压缩率和解析路径才接近真实数据。
+ */
+final class SyntheticText {
+
+    private static final String SURNAMES = "王李张刘陈杨黄赵吴周徐孙马朱胡郭何高林罗郑梁谢宋唐许韩冯邓曹彭曾肖田董袁潘于蒋蔡余杜叶程苏魏吕丁任沈姚卢姜崔钟谭陆汪范金石廖贾夏韦付方白邹孟熊秦邱江尹薛闫段雷侯龙史陶黎贺顾毛郝龚邵万钱严覃武戴莫孔向汤";
+    private static final String GIVEN = "伟芳娜秀英敏静丽强磊军洋勇艳杰娟涛明超秀兰霞平刚桂英华玉萍红娥玲芬燕彬鹏浩宇轩子涵梓萱一诺欣怡晨思远博文俊豪嘉琪雨桐佳怡";
+
+    static final String[] JOB_TITLES = {
+            "Java 后端开发工程师", "前端开发工程师", "算法工程师（大模型方向）", "数据分析师", "测试开发工程师",
+            "产品经理", "运维开发工程师", "嵌入式软件工程师", "科研助理", "实验室管理员", "行政助理", "新媒体运营",
+            "招生宣传专员", "财务助理", "硬件工程师", "机器人控制工程师", "计算机视觉工程师", "教学秘书"};
+
+    static final String[] COLLEGES = {"计算机科学与控制工程学院", "药学院", "生命健康学院", "材料科学与能源工程学院",
+            "合成生物学院", "建筑与城市规划学院", "经济与管理学院"};
+
+    private static final String[] QUESTIONS = {
+            "请简单介绍一下你在上一段项目中承担的具体职责，以及最终交付了什么。",
+            "你简历里提到把接口延迟从秒级降到了百毫秒以内，能说说定位瓶颈的过程吗？",
+            "如果线上突然出现大量超时，你会按什么顺序排查？",
+            "谈谈你对事务隔离级别的理解，实际项目里踩过哪些坑？",
+            "团队里和你意见相左的时候，你通常怎么推进？举一个具体的例子。",
+            "这个岗位需要经常和学院老师沟通需求，你怎么看待这类协调工作？",
+            "你提到熟悉缓存，那缓存和数据库的一致性你是怎么保证的？",
+            "请说一个你失败的项目经历，复盘下来最大的教训是什么？",
+            "为什么想来我们学校工作？你对未来三年的规划是什么？",
+            "如果给你一周时间接手一个没有文档的老系统，你会怎么开展？"};
+
+    private static final String[] ANSWERS = {
+            "当时我主要负责订单模块的重构，先梳理了调用链路，再把同步调用拆成消息队列异步处理，最后上线后高峰期的失败率下降了一半左右。",
+            "我们先在网关上加了分位数埋点，发现慢请求集中在一个联表查询上，加了复合索引并把大字段改成按需加载，p99 就降下来了。",
+            "我会先看监控确认影响面，是全量还是某个实例；然后看最近有没有发布，再看数据库连接池和慢查询日志，必要时先回滚止血。",
+            "读已提交和可重复读用得最多，之前遇到过幻读导致重复发券的问题，后来改成唯一约束加乐观锁兜底。",
+            "我一般会先把双方的方案写成对比表格，列出成本和风险，再约一次短会当面对齐，实在不行就请负责人拍板，尽量不拖。",
+            "我觉得沟通本身就是工作的一部分，把需求确认清楚能省掉后面大量返工，我之前在学生会也做过类似的协调。",
+            "我们采用先更新数据库再删除缓存的策略，并且给缓存设置了较短的过期时间，关键数据再加一次延迟双删。",
+            "有一次比赛项目因为前期没有控制范围，最后功能做了一大堆但都不稳定，之后我做事会先定最小可用版本。",
+            "学校的科研氛围和平台都很吸引我，我希望前两年把业务吃透，第三年能独立负责一个方向。",
+            "先把系统跑起来，画出模块依赖和数据流，再找原作者或老用户访谈，边看代码边补文档，小步修改。"};
+
+    private static final String[] ANALYSIS_POINTS = {
+            "具备扎实的编程基础，能够独立完成中等规模模块的设计与实现",
+            "项目经历与岗位要求高度相关，对高并发场景有一定实践",
+            "表达清晰，逻辑性较强，能够结构化地陈述问题",
+            "简历中部分量化指标缺少佐证，需在面试中重点追问",
+            "实习时间较短，工程规范与协作经验有待验证",
+            "对大模型应用开发有浓厚兴趣，自学能力强",
+            "技术栈偏前端，后端经验主要来自课程设计",
+            "有跨部门沟通协调经验，适合需要对接多方的岗位"};
+
+    private static final String[] REPORT_LINES = {
+            "本周完成了实验方案的初步设计，并与导师讨论了评价指标的选取。",
+            "复现了两篇相关论文的核心算法，在公开数据集上得到了接近原文的结果。",
+            "团队完成了产品原型的第二轮迭代，收集到十二位同学的使用反馈。",
+            "走访了三家校外合作企业，整理了需求访谈纪要并形成问题清单。",
+            "由于设备预约冲突，实验进度比计划延后约两天，下周集中补齐。",
+            "搭建了数据采集脚本，累计清洗有效样本约两千条。",
+            "撰写了商业计划书的市场分析部分，补充了竞品对比表格。",
+            "参加了创新创业讲座，对知识产权保护有了更系统的认识。"};
+
+    private static final String[] CHAT_TOPICS = {"论文润色", "课程答疑", "实验设计", "简历修改", "Python 报错", "读书笔记",
+            "奖学金申请", "实习面试准备", "英文邮件", "数据可视化", "考研规划", "竞赛选题"};
+
+    private static final String[] USER_LINES = {
+            "帮我看看这段代码为什么会空指针？", "这篇摘要能不能改得更学术一点？", "能给我推荐几本入门的书吗？",
+            "实验结果和预期不一致，可能是哪些原因？", "请用通俗的话解释一下梯度下降。", "帮我列一个下周的复习计划。",
+            "这封邮件的语气会不会太生硬？", "我该怎么准备明天的面试？", "继续", "再详细一点", "谢谢，明白了"};
+
+    private static final String[] AI_LINES = {
+            "好的，我们分几步来看这个问题。", "首先需要确认输入数据的格式是否符合预期。",
+            "从报错信息看，问题出在对象尚未初始化就被调用。", "可以考虑把这部分逻辑拆成独立的函数，便于测试。",
+            "以下是修改后的版本，主要调整了句式和用词：", "建议先从基础概念入手，再逐步过渡到实际项目。",
+            "这个结论在样本量较小时并不稳健，建议补充对照实验。", "总结一下：明确目标、拆分任务、按周复盘。",
+            "如果还有疑问，可以把完整的报错日志发给我。", "需要注意的是，不同版本的依赖行为可能不一致。"};
+
+    private SyntheticText() {}
+
+    static String name(Random rnd) {
+        StringBuilder sb = new StringBuilder(3).append(SURNAMES.charAt(rnd.nextInt(SURNAMES.length())));
+        int given = rnd.nextInt(3) == 0 ? 1 : 2;
+        for (int i = 0; i < given; i++) sb.append(GIVEN.charAt(rnd.nextInt(GIVEN.length())));
+        return sb.toString();
+    }
+
+    static String pick(Random rnd, String[] bank) {
+        return bank[rnd.nextInt(bank.length)];
+    }
+
+    static String chatTitle(Random rnd) {
+        return pick(rnd, CHAT_TOPICS) + " #" + (1 + rnd.nextInt(99));
+    }
+
+    static String userMessage(Random rnd) {
+        return pick(rnd, USER_LINES);
+    }
+
+    /** 助手回复：几句到十几句不等，长尾偏短 */
+    static String aiMessage(Random rnd) {
+        int lines = 1 + (int) (12 * rnd.nextDouble() * rnd.nextDouble());
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            if (i > 0) sb.append(rnd.nextInt(4) == 0 ? "\n- " : "");
+            sb.append(pick(rnd, AI_LINES));
+        }
+        return sb.toString();
+    }
+
+    static String jobDescription(Random rnd, String title) {
+        return "招聘岗位：" + title + "。\n" + fill(rnd, ANALYSIS_POINTS, 200 + rnd.nextInt(400));
+    }
+
+    /** 岗位公告，格式接近生成接口润色后的 Markdown */
+    static String jobAd(Random rnd, String title) {
+        return "## " + title + "\n### 岗位职责\n" + bullets(rnd, ANALYSIS_POINTS, 4)
+                + "\n### 任职要求\n" + bullets(rnd, ANALYSIS_POINTS, 5)
+                + "\n### 我们提供\n- 有竞争力的薪酬与完善的福利\n- 校内住宿与食堂\n";
+    }
+
+    /** 简历初筛报告，约 targetBytes 字节（UTF-8） */
+    static String resumeAnalysis(Random rnd, String candidate, String job, int targetBytes) {
+        StringBuilder sb = new StringBuilder()
+                .append("## 简历评估：").append(candidate).append("\n")
+                .append("- **岗位匹配度**：").append(50 + rnd.nextInt(50)).append(" 分\n")
+                .append("- **目标岗位**：").append(job).append("\n### 核心优势\n");
+        sb.append(bullets(rnd, ANALYSIS_POINTS, 3)).append("### 短板分析\n").append(bullets(rnd, ANALYSIS_POINTS, 2))
+                .append("### 面试追问建议\n");
+        while (bytes(sb) < targetBytes) sb.append("- ").append(pick(rnd, QUESTIONS)).append("\n");
+        return sb.toString();
+    }
+
+    /** 面试实录：考官与候选人一问一答，直到约 targetBytes 字节 */
+    static String interviewTranscript(Random rnd, int targetBytes) {
+        StringBuilder sb = new StringBuilder();
+        while (bytes(sb) < targetBytes) {
+            sb.append("\n【候选人】: ").append(pick(rnd, ANSWERS));
+            if (rnd.nextBoolean()) sb.append(pick(rnd, ANSWERS));
+            sb.append("\n【AI考官】: ").append(pick(rnd, QUESTIONS));
+        }
+        return sb.toString();
+    }
+
+    static String writtenTestPaper(Random rnd, String job) {
+        return "### " + job + " 笔试 ###\n1. " + pick(rnd, QUESTIONS) + "\n2. " + pick(rnd, QUESTIONS) + "\n3. " + pick(rnd, QUESTIONS);
+    }
+
+    static String writtenTestAnswer(Random rnd) {
+        return "1. " + pick(rnd, ANSWERS) + "\n2. " + pick(rnd, ANSWERS) + "\n3. " + pick(rnd, ANSWERS);
+    }
+
+    /** 周报审计报告，格式对齐作业审计提示词要求的小节 */
+    static String homeworkEvaluation(Random rnd, int week, int targetBytes) {
+        StringBuilder sb = new StringBuilder("## 双创实践周报深度审计（第 ").append(week).append(" 周）\n### 工作量与逻辑核实\n");
+        sb.append(fill(rnd, REPORT_LINES, targetBytes / 3)).append("\n### 真实性甄别\n")
+                .append(fill(rnd, REPORT_LINES, targetBytes / 4)).append("\n### 导师质询建议\n");
+        while (bytes(sb) < targetBytes) sb.append("- ").append(pick(rnd, QUESTIONS)).append("\n");
+        return sb.toString();
+    }
+
+    static String homeworkChat(Random rnd, int turns) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < turns; i++) {
+            sb.append("\n【学生】: ").append(pick(rnd, REPORT_LINES)).append("\n【AI助教】: ").append(pick(rnd, QUESTIONS));
+        }
+        return sb.toString();
+    }
+
+    static String prompt(Random rnd, String role, int targetBytes) {
+        return "### 任务 ###\n你是" + role + "。\n" + fill(rnd, ANALYSIS_POINTS, targetBytes);
+    }
+
+    private static String bullets(Random rnd, String[] bank, int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) sb.append("- ").append(pick(rnd, bank)).append("\n");
+        return sb.toString();
+    }
+
+    private static String fill(Random rnd, String[] bank, int targetBytes) {
+        StringBuilder sb = new StringBuilder();
+        while (bytes(sb) < targetBytes) sb.append(pick(rnd, bank)).append("。");
+        return sb.toString();
+    }
+
+    private static int bytes(CharSequence s) {
+        // 正文几乎全是 3 字节汉字，按字符数 × 3 估算，免得每追加一句就重新编码一遍
+        return s.length() * 3;
+    }
+}
@@ -1,6 +1,8 @@
 
 package suatgpt.backend;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -15,11 +17,11 @@ import suatgpt.backend.repository.UserRepository;
 @EnableScheduling // 🚀 必须开启这个，定时任务才会物理生效！
 public class SuatGptBackendApplication {
 
+    private static final Logger log = LoggerFactory.getLogger(SuatGptBackendApplication.class);
+
     public static void main(String[] args) {
         SpringApplication.run(SuatGptBackendApplication.class, args);
-        System.out.println("\n--- SUAT GPT Backend Started ---");
-        System.out.println("Default Login: admin / 123456");
-        System.out.println("--------------------------------\n");
+        log.info("--- SUAT GPT Backend Started --- Default Login: admin / 123456");
     }
 
     @Bean
@@ -39,7 +41,7 @@ public class SuatGptBackendApplication {
                 admin.setPassword(passwordEncoder.encode("123456"));
                 admin.setRole("ADMIN");
                 userRepository.save(admin);
-                System.out.println(">>> Created default user: admin / 123456");
+                log.info(">>> Created default user: admin / 123456");
             }
         };
     }
@@ -17,6 +17,19 @@ public class InterviewPromptRegistry {
                     "【简历评估】：%s\n" +
                     "【要求】：请作为资深教研员，基于上述信息出 3 道笔试题，涵盖专业能力、情境模拟与教学实战。直接给出题目。";
 
+    // 🚀 岗位题库模板：不看具体简历，按侧重点轮换出多套互不雷同的试卷，供候选人即领即答
+    public static final String WRITTEN_TEST_POOL_TEMPLATE =
+            "### 任务：岗位笔试题库命题 ###\n" +
+                    "【岗位要求】：%s\n" +
+                    "【本套侧重】：%s\n" +
+                    "【要求】：请作为资深教研员出 3 道笔试题（本岗位第 %d 套），涵盖专业能力、情境模拟与教学实战，" +
+                    "题目须围绕本套侧重展开，避免常见套题。直接给出题目。";
+
+    // 题库轮换的侧重点，保证同一岗位的不同试卷各有差异
+    public static final String[] WRITTEN_TEST_FOCUS = {
+            "专业基础与概念辨析", "情境模拟与突发处置", "教学实战与课堂设计", "项目复盘与数据分析", "沟通协作与职业规划"
+    };
+
     // 🚀 阅卷评估模板
     public static final String WRITTEN_TEST_EVAL_TEMPLATE =
             "### 任务：物理阅卷评估 ###\n" +
@@ -48,6 +61,29 @@ public class InterviewPromptRegistry {
                     "如果是第 15 轮，请在结尾附加 [INTERVIEW_DONE] 并给出录用建议。";
     // 🚀 删除了多余的分号，优化了结构，防止 AI 抓取整个字符串复读
 
+    // ==========================================
+    // 2.1 消息模式 (interview.prompt.mode=messages)
+    // 不变的设定放进 system，每轮只追加一条 user；前缀逐字节不变，推理端的前缀缓存才能命中
+    // ==========================================
+    public static final String INTERVIEW_SYSTEM_TEMPLATE =
+            "## 系统设定：面试官模式 ##\n" +
+                    "【面试对象】：%s | 【应聘岗位】：%s\n" +
+                    "【岗位详情】：%s\n" +
+                    "【物理指令】：每轮请结合岗位要求，对候选人刚才的回答进行 30 字以内的专业追问。" +
+                    "如果是第 15 轮，请在结尾附加 [INTERVIEW_DONE] 并给出录用建议。";
+
+    public static final String INTERVIEW_TURN_TEMPLATE =
+            "【当前进度】：第 %d 轮 / 15 轮\n" +
+                    "【当前任务】：%s\n" +
+                    "--- 候选人回答 ---\n%s";
+
+    // 机构自定义的单串模板套进 system 时，逐轮变化的坑位统一填这些固定占位
+    public static final String TURN_SLOT = "（见最新一条消息）";
+    public static final String HISTORY_SLOT = "（见上文对话）";
+
+    // 上传阶段预生成开场题时，候选人还没开口，用这句代替第 1 轮回答
+    public static final String OPENING_STARTER = "（候选人已进入面试间，请开始提问）";
+
     // ==========================================
     // 3. 物理防御与兜底回复
     // ==========================================
@@ -0,0 +1,62 @@
+package suatgpt.backend.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按日志分类抽样（logback-spring.xml 中以 &lt;rule&gt;分类=比例&lt;/rule&gt; 配置）
+ * 只对 INFO 及以下生效，WARN / ERROR 永远全量；分类按 logger 名前缀匹配，取最长的那条。
+ * 级别开关仍走 logging.level.*，抽样在级别判定之后进行，不影响被关掉的分类的开销。
+ */
+public class LogSamplingFilter extends TurboFilter {
+
+    private final Map<String, Double> rates = new LinkedHashMap<>();
+
+    /** 形如 suatgpt.transcript=0.2；比例 ≥1 表示全量，≤0 表示全丢 */
+    public void addRule(String rule) {
+        int eq = rule.lastIndexOf('=');
+        if (eq <= 0) {
+            addWarn("忽略无效的抽样规则: " + rule);
+            return;
+        }
+        try {
+            rates.put(rule.substring(0, eq).trim(), Double.parseDouble(rule.substring(eq + 1).trim()));
+        } catch (NumberFormatException e) {
+            addWarn("忽略无效的抽样比例: " + rule);
+        }
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // format 为空是 isXxxEnabled() 探测，不参与抽样，免得同一条日志被抽两次
+        if (rates.isEmpty() || format == null || level == null || level.isGreaterOrEqual(Level.WARN)) return FilterReply.NEUTRAL;
+        // 不能调 logger.isEnabledFor()，它会再次进入 TurboFilter
+        if (!level.isGreaterOrEqual(logger.getEffectiveLevel())) return FilterReply.NEUTRAL;
+
+        Double rate = rateOf(logger.getName());
+        if (rate == null || rate >= 1.0) return FilterReply.NEUTRAL;
+        if (rate <= 0.0) return FilterReply.DENY;
+        return ThreadLocalRandom.current().nextDouble() < rate ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private Double rateOf(String loggerName) {
+        Double best = null;
+        int bestLen = -1;
+        for (Map.Entry<String, Double> e : rates.entrySet()) {
+            String prefix = e.getKey();
+            if (prefix.length() > bestLen && loggerName.startsWith(prefix)
+                    && (loggerName.length() == prefix.length() || loggerName.charAt(prefix.length()) == '.')) {
+                best = e.getValue();
+                bestLen = prefix.length();
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,43 @@
+package suatgpt.backend.config;
+
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.data.DefaultRepositoryTagsProvider;
+import org.springframework.boot.actuate.metrics.data.RepositoryTagsProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+import suatgpt.backend.service.AiMetrics;
+
+/**
+ * 🚀 监控标签对齐：HTTP 请求与 Spring Data 仓库耗时都补上 tenant / endpoint，
+ * 与 {@link AiMetrics} 的 AI 链路指标用同一套维度，Grafana 上可以按租户、接口联查。
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * http.server.requests 默认只有 uri，这里追加 tenant
+     */
+    @Bean
+    public ServerRequestObservationConvention tenantAwareRequestConvention() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                return super.getLowCardinalityKeyValues(context)
+                        .and("tenant", AiMetrics.tenantOf(context.getCarrier()));
+            }
+        };
+    }
+
+    /**
+     * spring.data.repository.invocations 追加发起调用的接口与租户；异步线程上记为 none / default
+     */
+    @Bean
+    public RepositoryTagsProvider repositoryTagsProvider() {
+        DefaultRepositoryTagsProvider defaults = new DefaultRepositoryTagsProvider();
+        return invocation -> Tags.of(defaults.repositoryTags(invocation)).and(AiMetrics.context());
+    }
+}
@@ -81,8 +81,12 @@ public class WebSecurityConfig {
 
                         // 🚀 物理修正 2：确保 /login 和 /api/auth/** 都能进去
                         .requestMatchers("/api/recruit/job-stats").permitAll()
+                        .requestMatchers("/api/recruit/export/**", "/api/consult/admin/export").hasRole("ADMIN") // 📤 全量导出只给管理员，必须排在 /api/recruit/** 放行之前
+                        .requestMatchers("/api/recruit/interrupt").hasRole("ADMIN") // ⏹️ 中断面试是招聘方操作，同样排在放行之前
                         .requestMatchers("/login", "/api/auth/**", "/api/recruit/**", "/api/interview/**").permitAll()
                         .requestMatchers("/h2-console/**", "/error", "/public/**").permitAll()
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll() // 📈 Prometheus 抓取无需登录，/actuator 不经反向代理对外
+                        .requestMatchers("/actuator/**").hasRole("ADMIN") // 运行时调日志级别等管理操作只给管理员
                         .requestMatchers("/api/course/**", "/api/consult/upload","/api/consult/chat","/api/consult/config").permitAll() // 🚀 物理放行：任何人都能萃取
                         .requestMatchers("/api/jobs/public-list").permitAll() // 🚀 物理放行：任何人都能萃取
                         .requestMatchers("/api/homework/**").authenticated()
@@ -2,16 +2,18 @@ package suatgpt.backend.controller;
 
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import suatgpt.backend.config.UserPrincipal;
 import suatgpt.backend.model.ChatSession;
 import suatgpt.backend.model.User;
 import suatgpt.backend.repository.ChatMessageRepository;
 import suatgpt.backend.repository.ChatSessionRepository;
 import suatgpt.backend.repository.UserRepository;
+import suatgpt.backend.service.AiCapacityScheduler;
 import suatgpt.backend.service.AiService;
 
 import java.time.LocalDateTime;
@@ -28,15 +30,18 @@ public class AiController {
     private final UserRepository userRepository;
     private final ChatSessionRepository sessionRepository;
     private final ChatMessageRepository messageRepository;
+    private final AiCapacityScheduler scheduler;
 
     public AiController(AiService aiService,
                         UserRepository userRepository,
                         ChatSessionRepository sessionRepository,
-                        ChatMessageRepository messageRepository) {
+                        ChatMessageRepository messageRepository,
+                        AiCapacityScheduler scheduler) {
         this.aiService = aiService;
         this.userRepository = userRepository;
         this.sessionRepository = sessionRepository;
         this.messageRepository = messageRepository;
+        this.scheduler = scheduler;
     }
 
     // 定义请求与响应数据结构
@@ -53,9 +58,8 @@ public class AiController {
      * 获取会话列表
      */
     @GetMapping("/sessions")
-    public ResponseEntity<List<SessionResponse>> getSessions(@AuthenticationPrincipal UserDetails userDetails) {
-        User user = getUser(userDetails);
-        List<SessionResponse> sessions = sessionRepository.findByUserOrderByCreatedAtDesc(user).stream()
+    public ResponseEntity<List<SessionResponse>> getSessions(@AuthenticationPrincipal UserPrincipal principal) {
+        List<SessionResponse> sessions = sessionRepository.findByUserIdOrderByCreatedAtDesc(principal.getId()).stream()
                 .map(s -> new SessionResponse(s.getId(), s.getTitle(), s.getCreatedAt()))
                 .collect(Collectors.toList());
         return ResponseEntity.ok(sessions);
@@ -65,8 +69,8 @@ public class AiController {
      * 创建新会话
      */
     @PostMapping("/sessions")
-    public ResponseEntity<SessionResponse> createSession(@AuthenticationPrincipal UserDetails userDetails, @RequestBody CreateSessionRequest body) {
-        User user = getUser(userDetails);
+    public ResponseEntity<SessionResponse> createSession(@AuthenticationPrincipal UserPrincipal principal, @RequestBody CreateSessionRequest body) {
+        User user = getUser(principal);
         ChatSession session = new ChatSession(user, body.title());
         ChatSession saved = sessionRepository.save(session);
         return ResponseEntity.ok(new SessionResponse(saved.getId(), saved.getTitle(), saved.getCreatedAt()));
@@ -88,9 +92,9 @@ public class AiController {
      * 🚀 物理增强：已根据 application.yml 的 api 架构，自动路由 6 种模型
      */
     @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter streamChat(@AuthenticationPrincipal UserDetails userDetails, @RequestBody ChatRequest request) {
+    public SseEmitter streamChat(@AuthenticationPrincipal UserPrincipal principal, @RequestBody ChatRequest request) {
         SseEmitter emitter = new SseEmitter(600000L);
-        User user = getUser(userDetails);
+        User user = getUser(principal);
 
         // 1. 物理安全提取 sessionId
         String sidStr = request.sessionId() != null ? String.valueOf(request.sessionId()) : "";
@@ -113,6 +117,15 @@ public class AiController {
         return emitter;
     }
 
+    /**
+     * 🚦 AI 名额调度现状：各优先级的预留 / 占用 / 排队数，以及排队中的调用按发放顺序的名次
+     */
+    @GetMapping("/scheduler")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> scheduler() {
+        return ResponseEntity.ok(scheduler.snapshot());
+    }
+
     /**
      * 新增：读取本地存档记录
      */
@@ -149,8 +162,11 @@ public class AiController {
         }
     }
 
-    private User getUser(UserDetails userDetails) {
-        return userRepository.findByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    /**
+     * 当前用户的实体引用：ID 来自 JWT 过滤器已加载的 principal，不再按用户名查库，
+     * 只作为新建会话的外键使用
+     */
+    private User getUser(UserPrincipal principal) {
+        return userRepository.getReferenceById(principal.getId());
     }
 }
\ No newline at end of file
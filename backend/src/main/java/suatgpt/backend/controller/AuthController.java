@@ -1,16 +1,19 @@
 package suatgpt.backend.controller;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.web.bind.annotation.*;
 import suatgpt.backend.model.User;
 import suatgpt.backend.repository.UserRepository;
+import suatgpt.backend.service.HeartbeatService;
 import suatgpt.backend.service.UserService;
 import suatgpt.backend.utils.JwtUtils;
 
@@ -25,11 +28,13 @@ import java.util.Map;
 @CrossOrigin(origins = "*", allowedHeaders = "*")
 public class AuthController {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthController.class);
+
     private final UserService userService;
     private final UserRepository userRepository;
     private final AuthenticationManager authenticationManager;
-    private final UserDetailsService userDetailsService;
     private final JwtUtils jwtUtils;
+    private final HeartbeatService heartbeatService;
 
     /**
      * 构造函数：注入所有核心安全组件，解决符号找不到的问题。
@@ -37,13 +42,13 @@ public class AuthController {
     public AuthController(UserService userService,
                           UserRepository userRepository,
                           AuthenticationManager authenticationManager,
-                          UserDetailsService userDetailsService,
-                          JwtUtils jwtUtils) {
+                          JwtUtils jwtUtils,
+                          HeartbeatService heartbeatService) {
         this.userService = userService;
         this.userRepository = userRepository;
         this.authenticationManager = authenticationManager;
-        this.userDetailsService = userDetailsService;
         this.jwtUtils = jwtUtils;
+        this.heartbeatService = heartbeatService;
     }
 
     // --- DTOs (使用 Class 替代 Record 以确保物理 Getter 存在) ---
@@ -85,19 +90,20 @@ public class AuthController {
         try {
             // 1. 物理检查：如果数据库中不存在该用户，则先执行注册逻辑。
             if (!userRepository.existsByUsername(username)) {
-                System.out.println(">>> [自动注册] 检测到新用户: " + username);
+                log.info(">>> [自动注册] 检测到新用户: {}", username);
                 // UserService.registerUser 内部已包含 ADMIN 关键字判定和前缀校验逻辑。
                 userService.registerUser(username, password);
             }
 
             // 2. 此时数据库已有记录，进行标准 Spring Security 认证。
-            authenticationManager.authenticate(
+            Authentication auth = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(username, password)
             );
 
-            // 3. 认证成功，生成 JWT Token 并更新心跳。
-            final UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            // 3. 认证成功，生成 JWT Token 并更新心跳（认证时已加载过用户详情，直接复用）。
+            final UserDetails userDetails = (UserDetails) auth.getPrincipal();
             final String token = jwtUtils.generateToken(userDetails);
+            userRepository.findByUsername(username).ifPresent(userService::touchHeartbeat);
 
             return ResponseEntity.ok(Map.of(
                     "token", token,
@@ -111,6 +117,7 @@ public class AuthController {
             // 捕获密码错误。
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Invalid username or password"));
         } catch (Exception e) {
+            log.error("登录流程异常: {}", username, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("message", "System error: " + e.getMessage()));
         }
     }
@@ -124,6 +131,21 @@ public class AuthController {
             return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
         }
     }
+    /**
+     * 心跳上报
+     * 路由: POST /api/auth/heartbeat。只写内存，由心跳引擎批量刷盘并按截止时间处理超时。
+     */
+    @PostMapping("/heartbeat")
+    public ResponseEntity<?> heartbeat(@AuthenticationPrincipal UserDetails userDetails) {
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new AuthResponse(null, "Not authenticated"));
+        }
+        boolean candidate = userDetails.getAuthorities().stream()
+                .anyMatch(a -> "ROLE_CANDIDATE".equals(a.getAuthority()));
+        heartbeatService.touch(userDetails.getUsername(), candidate);
+        return ResponseEntity.ok(Map.of("success", true));
+    }
+
     /**
      * 获取当前用户信息
      * 路由: GET /api/auth/me。
@@ -1,13 +1,18 @@
 package suatgpt.backend.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import suatgpt.backend.model.ConsultConfig;
 import suatgpt.backend.repository.ConsultConfigRepository;
 import suatgpt.backend.service.ConsultService;
+import suatgpt.backend.service.IdempotencyService;
+import suatgpt.backend.service.RecordExportService;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.Map;
 
@@ -20,11 +25,27 @@ public class ConsultController {
     private ConsultService consultService;
     @Autowired
     private ConsultConfigRepository consultConfigRepository;
+    @Autowired
+    private RecordExportService exportService;
+    @Autowired
+    private IdempotencyService idempotency;
 
     // ==========================================
     // 🛠️ Admin 管理端接口：配置的增删改查
     // ==========================================
 
+    // 📤 咨询记录批量导出（逐行流式写出），可按租户 / 状态筛选
+    @GetMapping("/admin/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportRecords(@RequestParam(value = "tenantId", required = false) String tenantId,
+                              @RequestParam(value = "status", required = false) String status,
+                              @RequestParam(value = "format", defaultValue = "xlsx") String format,
+                              HttpServletResponse response) throws IOException {
+        RecordExportService.Format f = RecordExportService.Format.of(format);
+        exportService.exportConsults(tenantId == null || tenantId.isBlank() ? null : tenantId.trim(),
+                status == null || status.isBlank() ? null : status.trim(), f, exportService.prepare(response, f, "咨询记录"));
+    }
+
     // 获取所有咨询分身配置
     @GetMapping("/admin/configs")
     public ResponseEntity<?> getAllConfigs() {
@@ -58,9 +79,14 @@ public class ConsultController {
             @RequestParam("file") MultipartFile file,
             @RequestParam("userName") String userName,
             @RequestParam("email") String email,
-            @RequestParam(value = "tenantId", defaultValue = "default") String tenantId) {
+            @RequestParam(value = "tenantId", defaultValue = "default") String tenantId,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         try {
-            return ResponseEntity.ok(consultService.startConsultation(file, userName, email, tenantId));
+            String fingerprint = IdempotencyService.fingerprint(file, userName, email, tenantId);
+            return idempotency.execute("consult.upload", idempotencyKey, fingerprint, () -> {
+                Map<String, Object> result = consultService.startConsultation(file, userName, email, tenantId);
+                return IdempotencyService.agentResponse(result, String.valueOf(result.get("reply")));
+            });
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
         }
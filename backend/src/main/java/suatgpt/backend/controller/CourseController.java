@@ -3,13 +3,24 @@ package suatgpt.backend.controller;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import suatgpt.backend.config.CoursePromptRegistry;
+import suatgpt.backend.service.AiCapacityScheduler;
+import suatgpt.backend.service.AiMetrics;
+import suatgpt.backend.service.PptxRenderService;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.*;
 import java.nio.charset.StandardCharsets;
@@ -24,6 +35,8 @@ import java.util.regex.Pattern;
 @CrossOrigin
 public class CourseController {
 
+    private static final Logger log = LoggerFactory.getLogger(CourseController.class);
+
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final HttpClient httpClient = HttpClient.newBuilder()
             .connectTimeout(java.time.Duration.ofSeconds(60))
@@ -35,6 +48,19 @@ public class CourseController {
     @Value("${ai.qwen-public.base-url:https://dashscope.aliyuncs.com/compatible-mode/v1}")
     private String qwenBaseUrl;
 
+    private static final MediaType PPTX = MediaType.parseMediaType(
+            "application/vnd.openxmlformats-officedocument.presentationml.presentation");
+
+    private final AiMetrics metrics;
+    private final PptxRenderService pptxRenderService;
+    private final AiCapacityScheduler scheduler;
+
+    public CourseController(AiMetrics metrics, PptxRenderService pptxRenderService, AiCapacityScheduler scheduler) {
+        this.metrics = metrics;
+        this.pptxRenderService = pptxRenderService;
+        this.scheduler = scheduler;
+    }
+
     /**
      * 核心萃取处理：强制执行物理留痕与 JSON 提取
      */
@@ -56,7 +82,15 @@ public class CourseController {
             default -> "请继续萃取内容";
         };
 
+        Tags context = AiMetrics.context();
+        AiCapacityScheduler.Permit permit;
         try {
+            permit = scheduler.acquire(AiCapacityScheduler.Priority.NEAR_INTERACTIVE);
+        } catch (RuntimeException e) {
+            return ResponseEntity.ok(Map.of("error", e.getMessage(), "analysis", "萃取响应异常，请重试。"));
+        }
+        long start = System.nanoTime();
+        try (permit) {
             String requestBody = objectMapper.createObjectNode()
                     .put("model", "qwen-plus")
                     .set("messages", objectMapper.createArrayNode()
@@ -71,7 +105,15 @@ public class CourseController {
                     .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                     .build();
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response;
+            try {
+                response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            } catch (IOException e) {
+                metrics.upstreamStatus("qwen-public", 0, context);
+                throw e;
+            }
+            metrics.upstreamStatus("qwen-public", response.statusCode(), context);
+            metrics.generation("qwen-public", System.nanoTime() - start, response.statusCode() == 200 ? "ok" : "error", context);
             JsonNode root = objectMapper.readTree(response.body());
             String rawAiContent = root.path("choices").path(0).path("message").path("content").asText("");
 
@@ -91,9 +133,10 @@ public class CourseController {
         }
     }
 
-    private String extractJson(String input) {
-        Pattern pattern = Pattern.compile("\\{.*\\}", Pattern.DOTALL);
-        Matcher matcher = pattern.matcher(input);
+    private static final Pattern JSON_BLOCK = Pattern.compile("\\{.*\\}", Pattern.DOTALL);
+
+    static String extractJson(String input) {
+        Matcher matcher = JSON_BLOCK.matcher(input);
         if (matcher.find()) {
             return matcher.group();
         }
@@ -113,12 +156,59 @@ public class CourseController {
 
             String safeTopic = topic.replaceAll("[\\\\/:*?\"<>|]", "_");
             Files.writeString(logDir.resolve(safeTopic + "_" + step + ".json"), content, StandardCharsets.UTF_8);
-            System.out.println("✅ 物理留痕成功: " + safeTopic + "_" + step); // 在宝塔日志中可查
+            log.info("✅ 物理留痕成功: {}_{}", safeTopic, step); // 在宝塔日志中可查
         } catch (Exception e) {
             // 农夫建议：打印具体报错，方便在宝塔的“日志”里审计
-            e.printStackTrace();
+            log.warn("物理留痕失败: {} 第 {} 步", topic, step, e);
+        }
+    }
+    /**
+     * 🚀 学员手册导出：把第 6 步的 JSON（slides + markdown）直接渲染成 pptx 返回，
+     * 取代原先 ppt-service 的 marp-cli + LibreOffice 临时文件流程
+     */
+    @PostMapping("/export-pptx")
+    public ResponseEntity<?> exportPptx(@RequestBody JsonNode step6,
+                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return pptxResponse(step6, step6.path("fileName").asText(""), ifNoneMatch);
+    }
+
+    /**
+     * 按课题导出已留痕的第 6 步成果
+     */
+    @GetMapping("/export-pptx")
+    public ResponseEntity<?> exportPptxByTopic(@RequestParam String topic,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String safeTopic = topic.replaceAll("[\\\\/:*?\"<>|]", "_");
+        Path p = Paths.get(System.getProperty("user.dir"), "logs", "extractions").resolve(safeTopic + "_6.json");
+        if (!Files.exists(p)) return ResponseEntity.status(404).body(Map.of("error", "该课题尚未生成学员手册"));
+        try {
+            return pptxResponse(objectMapper.readTree(Files.readString(p)), safeTopic, ifNoneMatch);
+        } catch (IOException e) {
+            return ResponseEntity.status(500).body(Map.of("error", "学员手册读取失败: " + e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<?> pptxResponse(JsonNode step6, String fileName, String ifNoneMatch) {
+        String etag = "\"" + pptxRenderService.hashOf(step6) + "\"";
+        if (etag.equals(ifNoneMatch)) return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+
+        PptxRenderService.Deck deck;
+        try {
+            deck = pptxRenderService.render(step6);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
+
+        String name = (fileName == null || fileName.isBlank() ? "学员手册" : fileName).replaceAll("[\\\\/:*?\"<>|]", "_");
+        return ResponseEntity.ok()
+                .contentType(PPTX)
+                .contentLength(deck.bytes().length)
+                .eTag(etag)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(name + ".pptx", StandardCharsets.UTF_8).build().toString())
+                .body(deck.bytes());
     }
+
     /**
      * 解决重复条目：提取唯一课题名供侧边栏渲染
      */
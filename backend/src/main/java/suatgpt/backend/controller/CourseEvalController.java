@@ -4,6 +4,7 @@ import org.apache.poi.extractor.ExtractorFactory;
 import org.apache.poi.extractor.POITextExtractor;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import suatgpt.backend.service.AiCapacityScheduler;
 import suatgpt.backend.service.LlmService;
 import suatgpt.backend.config.CoursePromptRegistry;
 import java.io.InputStream;
@@ -74,6 +75,6 @@ public class CourseEvalController {
         String fullPrompt = String.format(template, target);
         // 🚀 物理对齐：补全第三个参数 "aliyun-coding" 或 "qwen-public"
         // 建议用 aliyun-coding，因为制课需要长文本输出，这个模型最稳
-        return llmService.callAI(fullPrompt, context, "aliyun-coding");
+        return llmService.callAI(AiCapacityScheduler.Priority.NEAR_INTERACTIVE, fullPrompt, context, "aliyun-coding");
     }
 }
\ No newline at end of file
@@ -1,37 +1,66 @@
 package suatgpt.backend.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import suatgpt.backend.service.HomeworkService;
+import suatgpt.backend.service.IdempotencyService;
+import suatgpt.backend.service.MentorRosterCache;
+import suatgpt.backend.service.RecordExportService;
+import suatgpt.backend.service.RosterImportService;
 import suatgpt.backend.repository.HomeworkRecordRepository;
-import suatgpt.backend.repository.MentorMappingRepository;
 
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/homework")
 public class HomeworkController {
 
+    // 接口级排障打点，量大时可在 logging.sampling.access 抽样
+    private static final Logger access = LoggerFactory.getLogger("suatgpt.access.homework");
+
     private final HomeworkService homeworkService;
     private final HomeworkRecordRepository repo;
-    private final MentorMappingRepository mentorRepo; // 🚀 物理补丁：必须定义此变量
+    private final MentorRosterCache rosterCache; // 🚀 名单内存索引，替代逐次查库
+    private final RosterImportService rosterImportService;
+    private final RecordExportService exportService;
+    private final IdempotencyService idempotency;
 
     public HomeworkController(HomeworkService homeworkService,
                               HomeworkRecordRepository repo,
-                              MentorMappingRepository mentorRepo) {
+                              MentorRosterCache rosterCache,
+                              RosterImportService rosterImportService,
+                              RecordExportService exportService,
+                              IdempotencyService idempotency) {
         this.homeworkService = homeworkService;
         this.repo = repo;
-        this.mentorRepo = mentorRepo; // 🚀 物理补丁：完成赋值
+        this.rosterCache = rosterCache;
+        this.rosterImportService = rosterImportService;
+        this.exportService = exportService;
+        this.idempotency = idempotency;
     }
 
     @PostMapping("/upload")
     public ResponseEntity<?> upload(@RequestParam("file") MultipartFile file,
                                     @RequestParam("studentName") String studentName,
-                                    @RequestParam("weekNumber") Integer weekNumber) {
+                                    @RequestParam("weekNumber") Integer weekNumber,
+                                    @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         try {
-            return ResponseEntity.ok(homeworkService.processReportUpload(file, studentName, weekNumber));
+            String fingerprint = IdempotencyService.fingerprint(file, studentName, weekNumber);
+            // 审计在后台排队，这里只回 202 + 记录 ID；前端轮询 /records/{id}，aiEvaluation 非空即审计完成
+            return idempotency.execute("homework.upload", idempotencyKey, fingerprint,
+                    () -> ResponseEntity.accepted().body(homeworkService.processReportUpload(file, studentName, weekNumber)));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -46,12 +75,21 @@ public class HomeworkController {
         return ResponseEntity.ok(Map.of("reply", reply));
     }
 
+    private static final int MAX_PAGE_SIZE = 100;
+
+    // 与 homework_record.status 的 ENUM 取值一致
+    private static final Set<String> REVIEW_STATUSES = Set.of("SUBMITTED", "REJECTED", "APPROVED");
+
+    /**
+     * 旧版全量接口：整表连同审计报告、质询记录一次性返回，数据量大时很慢。
+     * 看板已切到 /mentor-dashboard + /records/{id}，这里仅为兼容旧客户端保留。
+     */
     @GetMapping("/mentor-stats")
     public ResponseEntity<?> getStats() {
         String currentUser = SecurityContextHolder.getContext().getAuthentication().getName();
-        System.out.println("👁️ [雷达扫描] 导师身份: " + currentUser);
+        access.info("👁️ [雷达扫描] 导师身份: {}", currentUser);
 
-        if (currentUser.equals("王松") || currentUser.equals("admin")) {
+        if (isSupervisor(currentUser)) {
             return ResponseEntity.ok(repo.findAllByOrderByWeekNumberDesc());
         } else {
             // 🚀 这里就是建立联系的关键：通过导师姓名过滤他名下的学生周报
@@ -59,13 +97,133 @@ public class HomeworkController {
         }
     }
 
+    // ==========================================
+    // 📊 导师看板：分页摘要 + 聚合 + 按需取详情
+    // ==========================================
+    @GetMapping("/mentor-dashboard")
+    public ResponseEntity<?> mentorDashboard(@RequestParam(value = "week", required = false) Integer week,
+                                             @RequestParam(value = "mentor", required = false) String mentor,
+                                             @RequestParam(value = "page", defaultValue = "0") int page,
+                                             @RequestParam(value = "size", defaultValue = "30") int size) {
+        String currentUser = SecurityContextHolder.getContext().getAuthentication().getName();
+        // 普通导师只能看自己名下；总负责人可以看全部，也可以按导师筛选
+        String mentorFilter = isSupervisor(currentUser) ? blankToNull(mentor) : currentUser;
+
+        PageRequest pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE),
+                Sort.by(Sort.Order.desc("weekNumber"), Sort.Order.desc("id")));
+        Page<HomeworkRecordRepository.HomeworkSummary> result = repo.findSummaries(mentorFilter, week, pageable);
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("content", result.getContent());
+        body.put("page", result.getNumber());
+        body.put("size", result.getSize());
+        body.put("totalElements", result.getTotalElements());
+        body.put("totalPages", result.getTotalPages());
+        return ResponseEntity.ok(body);
+    }
+
+    @GetMapping("/mentor-dashboard/aggregates")
+    public ResponseEntity<?> mentorAggregates() {
+        String currentUser = SecurityContextHolder.getContext().getAuthentication().getName();
+        return ResponseEntity.ok(repo.aggregateByMentorAndWeek(isSupervisor(currentUser) ? null : currentUser));
+    }
+
+    /**
+     * 📤 周报批量导出（逐行流式写出）：普通导师只能导出自己名下，总负责人可按导师筛选
+     */
+    @GetMapping("/export")
+    public void exportRecords(@RequestParam(value = "week", required = false) Integer week,
+                              @RequestParam(value = "mentor", required = false) String mentor,
+                              @RequestParam(value = "status", required = false) String status,
+                              @RequestParam(value = "format", defaultValue = "xlsx") String format,
+                              HttpServletResponse response) throws IOException {
+        String currentUser = SecurityContextHolder.getContext().getAuthentication().getName();
+        String mentorFilter = isSupervisor(currentUser) ? blankToNull(mentor) : currentUser;
+        access.info("📤 [周报导出] 导师身份: {}，周次: {}", currentUser, week);
+
+        RecordExportService.Format f = RecordExportService.Format.of(format);
+        exportService.exportHomework(mentorFilter, week, blankToNull(status), f, exportService.prepare(response, f, "周报"));
+    }
+
+    @GetMapping("/records/{id}")
+    public ResponseEntity<?> recordDetail(@PathVariable Long id) {
+        String currentUser = SecurityContextHolder.getContext().getAuthentication().getName();
+        // 学生本人也能看自己的记录，用于提交后轮询审计结果
+        return repo.findRowById(id)
+                .filter(r -> isSupervisor(currentUser) || currentUser.equals(r.getMentorName())
+                        || currentUser.equals(r.getStudentId()))
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/records/{id}/review")
+    public ResponseEntity<?> review(@PathVariable Long id, @RequestBody Map<String, Object> payload) {
+        String currentUser = SecurityContextHolder.getContext().getAuthentication().getName();
+        boolean allowed = repo.findMentorNameById(id)
+                .map(owner -> isSupervisor(currentUser) || currentUser.equals(owner))
+                .orElse(false);
+        if (!allowed) return ResponseEntity.notFound().build();
+
+        String status = payload.get("status") != null ? payload.get("status").toString() : "APPROVED";
+        if (!REVIEW_STATUSES.contains(status)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "审核状态不合法"));
+        }
+        Integer score = null;
+        if (payload.get("score") != null) {
+            try {
+                score = Integer.valueOf(payload.get("score").toString());
+            } catch (NumberFormatException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "分数格式不正确"));
+            }
+            if (score < 0 || score > 100) {
+                return ResponseEntity.badRequest().body(Map.of("error", "分数必须在 0-100 之间"));
+            }
+        }
+        repo.updateReview(id, status, score);
+        return ResponseEntity.ok(Map.of("code", 200));
+    }
+
+    private static boolean isSupervisor(String username) {
+        return "王松".equals(username) || "admin".equals(username);
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s.trim();
+    }
+
     @GetMapping("/student-info")
     public ResponseEntity<?> getStudentInfo(@RequestParam String studentId) {
         // 🚀 物理透视：打印收到的学号，检查是否有空格
-        System.out.println("🔍 [身份查询信号]: " + studentId);
+        access.info("🔍 [身份查询信号]: [{}]", studentId);
 
-        return mentorRepo.findByStudentId(studentId.trim()) // 增加 .trim() 防止不可见字符
+        return rosterCache.findByStudentId(studentId.trim()) // 增加 .trim() 防止不可见字符
                 .map(info -> ResponseEntity.ok(info)) // 移除之前不必要的 (Object) 强转
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    // ==========================================
+    // 🛠️ Admin：学生-导师名单批量导入（CSV / XLSX）
+    // ==========================================
+    @PostMapping("/admin/roster/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> importRoster(@RequestParam("file") MultipartFile file,
+                                          @RequestParam(value = "charset", defaultValue = "UTF-8") String charset) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "文件不能为空"));
+        }
+        try {
+            RosterImportService.ImportProgress job = rosterImportService.submit(file, charset);
+            return ResponseEntity.ok(Map.of("code", 200, "jobId", job.getJobId()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/admin/roster/import/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> importProgress(@PathVariable String jobId) {
+        return rosterImportService.getProgress(jobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
 }
\ No newline at end of file
@@ -7,7 +7,9 @@ import org.springframework.web.multipart.MultipartFile;
 import suatgpt.backend.model.Job;
 import suatgpt.backend.repository.JobRepository;
 import suatgpt.backend.repository.TenantConfigRepository;
+import suatgpt.backend.service.IdempotencyService;
 import suatgpt.backend.service.InterviewService;
+import suatgpt.backend.service.WrittenTestService;
 import java.util.Map;
 
 @RestController
@@ -17,14 +19,19 @@ public class InterviewController {
 
     private final InterviewService interviewService;
     private final JobRepository jobRepository;
+    private final WrittenTestService writtenTestService;
+    private final IdempotencyService idempotency;
 
     // 🚀 规范位置：统一在顶部注入配置仓库
     @Autowired
     private TenantConfigRepository tenantConfigRepository;
 
-    public InterviewController(InterviewService interviewService, JobRepository jobRepository) {
+    public InterviewController(InterviewService interviewService, JobRepository jobRepository,
+                               WrittenTestService writtenTestService, IdempotencyService idempotency) {
         this.interviewService = interviewService;
         this.jobRepository = jobRepository;
+        this.writtenTestService = writtenTestService;
+        this.idempotency = idempotency;
     }
 
     @PostMapping("/upload")
@@ -34,11 +41,18 @@ public class InterviewController {
             @RequestParam("candidateName") String candidateName,
             @RequestParam("email") String email,
             // 🚀 新增：物理接收前端传来的企业暗号
-            @RequestParam(value = "tenantId", defaultValue = "recruit") String tenantId) {
+            @RequestParam(value = "tenantId", defaultValue = "recruit") String tenantId,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         try {
-            Job job = jobRepository.findById(jobId).orElseThrow();
-            // 🚀 物理接力：把暗号传给 Service 进行专属解析
-            return ResponseEntity.ok(interviewService.processResumeUpload(file, job, candidateName, email, tenantId));
+            // 🔁 双击 / 网关重试的重复上传合并到同一次简历解析上，不再重复跑 agent、重复建档
+            String fingerprint = IdempotencyService.fingerprint(file, jobId, candidateName, email, tenantId);
+            return idempotency.execute("interview.upload", idempotencyKey, fingerprint, () -> {
+                Job job = jobRepository.findById(jobId).orElseThrow();
+                // 🚀 物理接力：把暗号传给 Service 进行专属解析
+                Map<String, Object> result = interviewService.processResumeUpload(file, job, candidateName, email, tenantId);
+                // agent 故障时的兜底初筛不进幂等缓存，候选人重传会重新解析
+                return IdempotencyService.agentResponse(result, String.valueOf(result.get("analysis")));
+            });
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
         }
@@ -58,6 +72,31 @@ public class InterviewController {
         return ResponseEntity.ok(Map.of("reply", aiResponse));
     }
 
+    // =========================================================
+    // 📝 笔试：从岗位题库领卷、交卷后异步阅卷
+    // =========================================================
+    @PostMapping("/written-test/start")
+    public ResponseEntity<?> startWrittenTest(@RequestBody Map<String, String> payload) {
+        try {
+            Long recordId = Long.valueOf(payload.get("recordId"));
+            return ResponseEntity.ok(Map.of("paper", writtenTestService.startTest(recordId)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    @PostMapping("/written-test/submit")
+    public ResponseEntity<?> submitWrittenTest(@RequestBody Map<String, String> payload) {
+        try {
+            Long recordId = Long.valueOf(payload.get("recordId"));
+            writtenTestService.submitAnswer(recordId, payload.get("answer"));
+            // 阅卷在后台进行，结果回写档案的 writtenTestEvaluation
+            return ResponseEntity.accepted().body(Map.of("status", "EVALUATING"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
     // =========================================================
     // 🚀 变色龙模式专属 API：向前端提供 UI 换皮数据
     // =========================================================
@@ -5,6 +5,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import suatgpt.backend.model.Job;
 import suatgpt.backend.repository.JobRepository;
+import suatgpt.backend.service.WrittenTestService;
 // 🚀 核心修正：删除 java.nio... 换成您在 config 包下自定义的类
 import suatgpt.backend.config.UserPrincipal;
 
@@ -16,10 +17,12 @@ import java.util.List;
 public class JobController {
 
     private final JobRepository jobRepository;
+    private final WrittenTestService writtenTestService;
 
     // 🚀 构造函数注入
-    public JobController(JobRepository jobRepository) {
+    public JobController(JobRepository jobRepository, WrittenTestService writtenTestService) {
         this.jobRepository = jobRepository;
+        this.writtenTestService = writtenTestService;
     }
 
     /**
@@ -30,7 +33,10 @@ public class JobController {
         if (currentUser != null) {
             job.setPublisherId(currentUser.getId()); // 自动绑定当前登录人
         }
-        return jobRepository.save(job);
+        Job saved = jobRepository.save(job);
+        // 需要笔试的岗位一发布就开始备题，第一位候选人开考时不必现场出卷
+        if (saved.isNeedsTest()) writtenTestService.refill(saved.getId());
+        return saved;
     }
 
     /**
@@ -1,5 +1,8 @@
 package suatgpt.backend.controller;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -14,23 +17,33 @@ import suatgpt.backend.repository.JobRepository;
 import suatgpt.backend.repository.InterviewRecordRepository;
 import suatgpt.backend.repository.TenantConfigRepository;
 import suatgpt.backend.repository.UserRepository;
+import suatgpt.backend.service.HeartbeatService;
+import suatgpt.backend.service.IdempotencyService;
 import suatgpt.backend.service.InterviewService;
 import suatgpt.backend.service.MailService;
+import suatgpt.backend.service.RecordExportService;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
 
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
 @RestController
 @RequestMapping("/api/recruit")
 @CrossOrigin(origins = "*", allowedHeaders = "*")
 public class RecruitController {
 
+    private static final Logger log = LoggerFactory.getLogger(RecruitController.class);
+
     @Autowired
     private UserRepository userRepository;
     @Autowired
     private TenantConfigRepository tenantConfigRepository;
     @Autowired
     private org.springframework.security.crypto.password.PasswordEncoder passwordEncoder;
+    @Autowired
+    private HeartbeatService heartbeatService;
 
     @GetMapping("/list")
     @PreAuthorize("hasRole('ADMIN')")
@@ -71,6 +84,10 @@ public class RecruitController {
         String newStatus = "ACTIVE".equals(user.getStatus()) ? "TIMEOUT" : "ACTIVE";
         user.setStatus(newStatus);
         userRepository.save(user);
+        // 🚀 重新激活的候选人从现在开始重新计时，否则会被旧心跳立即判定超时
+        if ("ACTIVE".equals(newStatus)) {
+            heartbeatService.touch(user.getUsername(), "CANDIDATE".equals(user.getRole()));
+        }
         return ResponseEntity.ok(Map.of("success", true, "status", newStatus));
     }
 
@@ -78,23 +95,34 @@ public class RecruitController {
     private final InterviewRecordRepository interviewRecordRepository;
     private final InterviewService interviewService;
     private final MailService mailService;
+    private final RecordExportService exportService;
+    private final IdempotencyService idempotency;
 
     public RecruitController(JobRepository jobRepository,
                              InterviewRecordRepository interviewRecordRepository,
                              InterviewService interviewService,
-                             MailService mailService) {
+                             MailService mailService,
+                             RecordExportService exportService,
+                             IdempotencyService idempotency) {
         this.jobRepository = jobRepository;
         this.interviewRecordRepository = interviewRecordRepository;
             this.interviewService = interviewService;
         this.mailService = mailService;
+        this.exportService = exportService;
+        this.idempotency = idempotency;
     }
 
     @GetMapping("/job-stats")
     public ResponseEntity<List<Map<String, Object>>> getJobStats() {
         List<Job> allJobs = jobRepository.findAll();
+        // 候选人只带摘要列，一次查完再按岗位分组；详情由 /candidate/{id} 按需取
+        Map<Long, List<InterviewRecordRepository.CandidateSummary>> byJob = new HashMap<>();
+        for (InterviewRecordRepository.CandidateSummary c : interviewRecordRepository.findAllSummaries()) {
+            byJob.computeIfAbsent(c.getJobId(), k -> new ArrayList<>()).add(c);
+        }
         List<Map<String, Object>> stats = new ArrayList<>();
         for (Job job : allJobs) {
-            List<InterviewRecord> candidates = interviewRecordRepository.findByJobId(job.getId());
+            List<InterviewRecordRepository.CandidateSummary> candidates = byJob.getOrDefault(job.getId(), List.of());
             Map<String, Object> jobMap = new HashMap<>();
             jobMap.put("id", job.getId());
             jobMap.put("title", job.getTitle());
@@ -122,9 +150,8 @@ public class RecruitController {
             TenantConfig config = tenantConfigRepository.findByTenantId(tenantId)
                     .orElseThrow(() -> new RuntimeException("无法提取分身配置，请确保 Admin 后台已配置 /" + tenantId));
 
-            // 2. 更新状态
-            record.setStatus("HIRED");
-            interviewRecordRepository.save(record);
+            // 2. 更新状态（只写 status 一列）
+            interviewRecordRepository.updateStatus(id, "HIRED");
 
             // 3. 物理发信（最容易炸的地方）
             String targetEmail = (record.getEmail() != null && !record.getEmail().trim().isEmpty())
@@ -135,31 +162,52 @@ public class RecruitController {
                 mailService.sendDynamicOffer(targetEmail, record.getCandidateName(), record.getJobTitle(), config);
             } catch (Exception mailError) {
                 // 照妖镜 1：如果邮件发失败了，打印红字，但不让整个接口崩溃
-                System.err.println("❌ [物理发信失败] 检查 SMTP 配置或网络:");
-                mailError.printStackTrace();
+                // 堆栈已由 MailService 记录，这里只留一条关联信息
+                log.warn("❌ [物理发信失败] 档案 {} 已录用但 Offer 未送达: {}", id, mailError.getMessage(),
+                        kv("tenantId", tenantId), kv("recordId", id));
                 return ResponseEntity.ok(Map.of("code", 200, "message", "录用状态已更新，但 Offer 邮件发送失败，请在控制台查看原因"));
             }
 
             return ResponseEntity.ok(Map.of("code", 200, "message", "录用成功，专属 Offer 邮件已发出"));
         } catch (Exception e) {
             // 照妖镜 2：如果是逻辑报错（比如 id 没传对），这里会抓到
-            System.err.println("❌ [录用接口逻辑崩溃]:");
-            e.printStackTrace();
+            log.error("❌ [录用接口逻辑崩溃] payload: {}", payload, e);
             return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
         }
     }
 
+    @PostMapping("/interrupt")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> interrupt(@RequestBody Map<String, String> payload) {
+        try {
+            Long id = Long.valueOf(payload.get("id"));
+            if (interviewRecordRepository.updateStatus(id, "INTERRUPTED") == 0) {
+                return ResponseEntity.status(404).body(Map.of("error", "档案不存在"));
+            }
+            log.info("⏹️ 面试已被中断", kv("recordId", id));
+            return ResponseEntity.ok(Map.of("code", 200, "message", "面试已中断"));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "档案 ID 不合法"));
+        }
+    }
+
     // 🚀 3. 部长发招聘广告 (AI 辅助)
     @PostMapping("/generate-ad")
-    public ResponseEntity<?> generateAd(@RequestBody Map<String, String> params) {
+    public ResponseEntity<?> generateAd(@RequestBody Map<String, String> params,
+                                        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) throws Exception {
         String title = params.getOrDefault("title", "未命名岗位");
         String demand = params.getOrDefault("demand", "");
         // 🚀 新增：物理提取机构暗号
         String tenantId = params.getOrDefault("tenantId", "recruit");
 
-        // 🚀 传入暗号，提取专属润色文风
-        String finalAd = interviewService.automatedWorkflow(title + ": " + demand, tenantId);
-        return ResponseEntity.ok(Map.of("success", true, "adContent", finalAd));
+        // 🔁 连点“生成”只润色一次，重复请求拿同一份公告
+        String fingerprint = IdempotencyService.fingerprint(null, title, demand, tenantId);
+        return idempotency.execute("recruit.generate-ad", idempotencyKey, fingerprint, () -> {
+            // 🚀 传入暗号，提取专属润色文风
+            String finalAd = interviewService.automatedWorkflow(title + ": " + demand, tenantId);
+            // agent 故障时的兜底文案不进幂等缓存，部长再点一次会重新生成
+            return IdempotencyService.agentResponse(Map.of("success", true, "adContent", finalAd), finalAd);
+        });
     }
 
     @PostMapping("/jobs/publish")
@@ -177,8 +225,7 @@ public class RecruitController {
         Job job = jobRepository.findById(id).orElse(null);
         if (job == null) return ResponseEntity.status(404).body(Map.of("message", "岗位不存在"));
         try {
-            List<InterviewRecord> records = interviewRecordRepository.findByJobId(id);
-            if (records != null && !records.isEmpty()) interviewRecordRepository.deleteAll(records);
+            interviewRecordRepository.deleteByJobId(id);
             jobRepository.deleteById(id);
             return ResponseEntity.ok(Map.of("success", true, "message", "岗位已彻底抹除"));
         } catch (Exception e) {
@@ -186,8 +233,35 @@ public class RecruitController {
         }
     }
 
+    /**
+     * 📤 面试档案批量导出（逐行流式写出），可按租户 / 岗位 / 状态筛选
+     */
+    @GetMapping("/export/interviews")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportInterviews(@RequestParam(value = "tenantId", required = false) String tenantId,
+                                 @RequestParam(value = "jobId", required = false) Long jobId,
+                                 @RequestParam(value = "status", required = false) String status,
+                                 @RequestParam(value = "format", defaultValue = "xlsx") String format,
+                                 HttpServletResponse response) throws IOException {
+        RecordExportService.Format f = RecordExportService.Format.of(format);
+        exportService.exportInterviews(blankToNull(tenantId), jobId, blankToNull(status), f,
+                exportService.prepare(response, f, "面试档案"));
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s.trim();
+    }
+
     @GetMapping("/candidate/{id}")
     public ResponseEntity<InterviewRecord> getCandidateDetail(@PathVariable Long id) {
-        return interviewRecordRepository.findById(id).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+        return interviewRecordRepository.findDetailById(id).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    }
+
+    /** 候选人端轮询录用结果：只查状态列 */
+    @GetMapping("/candidate/{id}/status")
+    public ResponseEntity<?> getCandidateStatus(@PathVariable Long id) {
+        return interviewRecordRepository.findStatusById(id)
+                .<ResponseEntity<?>>map(status -> ResponseEntity.ok(Map.of("id", id, "status", status)))
+                .orElse(ResponseEntity.notFound().build());
     }
 }
\ No newline at end of file
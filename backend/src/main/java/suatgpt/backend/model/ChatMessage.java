@@ -5,11 +5,15 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "chat_messages")
+@Table(name = "chat_messages", indexes = {
+        // 按会话取消息并按时间排序
+        @Index(name = "idx_chat_messages_session_time", columnList = "session_id, timestamp")
+})
 public class ChatMessage {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "chat_messages_id")
+    @TableGenerator(name = "chat_messages_id", table = "id_generator", pkColumnValue = "chat_messages", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -19,7 +23,10 @@ public class ChatMessage {
     @Column(nullable = false)
     private String sender; // "USER" or "AI"
 
-    @Column(nullable = false, columnDefinition = "TEXT")
+    // 按 CompressedTextConverter 压缩存储
+    @Lob
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(nullable = false, columnDefinition = "BLOB")
     private String content;
 
     @Column(nullable = false)
@@ -5,10 +5,14 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "chat_sessions")
+@Table(name = "chat_sessions", indexes = {
+        // 我的会话，按创建时间倒序
+        @Index(name = "idx_chat_sessions_user_created", columnList = "user_id, created_at")
+})
 public class ChatSession {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "chat_sessions_id")
+    @TableGenerator(name = "chat_sessions_id", table = "id_generator", pkColumnValue = "chat_sessions", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -0,0 +1,119 @@
+package suatgpt.backend.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 🗜️ 大文本列透明压缩：实体里仍是 String，库里存二进制（列类型 BLOB / LONGBLOB）。
+ * 按列用 {@code @Convert(converter = CompressedTextConverter.class)} 显式开启，不自动套到所有 String 上。
+ * <p>
+ * 存储格式：
+ * <pre>
+ * 0xFF | 编码版本(1 字节) | 原文 UTF-8 字节数(4 字节, 大端) | raw deflate 数据
+ * </pre>
+ * 0xFF 不会出现在任何 UTF-8 文本里，因此没有这个头的值一律按未压缩的 UTF-8 读出：
+ * 改列类型之前写入的存量行、以及不足 {@link #MIN_COMPRESS_BYTES} 的短文本都是这种形式。
+ * 存量行由 {@code TextCompressionBackfill} 在后台分批改写。
+ * <p>
+ * 版本 1 = deflate + {@link #DICTIONARY_V1} 预置字典。字典一旦发布就不能再改，
+ * 否则已落库的数据无法解压；要换字典只能新增版本号，读路径保留旧版本。
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, byte[]> {
+
+    public static final byte MAGIC = (byte) 0xFF;
+    public static final byte VERSION_DEFLATE_DICT_V1 = 1;
+    private static final int HEADER_BYTES = 6;
+
+    /** 短于这个字节数的值原样存 UTF-8，压缩省不了几个字节 */
+    public static final int MIN_COMPRESS_BYTES = 128;
+
+    /**
+     * 预置字典：对话实录的轮次标记、各类报告的固定措辞与 Markdown 骨架。
+     * deflate 从字典末尾往前匹配更省，最常见的片段放在最后。
+     */
+    private static final byte[] DICTIONARY_V1 = String.join("",
+            "### 任务 ###\n", "| --- | --- |\n", "> ", "```\n", "1. ", "2. ", "3. ", "- ", "**：", "：**",
+            "个人优势评估与岗位推荐报告", "核心优势", "短板分析", "推荐岗位",
+            "工作量与逻辑核实", "真实性甄别", "导师质询建议", "双创实践周报深度审计",
+            "评分", "优缺点分析", "面试追问建议", "录用建议", "综合评价", "简历评估", "岗位匹配度",
+            "[INTERVIEW_DONE]", "(已出具最终诊断报告)",
+            "\n【部长原始需求】：", "\n【AI咨询师】: ", "\n【咨询者】: ",
+            "\n【AI助教】: ", "\n【学生】: ",
+            "\n【AI考官】: ", "\n【候选人】: ",
+            "\n## ", "\n### ", "\n- **", "**\n", "。\n", "，", "。"
+    ).getBytes(StandardCharsets.UTF_8);
+
+    @Override
+    public byte[] convertToDatabaseColumn(String attribute) {
+        return attribute == null ? null : compress(attribute);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] dbData) {
+        return dbData == null ? null : decompress(dbData);
+    }
+
+    public static boolean isCompressed(byte[] data) {
+        return data.length >= HEADER_BYTES && data[0] == MAGIC;
+    }
+
+    public static byte[] compress(String text) {
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        if (raw.length < MIN_COMPRESS_BYTES) return raw;
+
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setDictionary(DICTIONARY_V1);
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(HEADER_BYTES + raw.length / 3);
+            out.write(MAGIC);
+            out.write(VERSION_DEFLATE_DICT_V1);
+            out.writeBytes(ByteBuffer.allocate(4).putInt(raw.length).array());
+            byte[] buf = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buf);
+                out.write(buf, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static String decompress(byte[] data) {
+        if (!isCompressed(data)) return new String(data, StandardCharsets.UTF_8);
+        if (data[1] != VERSION_DEFLATE_DICT_V1) {
+            throw new IllegalStateException("未知的压缩格式版本: " + data[1]);
+        }
+        int length = ByteBuffer.wrap(data, 2, 4).getInt();
+        byte[] raw = new byte[length];
+        Inflater inflater = new Inflater(true);
+        try {
+            // raw deflate 不带字典标识，解压前直接装上同一份字典
+            inflater.setDictionary(DICTIONARY_V1);
+            inflater.setInput(data, HEADER_BYTES, data.length - HEADER_BYTES);
+            int off = 0;
+            while (off < length) {
+                int n = inflater.inflate(raw, off, length - off);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IllegalStateException("压缩数据不完整");
+                }
+                off += n;
+            }
+            return new String(raw, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("压缩数据损坏", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
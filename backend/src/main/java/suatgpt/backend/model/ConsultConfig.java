@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 public class ConsultConfig {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "consult_configs_id")
+    @TableGenerator(name = "consult_configs_id", table = "id_generator", pkColumnValue = "consult_configs", allocationSize = 50)
     private Long id;
 
     @Column(name = "tenant_id", unique = true, nullable = false)
@@ -1,35 +1,51 @@
 package suatgpt.backend.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
 import java.time.LocalDateTime;
 
+// 简历原文、对话记录、咨询报告三列 LONGTEXT 按需加载（LAZY 依赖字节码增强）
 @Entity
-@Table(name = "consult_records")
+@DynamicUpdate
+@Table(name = "consult_records", indexes = {
+        // 导出按租户 + 状态
+        @Index(name = "idx_consult_tenant_status", columnList = "tenant_id, status")
+})
 public class ConsultRecord {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "consult_records_id")
+    @TableGenerator(name = "consult_records_id", table = "id_generator", pkColumnValue = "consult_records", allocationSize = 50)
     private Long id;
 
     @Column(name = "user_name")
     private String userName;
 
+    // 发起咨询的分身，导出时按租户筛选
+    @Column(name = "tenant_id")
+    private String tenantId;
+
     @Column(name = "contact_email")
     private String contactEmail;
 
+    @Basic(fetch = FetchType.LAZY)
     @Column(name = "resume_text", columnDefinition = "LONGTEXT")
     private String resumeText;
 
+    @Basic(fetch = FetchType.LAZY)
     @Column(name = "chat_history", columnDefinition = "LONGTEXT")
     private String chatHistory;
 
     @Column(name = "chat_count")
     private Integer chatCount = 0; // 记录问到了第几个问题
 
-    @Column(name = "final_report", columnDefinition = "LONGTEXT")
+    @Basic(fetch = FetchType.LAZY)
+    @Lob
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "final_report", columnDefinition = "LONGBLOB")
     private String finalReport;
 
-    @Column(name = "status")
+    @Column(name = "status", columnDefinition = "ENUM('CONSULTING','FINISHED') DEFAULT 'CONSULTING'")
     private String status = "CONSULTING"; // CONSULTING 或 FINISHED
 
     @Column(name = "created_at", updatable = false)
@@ -42,6 +58,9 @@ public class ConsultRecord {
     public String getUserName() { return userName; }
     public void setUserName(String userName) { this.userName = userName; }
 
+    public String getTenantId() { return tenantId; }
+    public void setTenantId(String tenantId) { this.tenantId = tenantId; }
+
     public String getContactEmail() { return contactEmail; }
     public void setContactEmail(String contactEmail) { this.contactEmail = contactEmail; }
 
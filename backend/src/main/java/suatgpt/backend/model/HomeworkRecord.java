@@ -1,24 +1,44 @@
 package suatgpt.backend.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
 import java.time.LocalDateTime;
 
+// 审计报告与质询实录按需加载（LAZY 依赖字节码增强），看板、评审只碰定长列
 @Entity
+@DynamicUpdate
+@Table(name = "homework_record", uniqueConstraints = {
+        // 学生重交按学号 + 周次 upsert，并发的首次提交也只能落一条
+        @UniqueConstraint(name = "uk_homework_student_week", columnNames = {"student_id", "week_number"})
+}, indexes = {
+        // 导师看板：按导师 + 周次过滤、按周次倒序分页
+        @Index(name = "idx_homework_mentor_week", columnList = "mentor_name, week_number"),
+        // 主管按周次看全部
+        @Index(name = "idx_homework_week", columnList = "week_number")
+})
 public class HomeworkRecord {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "homework_record_id")
+    @TableGenerator(name = "homework_record_id", table = "id_generator", pkColumnValue = "homework_record", allocationSize = 50)
     private Long id;
     private String studentName;
     private String studentId;
     private String mentorName;
     private Integer weekNumber; // 汇报周次 (1-16)
 
-    @Column(columnDefinition = "TEXT")
+    @Basic(fetch = FetchType.LAZY)
+    @Lob
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(columnDefinition = "BLOB")
     private String aiEvaluation; // AI 审计报告
 
+    @Basic(fetch = FetchType.LAZY)
     @Column(columnDefinition = "TEXT")
     private String chatHistory; // 助教质询实录
 
+    @Column(columnDefinition = "ENUM('SUBMITTED','REJECTED','APPROVED') DEFAULT 'SUBMITTED'")
     private String status; // SUBMITTED, REJECTED, APPROVED
+    private Integer score; // 导师评分 (0-100)，未评分为 null
     private LocalDateTime submitTime;
 
     @PrePersist
@@ -41,6 +61,8 @@ public class HomeworkRecord {
     public void setChatHistory(String chatHistory) { this.chatHistory = chatHistory; }
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
+    public Integer getScore() { return score; }
+    public void setScore(Integer score) { this.score = score; }
     public LocalDateTime getSubmitTime() { return submitTime; }
     public void setSubmitTime(LocalDateTime submitTime) { this.submitTime = submitTime; }
 }
\ No newline at end of file
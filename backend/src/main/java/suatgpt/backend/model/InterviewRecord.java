@@ -1,14 +1,28 @@
 package suatgpt.backend.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.LazyGroup;
+
 import java.util.Date;
 
+/**
+ * 面试档案。简历画像、岗位 JD、面试实录与笔试三列都是大文本，标为 LAZY（需字节码增强，见 pom），
+ * 列表、改状态只读写定长列；按 lazy group 分两组，读到其中一列时同组一起加载。
+ * 简历画像与面试实录两列最大，经 {@link CompressedTextConverter} 压缩存储。
+ */
 @Entity
-@Table(name = "interview_records")
+@DynamicUpdate
+@Table(name = "interview_records", indexes = {
+        // 岗位下的候选人、导出按岗位 + 状态
+        @Index(name = "idx_interview_job_status", columnList = "job_id, status"),
+        @Index(name = "idx_interview_tenant_status", columnList = "tenant_id, status")
+})
 public class InterviewRecord {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "interview_records_id")
+    @TableGenerator(name = "interview_records_id", table = "id_generator", pkColumnValue = "interview_records", allocationSize = 50)
     private Long id;
 
     @Column(name = "job_id")
@@ -19,6 +33,10 @@ public class InterviewRecord {
     @Column(name = "job_title")
     private String jobTitle;
 
+    // 投递时所在的招聘分身（recruit 等），导出时按租户筛选
+    @Column(name = "tenant_id")
+    private String tenantId;
+
     @Column(name = "candidate_name")
     private String candidateName;
 
@@ -33,29 +51,44 @@ public class InterviewRecord {
     @Column(name = "needs_written_test")
     private boolean needsWrittenTest = true;
 
-    @Column(name = "status")
+    @Column(name = "status", columnDefinition = "ENUM('APPLIED','TESTING','INTERVIEWING','INTERRUPTED','HIRED','REJECTED') DEFAULT 'APPLIED'")
     private String status = "APPLIED"; // APPLIED, TESTING, INTERVIEWING, INTERRUPTED, HIRED, REJECTED
 
     // 🚀 2. 简历环节：初筛评估
-    @Column(name = "resume_analysis", columnDefinition = "LONGTEXT")
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("detail")
+    @Lob
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "resume_analysis", columnDefinition = "LONGBLOB")
     private String resumeAnalysis;
 
     // 🚀 3. 笔试环节：题目、作答、AI 阅卷
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("writtenTest")
     @Column(name = "written_test_paper", columnDefinition = "TEXT")
     private String writtenTestPaper;
 
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("writtenTest")
     @Column(name = "written_test_answer", columnDefinition = "TEXT")
     private String writtenTestAnswer;
 
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("writtenTest")
     @Column(name = "written_test_evaluation", columnDefinition = "TEXT")
     private String writtenTestEvaluation;
 
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("detail")
     @Column(name = "job_ad", columnDefinition = "TEXT")
-
     private String jobAd;
 
     // 🚀 4. 面试环节：全量 15 轮实况监控
-    @Column(name = "chat_history", columnDefinition = "LONGTEXT")
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("detail")
+    @Lob
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "chat_history", columnDefinition = "LONGBLOB")
     private String chatHistory;
 
 
@@ -81,6 +114,9 @@ public class InterviewRecord {
     public String getJobTitle() { return jobTitle; }
     public void setJobTitle(String jobTitle) { this.jobTitle = jobTitle; }
 
+    public String getTenantId() { return tenantId; }
+    public void setTenantId(String tenantId) { this.tenantId = tenantId; }
+
     public String getCandidateName() { return candidateName; }
     public void setCandidateName(String candidateName) { this.candidateName = candidateName; }
 
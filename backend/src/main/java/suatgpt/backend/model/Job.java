@@ -4,11 +4,17 @@ import jakarta.persistence.*;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 @Entity
-@Table(name = "jobs")
+@Table(name = "jobs", indexes = {
+        // 公开岗位列表、笔试题库巡检
+        @Index(name = "idx_jobs_status_needs_test", columnList = "status, needs_test"),
+        // 我发布的岗位
+        @Index(name = "idx_jobs_publisher", columnList = "publisher_id")
+})
 public class Job {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "jobs_id")
+    @TableGenerator(name = "jobs_id", table = "id_generator", pkColumnValue = "jobs", allocationSize = 50)
     private Long id;
 
     private String title;       // 岗位名称
@@ -16,7 +22,7 @@ public class Job {
     @Column(columnDefinition = "TEXT")
     private String description; // 详细要求
 
-    @Column(columnDefinition = "TEXT")
+    @Column(columnDefinition = "ENUM('OPEN','CLOSED') DEFAULT 'OPEN'")
     private String status = "OPEN"; // 状态：OPEN/CLOSED
 
     private String publisher;   // 发布人姓名（冗余存储）
@@ -3,7 +3,15 @@ package suatgpt.backend.model;
 import jakarta.persistence.*;
 
 @Entity
+@Table(name = "mentor_mapping", uniqueConstraints = {
+        // 🚀 名单导入按学号 upsert，依赖这条唯一索引
+        @UniqueConstraint(name = "uk_mentor_mapping_student_id", columnNames = "student_id")
+}, indexes = {
+        // 🚀 名单索引未命中时按姓名回源
+        @Index(name = "idx_mentor_mapping_student_name", columnList = "student_name")
+})
 public class MentorMapping {
+    // 名单导入直接走 JDBC 批量 upsert、由库自增分配主键，这张表不能改用 id_generator 号段，否则两边会撞号
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private String studentName;
@@ -12,7 +12,8 @@ import java.time.LocalDateTime;
 public class TenantConfig {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "tenant_configs_id")
+    @TableGenerator(name = "tenant_configs_id", table = "id_generator", pkColumnValue = "tenant_configs", allocationSize = 50)
     private Long id;
 
     @Column(name = "tenant_id", unique = true, nullable = false)
@@ -9,11 +9,15 @@ import java.util.Collection;
 import java.util.Collections;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        // 🚀 兜底巡检与启动恢复走这条复合索引，避免全表扫描
+        @Index(name = "idx_users_role_status_heartbeat", columnList = "role, status, last_heartbeat")
+})
 public class User implements UserDetails {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "users_id")
+    @TableGenerator(name = "users_id", table = "id_generator", pkColumnValue = "users", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -23,6 +27,7 @@ public class User implements UserDetails {
     private String password;
 
     private String role = "CANDIDATE"; // 默认角色
+    @Column(columnDefinition = "ENUM('ACTIVE','TIMEOUT','GUEST') DEFAULT 'ACTIVE'")
     private String status = "ACTIVE";  // 默认状态
 
     @Column(name = "last_heartbeat")
@@ -0,0 +1,57 @@
+package suatgpt.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 岗位笔试题库：后台预先生成的试卷，候选人开考时整套领走
+ */
+@Entity
+@Table(name = "written_test_papers", indexes = {
+        // 发卷：按岗位取最早一套可用试卷
+        @Index(name = "idx_paper_job_status", columnList = "job_id, status")
+})
+public class WrittenTestPaper {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "written_test_papers_id")
+    @TableGenerator(name = "written_test_papers_id", table = "id_generator", pkColumnValue = "written_test_papers", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "job_id")
+    private Long jobId;
+
+    @Column(columnDefinition = "TEXT")
+    private String content;
+
+    private String focus; // 本套侧重点
+
+    @Column(columnDefinition = "ENUM('AVAILABLE','ASSIGNED') DEFAULT 'AVAILABLE'")
+    private String status = "AVAILABLE"; // AVAILABLE, ASSIGNED
+
+    @Column(name = "record_id")
+    private Long recordId; // 领走该卷的面试档案
+
+    private LocalDateTime createdAt;
+    private LocalDateTime assignedAt;
+
+    @PrePersist
+    protected void onCreate() { createdAt = LocalDateTime.now(); }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getJobId() { return jobId; }
+    public void setJobId(Long jobId) { this.jobId = jobId; }
+    public String getContent() { return content; }
+    public void setContent(String content) { this.content = content; }
+    public String getFocus() { return focus; }
+    public void setFocus(String focus) { this.focus = focus; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public Long getRecordId() { return recordId; }
+    public void setRecordId(Long recordId) { this.recordId = recordId; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getAssignedAt() { return assignedAt; }
+    public void setAssignedAt(LocalDateTime assignedAt) { this.assignedAt = assignedAt; }
+}
@@ -1,14 +1,21 @@
-
 package suatgpt.backend.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import suatgpt.backend.model.ChatMessage;
 import suatgpt.backend.model.User;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
-    List<ChatMessage> findBySessionIdOrderByTimestampAsc(Long sessionId);
+    // 历史消息按列投影，不加载 session 关联
+    List<MessageView> findBySessionIdOrderByTimestampAsc(Long sessionId);
 
     // 通过关联的 session 及其 user 进行查询
     List<ChatMessage> findBySessionUserOrderByTimestampAsc(User user);
+
+    interface MessageView {
+        String getSender();
+        String getContent();
+        LocalDateTime getTimestamp();
+    }
 }
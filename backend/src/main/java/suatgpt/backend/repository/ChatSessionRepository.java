@@ -1,13 +1,19 @@
-
 package suatgpt.backend.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import suatgpt.backend.model.ChatSession;
-import suatgpt.backend.model.User;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface ChatSessionRepository extends JpaRepository<ChatSession, Long> {
-    List<ChatSession> findByUserOrderByCreatedAtDesc(User user);
+    // 会话列表只要 id / 标题 / 时间，按列投影，不加载 user 关联
+    List<SessionSummary> findByUserIdOrderByCreatedAtDesc(Long userId);
+
+    interface SessionSummary {
+        Long getId();
+        String getTitle();
+        LocalDateTime getCreatedAt();
+    }
 }
@@ -1,7 +1,63 @@
 package suatgpt.backend.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import suatgpt.backend.model.ConsultRecord;
 
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 public interface ConsultRecordRepository extends JpaRepository<ConsultRecord, Long> {
-}
\ No newline at end of file
+
+    /** 咨询对话：对话记录随主查询一起取回，不碰简历原文与报告 */
+    @EntityGraph(attributePaths = {"chatHistory"})
+    @Query("SELECT c FROM ConsultRecord c WHERE c.id = :id")
+    Optional<ConsultRecord> findForChatById(@Param("id") Long id);
+
+    /** 第 2-5 问：回写对话记录与轮次 */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ConsultRecord c SET c.chatHistory = :history, c.chatCount = :count WHERE c.id = :id")
+    int updateConversation(@Param("id") Long id, @Param("history") String history, @Param("count") Integer count);
+
+    /** 出具最终报告并结束咨询 */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ConsultRecord c SET c.chatHistory = :history, c.finalReport = :report, c.status = 'FINISHED' " +
+            "WHERE c.id = :id")
+    int finish(@Param("id") Long id, @Param("history") String history, @Param("report") String report);
+
+    /**
+     * 批量导出：逐行游标读取，参数为 null 表示不过滤；按列投影，LAZY 的大文本列随主查询一起取回
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c.id AS id, c.tenantId AS tenantId, c.userName AS userName, c.contactEmail AS contactEmail, " +
+            "c.status AS status, c.chatCount AS chatCount, c.createdAt AS createdAt, " +
+            "c.finalReport AS finalReport, c.chatHistory AS chatHistory " +
+            "FROM ConsultRecord c WHERE (:tenant IS NULL OR c.tenantId = :tenant) " +
+            "AND (:status IS NULL OR c.status = :status) ORDER BY c.id")
+    Stream<ExportRow> streamForExport(@Param("tenant") String tenant, @Param("status") String status);
+
+    interface ExportRow {
+        Long getId();
+        String getTenantId();
+        String getUserName();
+        String getContactEmail();
+        String getStatus();
+        Integer getChatCount();
+        LocalDateTime getCreatedAt();
+        String getFinalReport();
+        String getChatHistory();
+    }
+}
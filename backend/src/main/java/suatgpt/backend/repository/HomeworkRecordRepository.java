@@ -1,21 +1,170 @@
 package suatgpt.backend.repository;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import suatgpt.backend.model.HomeworkRecord;
+
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface HomeworkRecordRepository extends JpaRepository<HomeworkRecord, Long> {
 
+    int PREVIEW_CHARS = 100;
+
+    String FULL_ROW = "SELECT h.id AS id, h.studentName AS studentName, h.studentId AS studentId, " +
+            "h.mentorName AS mentorName, h.weekNumber AS weekNumber, h.aiEvaluation AS aiEvaluation, " +
+            "h.chatHistory AS chatHistory, h.status AS status, h.score AS score, h.submitTime AS submitTime " +
+            "FROM HomeworkRecord h ";
+
     // 🚀 物理关键：支持按导师过滤并按周次倒序
-    List<HomeworkRecord> findByMentorNameOrderByWeekNumberDesc(String mentorName);
+    // 旧版雷达接口要整行（含审计报告与实录），按列投影一次取回，不因 LAZY 逐行补查
+    @Query(FULL_ROW + "WHERE h.mentorName = :mentorName ORDER BY h.weekNumber DESC")
+    List<HomeworkRow> findByMentorNameOrderByWeekNumberDesc(@Param("mentorName") String mentorName);
 
     // 🚀 王松老师视角：获取全量数据
-    List<HomeworkRecord> findAllByOrderByWeekNumberDesc();
+    @Query(FULL_ROW + "ORDER BY h.weekNumber DESC")
+    List<HomeworkRow> findAllByOrderByWeekNumberDesc();
 
-    // 🚀 核心纠偏：支持通过学号+周次精准定位唯一记录（用于覆盖提交）
+    // 🚀 核心纠偏：支持通过学号+周次精准定位唯一记录（用于覆盖提交，uk_homework_student_week 保证唯一）
     Optional<HomeworkRecord> findByStudentIdAndWeekNumber(String studentId, Integer weekNumber);
 
     // 兼容性保留（如有需要）
     List<HomeworkRecord> findByStudentId(String studentId);
-}
\ No newline at end of file
+
+    /**
+     * 导师看板分页摘要：只取卡片需要的列，不碰 chatHistory。
+     * 审计报告是压缩存储的，库里截不了前缀，取回后由 {@link HomeworkSummary#getPreview()} 截前 100 字。
+     * mentor / week 为 null 表示不过滤（管理员视角 / 全部周次）。
+     */
+    @Query(value = "SELECT h.id AS id, h.studentId AS studentId, h.studentName AS studentName, " +
+            "h.mentorName AS mentorName, h.weekNumber AS weekNumber, h.status AS status, " +
+            "h.score AS score, h.submitTime AS submitTime, h.aiEvaluation AS aiEvaluation " +
+            "FROM HomeworkRecord h " +
+            "WHERE (:mentor IS NULL OR h.mentorName = :mentor) AND (:week IS NULL OR h.weekNumber = :week)",
+            countQuery = "SELECT COUNT(h) FROM HomeworkRecord h " +
+                    "WHERE (:mentor IS NULL OR h.mentorName = :mentor) AND (:week IS NULL OR h.weekNumber = :week)")
+    Page<HomeworkSummary> findSummaries(@Param("mentor") String mentor, @Param("week") Integer week, Pageable pageable);
+
+    /**
+     * 按 导师 × 周次 × 状态 聚合的提交数与平均分（走 mentor_name, week_number 索引）
+     */
+    @Query("SELECT h.mentorName AS mentorName, h.weekNumber AS weekNumber, h.status AS status, " +
+            "COUNT(h) AS total, AVG(h.score) AS avgScore " +
+            "FROM HomeworkRecord h WHERE (:mentor IS NULL OR h.mentorName = :mentor) " +
+            "GROUP BY h.mentorName, h.weekNumber, h.status " +
+            "ORDER BY h.weekNumber DESC, h.mentorName")
+    List<WeeklyAggregate> aggregateByMentorAndWeek(@Param("mentor") String mentor);
+
+    /** 看板详情：单条整行，审计报告与质询实录随主查询一起取回 */
+    @Query(FULL_ROW + "WHERE h.id = :id")
+    Optional<HomeworkRow> findRowById(@Param("id") Long id);
+
+    /** 助教质询：拼提示词要用审计报告与历史实录 */
+    @EntityGraph(attributePaths = {"aiEvaluation", "chatHistory"})
+    @Query("SELECT h FROM HomeworkRecord h WHERE h.id = :id")
+    Optional<HomeworkRecord> findForChatById(@Param("id") Long id);
+
+    /** 助教质询每轮回写实录：单列 UPDATE */
+    @Transactional
+    @Modifying
+    @Query("UPDATE HomeworkRecord h SET h.chatHistory = :history WHERE h.id = :id")
+    int updateChatHistory(@Param("id") Long id, @Param("history") String history);
+
+    /** 周报审计出结果后回写报告：单列 UPDATE，不碰导师已经做的评审 */
+    @Transactional
+    @Modifying
+    @Query("UPDATE HomeworkRecord h SET h.aiEvaluation = :evaluation WHERE h.id = :id")
+    int updateAiEvaluation(@Param("id") Long id, @Param("evaluation") String evaluation);
+
+    @Query("SELECT h.mentorName FROM HomeworkRecord h WHERE h.id = :id")
+    Optional<String> findMentorNameById(@Param("id") Long id);
+
+    /**
+     * 导师评审：只更新状态与分数两列，不回写两个 TEXT 大字段
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE HomeworkRecord h SET h.status = :status, h.score = :score WHERE h.id = :id")
+    int updateReview(@Param("id") Long id, @Param("status") String status, @Param("score") Integer score);
+
+    /**
+     * 批量导出：逐行游标读取，参数为 null 表示不过滤（普通导师由调用方限定为本人）；
+     * 按列投影，只取审计报告这一列大文本
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT h.id AS id, h.studentId AS studentId, h.studentName AS studentName, h.mentorName AS mentorName, " +
+            "h.weekNumber AS weekNumber, h.status AS status, h.score AS score, h.submitTime AS submitTime, " +
+            "h.aiEvaluation AS aiEvaluation " +
+            "FROM HomeworkRecord h WHERE (:mentor IS NULL OR h.mentorName = :mentor) " +
+            "AND (:week IS NULL OR h.weekNumber = :week) AND (:status IS NULL OR h.status = :status) " +
+            "ORDER BY h.weekNumber DESC, h.id")
+    Stream<ExportRow> streamForExport(@Param("mentor") String mentor, @Param("week") Integer week,
+                                      @Param("status") String status);
+
+    interface HomeworkSummary {
+        Long getId();
+        String getStudentId();
+        String getStudentName();
+        String getMentorName();
+        Integer getWeekNumber();
+        String getStatus();
+        Integer getScore();
+        LocalDateTime getSubmitTime();
+
+        @JsonIgnore
+        String getAiEvaluation();
+
+        default String getPreview() {
+            String text = getAiEvaluation();
+            return text == null || text.length() <= PREVIEW_CHARS ? text : text.substring(0, PREVIEW_CHARS);
+        }
+    }
+
+    interface HomeworkRow {
+        Long getId();
+        String getStudentName();
+        String getStudentId();
+        String getMentorName();
+        Integer getWeekNumber();
+        String getAiEvaluation();
+        String getChatHistory();
+        String getStatus();
+        Integer getScore();
+        LocalDateTime getSubmitTime();
+    }
+
+    interface ExportRow {
+        Long getId();
+        String getStudentId();
+        String getStudentName();
+        String getMentorName();
+        Integer getWeekNumber();
+        String getStatus();
+        Integer getScore();
+        LocalDateTime getSubmitTime();
+        String getAiEvaluation();
+    }
+
+    interface WeeklyAggregate {
+        String getMentorName();
+        Integer getWeekNumber();
+        String getStatus();
+        Long getTotal();
+        Double getAvgScore();
+    }
+}
@@ -1,10 +1,151 @@
 package suatgpt.backend.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import suatgpt.backend.model.InterviewRecord;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface InterviewRecordRepository extends JpaRepository<InterviewRecord, Long> {
-    List<InterviewRecord> findByJobId(Long jobId);
-}
\ No newline at end of file
+
+    /**
+     * 招聘看板：全部档案的摘要一次取回，由调用方按岗位分组；不碰简历画像、笔试、面试实录几列大文本
+     */
+    @Query("SELECT r.id AS id, r.jobId AS jobId, r.candidateName AS candidateName, r.email AS email, " +
+            "r.status AS status, r.needsWrittenTest AS needsWrittenTest, r.interviewDate AS interviewDate " +
+            "FROM InterviewRecord r ORDER BY r.id")
+    List<CandidateSummary> findAllSummaries();
+
+    // ==========================================
+    // 取实体的接口都带实体图：要用的 LAZY 列随主查询一次取回，事务结束后实体照常可读
+    // ==========================================
+
+    /** 候选人详情页：整行连同两组大文本一起返回 */
+    @EntityGraph(attributePaths = {"resumeAnalysis", "jobAd", "chatHistory",
+            "writtenTestPaper", "writtenTestAnswer", "writtenTestEvaluation"})
+    @Query("SELECT r FROM InterviewRecord r WHERE r.id = :id")
+    Optional<InterviewRecord> findDetailById(@Param("id") Long id);
+
+    /** 面试对话：拼提示词要用简历画像、JD 与历史实录 */
+    @EntityGraph(attributePaths = {"resumeAnalysis", "jobAd", "chatHistory"})
+    @Query("SELECT r FROM InterviewRecord r WHERE r.id = :id")
+    Optional<InterviewRecord> findForChatById(@Param("id") Long id);
+
+    /** 发卷：要看是否已有试卷，题库见底时现场出卷还要简历画像 */
+    @EntityGraph(attributePaths = {"writtenTestPaper", "resumeAnalysis"})
+    @Query("SELECT r FROM InterviewRecord r WHERE r.id = :id")
+    Optional<InterviewRecord> findForWrittenTestById(@Param("id") Long id);
+
+    /** 面试对话每轮回写实录：单列 UPDATE，不经持久化上下文 */
+    @Transactional
+    @Modifying
+    @Query("UPDATE InterviewRecord r SET r.chatHistory = :history WHERE r.id = :id")
+    int updateChatHistory(@Param("id") Long id, @Param("history") String history);
+
+    @Query("SELECT r.status FROM InterviewRecord r WHERE r.id = :id")
+    Optional<String> findStatusById(@Param("id") Long id);
+
+    /** 录用 / 中断：单列 UPDATE，返回 0 说明档案不存在 */
+    @Transactional
+    @Modifying
+    @Query("UPDATE InterviewRecord r SET r.status = :status WHERE r.id = :id")
+    int updateStatus(@Param("id") Long id, @Param("status") String status);
+
+    /** 删除岗位时连带清掉档案：一条 DELETE，不先把整行加载进内存 */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM InterviewRecord r WHERE r.jobId = :jobId")
+    int deleteByJobId(@Param("jobId") Long jobId);
+
+    /**
+     * 批量导出：逐行游标读取（需在只读事务内消费），参数为 null 表示不过滤。
+     * 按列投影：要写出的大文本列随主查询一起取回，不会因 LAZY 逐行补查，行也不进持久化上下文
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT r.id AS id, r.tenantId AS tenantId, r.jobId AS jobId, r.jobTitle AS jobTitle, " +
+            "r.candidateName AS candidateName, r.email AS email, r.status AS status, r.interviewDate AS interviewDate, " +
+            "r.resumeAnalysis AS resumeAnalysis, r.writtenTestEvaluation AS writtenTestEvaluation, r.chatHistory AS chatHistory " +
+            "FROM InterviewRecord r WHERE (:tenant IS NULL OR r.tenantId = :tenant) " +
+            "AND (:jobId IS NULL OR r.jobId = :jobId) AND (:status IS NULL OR r.status = :status) ORDER BY r.id")
+    Stream<ExportRow> streamForExport(@Param("tenant") String tenant, @Param("jobId") Long jobId,
+                                      @Param("status") String status);
+
+    // ==========================================
+    // 笔试环节：只动笔试相关列，不回写 LONGTEXT 的简历画像与面试实录
+    // ==========================================
+
+    /** 发卷：档案还没有试卷时才写入，返回 0 说明已被并发请求抢先 */
+    @Transactional
+    @Modifying
+    @Query("UPDATE InterviewRecord r SET r.writtenTestPaper = :paper, r.status = 'TESTING' " +
+            "WHERE r.id = :id AND r.writtenTestPaper IS NULL")
+    int assignWrittenTest(@Param("id") Long id, @Param("paper") String paper);
+
+    /** 直接查列值，不经持久化上下文里可能已过期的实体 */
+    @Query("SELECT r.writtenTestPaper FROM InterviewRecord r WHERE r.id = :id")
+    Optional<String> findWrittenTestPaperById(@Param("id") Long id);
+
+    /** 阅卷线程不在会话内，试卷与答卷两列直接查出，不经 LAZY 实体 */
+    @Query("SELECT r.writtenTestPaper AS writtenTestPaper, r.writtenTestAnswer AS writtenTestAnswer " +
+            "FROM InterviewRecord r WHERE r.id = :id")
+    Optional<WrittenTestView> findWrittenTestById(@Param("id") Long id);
+
+    /** 交卷：重新交卷会清空上一次的阅卷结果 */
+    @Transactional
+    @Modifying
+    @Query("UPDATE InterviewRecord r SET r.writtenTestAnswer = :answer, r.writtenTestEvaluation = NULL WHERE r.id = :id")
+    int saveWrittenTestAnswer(@Param("id") Long id, @Param("answer") String answer);
+
+    /** 阅卷回写：只有答卷仍是阅卷时那一份才写入，期间重新交卷的留给下一轮 */
+    @Transactional
+    @Modifying
+    @Query("UPDATE InterviewRecord r SET r.writtenTestEvaluation = :evaluation " +
+            "WHERE r.id = :id AND r.writtenTestAnswer = :answer")
+    int saveWrittenTestEvaluation(@Param("id") Long id, @Param("answer") String answer, @Param("evaluation") String evaluation);
+
+    /** 已交卷但还没有阅卷结果的档案（进程重启、阅卷失败后补跑） */
+    @Query("SELECT r.id FROM InterviewRecord r WHERE r.writtenTestAnswer IS NOT NULL AND r.writtenTestEvaluation IS NULL")
+    List<Long> findIdsAwaitingEvaluation();
+
+    interface CandidateSummary {
+        Long getId();
+        Long getJobId();
+        String getCandidateName();
+        String getEmail();
+        String getStatus();
+        Boolean getNeedsWrittenTest();
+        Date getInterviewDate();
+    }
+
+    interface WrittenTestView {
+        String getWrittenTestPaper();
+        String getWrittenTestAnswer();
+    }
+
+    interface ExportRow {
+        Long getId();
+        String getTenantId();
+        Long getJobId();
+        String getJobTitle();
+        String getCandidateName();
+        String getEmail();
+        String getStatus();
+        Date getInterviewDate();
+        String getResumeAnalysis();
+        String getWrittenTestEvaluation();
+        String getChatHistory();
+    }
+}
@@ -11,4 +11,5 @@ import java.util.List;
 public interface JobRepository extends JpaRepository<Job, Long> {
     List<Job> findByStatus(String status);
     List<Job> findByPublisherId(Long publisherId); // 🚀 对应 getMyJobs
+    List<Job> findByStatusAndNeedsTestTrue(String status); // 笔试题库巡检
 }
\ No newline at end of file
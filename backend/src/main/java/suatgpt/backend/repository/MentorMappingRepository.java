@@ -8,6 +8,9 @@ import java.util.Optional;
 public interface MentorMappingRepository extends JpaRepository<MentorMapping, Long> {
     Optional<MentorMapping> findByStudentName(String studentName);
     Optional<MentorMapping> findByStudentId(String studentId);
+
+    // 🚀 名单索引回源：重名时只取一条，避免 Optional 查询因多行结果报错
+    Optional<MentorMapping> findFirstByStudentName(String studentName);
 }
 
 // HomeworkRecordRepository.java
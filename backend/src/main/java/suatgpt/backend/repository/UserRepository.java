@@ -9,6 +9,7 @@ import org.springframework.transaction.annotation.Transactional;
 import suatgpt.backend.model.User;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,4 +33,20 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Modifying
     @Query("UPDATE User u SET u.status = 'TIMEOUT' WHERE u.role = 'CANDIDATE' AND u.status = 'ACTIVE' AND u.lastHeartbeat < :deadline")
     int clearExpiredInterviews(@Param("deadline") LocalDateTime deadline);
+
+    // 5. 心跳引擎：启动时恢复计时队列（走 role/status/last_heartbeat 索引）
+    @Query("SELECT u.username, u.lastHeartbeat FROM User u WHERE u.role = 'CANDIDATE' AND u.status = 'ACTIVE'")
+    List<Object[]> findActiveCandidateHeartbeats();
+
+    // 6. 心跳引擎：批量刷盘
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.lastHeartbeat = :ts WHERE u.username IN :usernames")
+    int updateHeartbeats(@Param("usernames") Collection<String> usernames, @Param("ts") LocalDateTime ts);
+
+    // 7. 心跳引擎：到期即处理，只更新已到期的候选人
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.status = 'TIMEOUT' WHERE u.username IN :usernames AND u.role = 'CANDIDATE' AND u.status = 'ACTIVE'")
+    int expireCandidates(@Param("usernames") Collection<String> usernames);
 }
\ No newline at end of file
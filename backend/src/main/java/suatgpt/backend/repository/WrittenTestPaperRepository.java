@@ -0,0 +1,38 @@
+package suatgpt.backend.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import suatgpt.backend.model.WrittenTestPaper;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface WrittenTestPaperRepository extends JpaRepository<WrittenTestPaper, Long> {
+
+    long countByJobIdAndStatus(Long jobId, String status);
+
+    long countByJobId(Long jobId);
+
+    /** 发卷候选：按生成先后取若干套可用试卷的 id（走 job_id, status 索引） */
+    @Query("SELECT p.id FROM WrittenTestPaper p WHERE p.jobId = :jobId AND p.status = 'AVAILABLE' ORDER BY p.id")
+    List<Long> findAvailableIds(@Param("jobId") Long jobId, Pageable pageable);
+
+    /**
+     * 条件领卷：只有仍是 AVAILABLE 的那一套才会被改成 ASSIGNED，返回 0 说明被别人抢先领走
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE WrittenTestPaper p SET p.status = 'ASSIGNED', p.recordId = :recordId, p.assignedAt = :now " +
+            "WHERE p.id = :id AND p.status = 'AVAILABLE'")
+    int assign(@Param("id") Long id, @Param("recordId") Long recordId, @Param("now") LocalDateTime now);
+
+    /** 领到卷却没能写进档案（同一档案并发开考）时退回题库 */
+    @Transactional
+    @Modifying
+    @Query("UPDATE WrittenTestPaper p SET p.status = 'AVAILABLE', p.recordId = NULL, p.assignedAt = NULL WHERE p.id = :id")
+    int release(@Param("id") Long id);
+}
@@ -0,0 +1,334 @@
+package suatgpt.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * 🚦 AI 调用的优先级调度
+ * 面试实时对话、咨询、周报审计、出卷阅卷、写广告、课程萃取共用同一批模型和同一个 openclaw 容器。
+ * 原先先到先得，周报截止前的审计高峰会把正在进行的面试拖慢。所有 agent / 模型调用都要先在这里领一个名额：
+ * <ul>
+ *   <li>三个优先级：INTERACTIVE（有人盯着屏幕等下一句）&gt; NEAR_INTERACTIVE（上传后等结果）&gt; BATCH（后台任务）；
+ *       空出名额时先给优先级高的，同级按到达顺序；</li>
+ *   <li>每级有预留名额：高优先级的预留始终空着等它来，低优先级的预留只在该级有人排队时才保留，闲着就借给别人；</li>
+ *   <li>防饿死：每排满 aging-seconds 升一级参与排序，但只影响先后，不能占用更高级别的预留；</li>
+ *   <li>排队超过该级的 max-wait-seconds 放弃，由调用方返回“繁忙”提示；排队期间调用方取消（SSE 断开、周报被新提交取代）则直接出队。</li>
+ * </ul>
+ * 排队情况见 /api/ai/scheduler（管理员）与 ai.scheduler.* 指标；流式接口排队时会把名次推给前端。
+ */
+@Component
+public class AiCapacityScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(AiCapacityScheduler.class);
+
+    // 有人关心名次时，排队线程多久看一次自己的位置
+    private static final long POSITION_POLL_MILLIS = 1000;
+
+    public enum Priority {
+        INTERACTIVE("interactive"),
+        NEAR_INTERACTIVE("near-interactive"),
+        BATCH("batch");
+
+        private final String tag;
+
+        Priority(String tag) {
+            this.tag = tag;
+        }
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final AiMetrics metrics;
+    private final int capacity;
+    private final int[] reserved = new int[PRIORITIES.length];
+    private final long[] maxWaitSeconds = new long[PRIORITIES.length];
+    private final long agingNanos;
+
+    // 以下状态都由 this 保护
+    private final int[] running = new int[PRIORITIES.length];
+    private final int[] queued = new int[PRIORITIES.length];
+    private final List<Ticket> waiting = new ArrayList<>();
+    private long seq;
+
+    public AiCapacityScheduler(AiMetrics metrics,
+                               @Value("${ai-scheduler.capacity:16}") int capacity,
+                               @Value("${ai-scheduler.aging-seconds:30}") long agingSeconds,
+                               @Value("${ai-scheduler.interactive.reserved:4}") int interactiveReserved,
+                               @Value("${ai-scheduler.interactive.max-wait-seconds:60}") long interactiveMaxWait,
+                               @Value("${ai-scheduler.near-interactive.reserved:2}") int nearInteractiveReserved,
+                               @Value("${ai-scheduler.near-interactive.max-wait-seconds:300}") long nearInteractiveMaxWait,
+                               @Value("${ai-scheduler.batch.reserved:2}") int batchReserved,
+                               @Value("${ai-scheduler.batch.max-wait-seconds:1800}") long batchMaxWait) {
+        this.metrics = metrics;
+        this.capacity = capacity;
+        this.agingNanos = TimeUnit.SECONDS.toNanos(Math.max(1, agingSeconds));
+        reserved[Priority.INTERACTIVE.ordinal()] = interactiveReserved;
+        reserved[Priority.NEAR_INTERACTIVE.ordinal()] = nearInteractiveReserved;
+        reserved[Priority.BATCH.ordinal()] = batchReserved;
+        maxWaitSeconds[Priority.INTERACTIVE.ordinal()] = interactiveMaxWait;
+        maxWaitSeconds[Priority.NEAR_INTERACTIVE.ordinal()] = nearInteractiveMaxWait;
+        maxWaitSeconds[Priority.BATCH.ordinal()] = batchMaxWait;
+        if (capacity < 1 || interactiveReserved + nearInteractiveReserved + batchReserved >= capacity) {
+            throw new IllegalStateException("ai-scheduler 配置有误：各级预留之和必须小于总名额 capacity");
+        }
+
+        for (Priority p : PRIORITIES) {
+            Gauge.builder("ai.scheduler.running", this, s -> s.count(s.running, p))
+                    .description("正在占用名额的 AI 调用数")
+                    .tag("priority", p.tag())
+                    .register(metrics.registry());
+            Gauge.builder("ai.scheduler.queued", this, s -> s.count(s.queued, p))
+                    .description("排队等待名额的 AI 调用数")
+                    .tag("priority", p.tag())
+                    .register(metrics.registry());
+        }
+    }
+
+    /**
+     * 领取一个名额，阻塞到领到为止
+     *
+     * @throws RuntimeException 排队超时、被取消或线程被中断
+     */
+    public Permit acquire(Priority priority) {
+        return acquire(priority, null, null);
+    }
+
+    /**
+     * 可取消、可观察名次的领取
+     *
+     * @param cancelHook       登记“放弃排队”的动作，与 {@link OpenClawAgentBridge#call} 的同名参数是同一个钩子；领到名额后再触发无效
+     * @param positionListener 名次变化时在排队线程上回调，参数为前面还有几个；领到名额后不再回调
+     */
+    public Permit acquire(Priority priority, Consumer<Runnable> cancelHook, IntConsumer positionListener) {
+        Tags context = AiMetrics.context();
+        Ticket ticket;
+        synchronized (this) {
+            ticket = new Ticket(priority, seq++, context);
+            waiting.add(ticket);
+            queued[priority.ordinal()]++;
+            dispatch();
+        }
+        if (cancelHook != null && !ticket.granted.isDone()) cancelHook.accept(() -> abandon(ticket, "cancelled"));
+
+        long deadline = ticket.enqueuedNanos + TimeUnit.SECONDS.toNanos(maxWaitSeconds[priority.ordinal()]);
+        int lastPosition = -1;
+        try {
+            while (true) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) throw new TimeoutException();
+                if (positionListener != null) {
+                    int position = position(ticket);
+                    if (position >= 0 && position != lastPosition) {
+                        lastPosition = position;
+                        positionListener.accept(position);
+                    }
+                    remaining = Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(POSITION_POLL_MILLIS));
+                }
+                try {
+                    ticket.granted.get(remaining, TimeUnit.NANOSECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    // 继续等，或者看一眼名次
+                }
+            }
+        } catch (TimeoutException e) {
+            if (abandon(ticket, "timeout")) {
+                log.warn("🚦 AI 名额排队超时", kv("priority", priority.tag()), kv("tenantId", AiMetrics.tenantOf(context)),
+                        kv("waitedMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - ticket.enqueuedNanos)));
+                throw new RuntimeException("AI 通道繁忙，排队超时，请稍后重试");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (abandon(ticket, "interrupted")) throw new RuntimeException("等待 AI 名额时被中断");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("AI 调用已取消，不再排队");
+        }
+        // 超时 / 中断时出队失败，说明名额恰好已经发下来，照常使用
+        metrics.queueWait("ai-" + priority.tag(), System.nanoTime() - ticket.enqueuedNanos, context);
+        return new Permit(priority);
+    }
+
+    /**
+     * 当前各级占用与排队明细，按发放顺序列出排队中的调用
+     */
+    public synchronized Map<String, Object> snapshot() {
+        long now = System.nanoTime();
+        List<Map<String, Object>> classes = new ArrayList<>();
+        for (Priority p : PRIORITIES) {
+            Map<String, Object> c = new LinkedHashMap<>();
+            c.put("priority", p.tag());
+            c.put("reserved", reserved[p.ordinal()]);
+            c.put("running", running[p.ordinal()]);
+            c.put("queued", queued[p.ordinal()]);
+            c.put("maxWaitSeconds", maxWaitSeconds[p.ordinal()]);
+            classes.add(c);
+        }
+        List<Map<String, Object>> queue = new ArrayList<>();
+        List<Ticket> order = ordered(now);
+        for (int i = 0; i < order.size(); i++) {
+            Ticket t = order.get(i);
+            Map<String, Object> q = new LinkedHashMap<>();
+            q.put("position", i + 1);
+            q.put("priority", t.priority.tag());
+            q.put("effectivePriority", PRIORITIES[effectiveRank(t, now)].tag());
+            q.put("waitedMs", TimeUnit.NANOSECONDS.toMillis(now - t.enqueuedNanos));
+            q.put("endpoint", tagOf(t.context, "endpoint"));
+            q.put("tenant", AiMetrics.tenantOf(t.context));
+            queue.add(q);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("capacity", capacity);
+        result.put("agingSeconds", TimeUnit.NANOSECONDS.toSeconds(agingNanos));
+        result.put("classes", classes);
+        result.put("queue", queue);
+        return result;
+    }
+
+    /** 前面还有几个；已出队返回 -1 */
+    private synchronized int position(Ticket ticket) {
+        if (!waiting.contains(ticket)) return -1;
+        return ordered(System.nanoTime()).indexOf(ticket);
+    }
+
+    /**
+     * 出队；返回 false 表示名额已经发下来了，调用方应照常使用
+     */
+    private boolean abandon(Ticket ticket, String reason) {
+        synchronized (this) {
+            if (!waiting.remove(ticket)) return false;
+            queued[ticket.priority.ordinal()]--;
+            ticket.granted.completeExceptionally(new IllegalStateException(reason));
+            // 自己出队可能让低优先级的预留不再需要保留
+            dispatch();
+        }
+        Counter.builder("ai.scheduler.abandoned")
+                .description("排队中放弃的 AI 调用（超时 / 取消）")
+                .tag("priority", ticket.priority.tag())
+                .tag("reason", reason)
+                .register(metrics.registry())
+                .increment();
+        return true;
+    }
+
+    private synchronized void release(Priority priority) {
+        running[priority.ordinal()]--;
+        dispatch();
+    }
+
+    /**
+     * 按排序依次发放空出的名额；排在前面但被预留挡住的，让给后面能用共享名额的
+     */
+    private void dispatch() {
+        while (!waiting.isEmpty() && total(running) < capacity) {
+            Ticket next = null;
+            for (Ticket t : ordered(System.nanoTime())) {
+                if (admissible(t.priority)) {
+                    next = t;
+                    break;
+                }
+            }
+            if (next == null) return;
+            waiting.remove(next);
+            queued[next.priority.ordinal()]--;
+            running[next.priority.ordinal()]++;
+            next.granted.complete(null);
+        }
+    }
+
+    /**
+     * 发一个名额给 priority 之后，剩下的空位仍要够其他级别尚未用满的预留：
+     * 更高级别的预留始终保留；更低级别的预留只在它有人排队时保留
+     */
+    private boolean admissible(Priority priority) {
+        int free = capacity - total(running);
+        int held = 0;
+        for (Priority other : PRIORITIES) {
+            if (other == priority) continue;
+            int unmet = reserved[other.ordinal()] - running[other.ordinal()];
+            if (unmet <= 0) continue;
+            if (other.ordinal() < priority.ordinal() || queued[other.ordinal()] > 0) held += unmet;
+        }
+        return free - held > 0;
+    }
+
+    private List<Ticket> ordered(long now) {
+        List<Ticket> order = new ArrayList<>(waiting);
+        order.sort(Comparator.<Ticket>comparingInt(t -> effectiveRank(t, now)).thenComparingLong(t -> t.seq));
+        return order;
+    }
+
+    private int effectiveRank(Ticket t, long now) {
+        long promoted = (now - t.enqueuedNanos) / agingNanos;
+        return (int) Math.max(0, t.priority.ordinal() - promoted);
+    }
+
+    private synchronized int count(int[] counters, Priority priority) {
+        return counters[priority.ordinal()];
+    }
+
+    private static int total(int[] counters) {
+        int sum = 0;
+        for (int c : counters) sum += c;
+        return sum;
+    }
+
+    private static String tagOf(Tags context, String key) {
+        return context.stream().filter(t -> key.equals(t.getKey())).map(t -> t.getValue()).findFirst().orElse("none");
+    }
+
+    /**
+     * 已领到的名额；用完必须 close（try-with-resources），重复 close 无副作用
+     */
+    public final class Permit implements AutoCloseable {
+        private final Priority priority;
+        private boolean closed;
+
+        private Permit(Priority priority) {
+            this.priority = priority;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (closed) return;
+            closed = true;
+            release(priority);
+        }
+    }
+
+    private static final class Ticket {
+        final Priority priority;
+        final long seq;
+        final Tags context;
+        final long enqueuedNanos = System.nanoTime();
+        final CompletableFuture<Void> granted = new CompletableFuture<>();
+
+        Ticket(Priority priority, long seq, Tags context) {
+            this.priority = priority;
+            this.seq = seq;
+            this.context = context;
+        }
+    }
+}
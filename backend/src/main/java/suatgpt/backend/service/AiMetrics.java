@@ -0,0 +1,247 @@
+package suatgpt.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * AI 链路埋点
+ * 首字延迟、生成耗时、吞吐、上游状态码、agent 进程耗时、排队等待统一在这里登记，
+ * 全部带 tenant / endpoint 标签，经 /actuator/prometheus 暴露。
+ * <p>
+ * 流式路径上每个 token 只做一次普通字段自增，Timer / Summary 只在首字和收尾时各记一次。
+ * tenant 与 endpoint 取自当前请求线程，进入异步线程前必须先 {@link #context()} 固化下来。
+ */
+@Component
+public class AiMetrics {
+
+    public static final String TENANT_ATTRIBUTE = AiMetrics.class.getName() + ".tenant";
+    public static final String DEFAULT_TENANT = "default";
+    private static final String NONE = "none";
+
+    // tenantId 来自请求参数，不设上限会把标签基数撑爆；超出部分统一记为 other
+    private static final int MAX_TENANTS = 64;
+    private static final Pattern TENANT_PATTERN = Pattern.compile("[A-Za-z0-9_\\-]{1,32}");
+    private static final Set<String> KNOWN_TENANTS = ConcurrentHashMap.newKeySet();
+
+    private final MeterRegistry registry;
+
+    public AiMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public MeterRegistry registry() {
+        return registry;
+    }
+
+    // ==========================================
+    // 1. 标签上下文
+    // ==========================================
+
+    /**
+     * 业务层拿到 tenantId 后登记到当前请求上，后续埋点（含 HTTP / 仓库层）都会带上它
+     */
+    public static void bindTenant(String tenantId) {
+        RequestAttributes attrs = RequestContextHolder.getRequestAttributes();
+        if (attrs != null && tenantId != null) {
+            attrs.setAttribute(TENANT_ATTRIBUTE, tenantId, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    /** 当前线程上的 tenant + endpoint 标签；非请求线程得到 default / none */
+    public static Tags context() {
+        RequestAttributes attrs = RequestContextHolder.getRequestAttributes();
+        if (attrs instanceof ServletRequestAttributes sra) {
+            HttpServletRequest request = sra.getRequest();
+            return Tags.of("tenant", tenantOf(request), "endpoint", endpointOf(request));
+        }
+        return Tags.of("tenant", DEFAULT_TENANT, "endpoint", NONE);
+    }
+
+    /**
+     * tenant 取值顺序：业务层登记的值 → tenantId 请求参数 → X-Tenant-Id 请求头 → default
+     */
+    public static String tenantOf(HttpServletRequest request) {
+        Object bound = request.getAttribute(TENANT_ATTRIBUTE);
+        String tenant = bound != null ? bound.toString() : request.getParameter("tenantId");
+        if (tenant == null || tenant.isBlank()) tenant = request.getHeader("X-Tenant-Id");
+        return normalizeTenant(tenant);
+    }
+
+    /** 从 {@link #context()} 的结果里取回 tenant，供日志字段使用 */
+    public static String tenantOf(Tags context) {
+        for (Tag tag : context) {
+            if ("tenant".equals(tag.getKey())) return tag.getValue();
+        }
+        return DEFAULT_TENANT;
+    }
+
+    /** 路由模板（如 /api/homework/records/{id}），避免把路径参数打进标签 */
+    public static String endpointOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : NONE;
+    }
+
+    static String normalizeTenant(String tenant) {
+        if (tenant == null || tenant.isBlank()) return DEFAULT_TENANT;
+        if (!TENANT_PATTERN.matcher(tenant).matches()) return "other";
+        if (KNOWN_TENANTS.contains(tenant)) return tenant;
+        if (KNOWN_TENANTS.size() >= MAX_TENANTS) return "other";
+        KNOWN_TENANTS.add(tenant);
+        return tenant;
+    }
+
+    // ==========================================
+    // 2. 上游模型
+    // ==========================================
+
+    /** 上游 HTTP 状态码；连不上时 status 传 0，记为 IO_ERROR */
+    public void upstreamStatus(String modelKey, int status, Tags context) {
+        Counter.builder("ai.upstream.responses")
+                .description("上游模型接口响应次数（按状态码）")
+                .tags(context)
+                .tag("model", modelKey(modelKey))
+                .tag("status", status > 0 ? String.valueOf(status) : "IO_ERROR")
+                .register(registry)
+                .increment();
+    }
+
+    /** 非流式调用的整体耗时 */
+    public void generation(String modelKey, long nanos, String outcome, Tags context) {
+        Timer.builder("ai.generation.duration")
+                .description("非流式模型调用耗时")
+                .tags(context)
+                .tag("model", modelKey(modelKey))
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** 在请求线程上开始计时一次流式生成 */
+    public StreamRecorder startStream(String modelKey) {
+        return new StreamRecorder(modelKey(modelKey), context());
+    }
+
+    // ==========================================
+    // 3. agent 进程与排队
+    // ==========================================
+
+    /** outcome: ok / timeout / cancelled / error */
+    public void agentProcess(long nanos, String outcome, Tags context) {
+        Timer.builder("openclaw.agent.duration")
+                .description("OpenClaw agent 进程从启动到结束的耗时")
+                .tags(context)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofMinutes(10))
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** 任务从提交到真正开始执行的等待时间 */
+    public void queueWait(String queue, long nanos, Tags context) {
+        Timer.builder("ai.queue.wait")
+                .description("后台任务排队等待时间")
+                .tags(context)
+                .tag("queue", queue)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static String modelKey(String modelKey) {
+        return modelKey == null || modelKey.isBlank() ? "default" : modelKey;
+    }
+
+    /**
+     * 一次流式生成的计量：只被读流线程使用，不需要同步
+     */
+    public final class StreamRecorder {
+        private final String model;
+        private final Tags context;
+        private final long startNanos = System.nanoTime();
+        private long firstTokenNanos = -1;
+        private long tokens;
+        private boolean responded;
+        private boolean finished;
+
+        private StreamRecorder(String model, Tags context) {
+            this.model = model;
+            this.context = context;
+        }
+
+        public Tags context() {
+            return context;
+        }
+
+        public void upstreamStatus(int status) {
+            responded = true;
+            AiMetrics.this.upstreamStatus(model, status, context);
+        }
+
+        /** 是否已经拿到上游响应头 */
+        public boolean responded() {
+            return responded;
+        }
+
+        /** 每收到一段增量调用一次；首段同时记下 TTFT */
+        public void token() {
+            if (tokens++ == 0) {
+                firstTokenNanos = System.nanoTime();
+                Timer.builder("ai.stream.ttft")
+                        .description("流式生成首字延迟")
+                        .tags(context)
+                        .tag("model", model)
+                        .publishPercentileHistogram()
+                        .register(registry)
+                        .record(firstTokenNanos - startNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /** outcome: completed / cancelled / error；重复调用只记第一次 */
+        public void finish(String outcome) {
+            if (finished) return;
+            finished = true;
+            long end = System.nanoTime();
+            Tags tags = context.and("model", model, "outcome", outcome);
+            Timer.builder("ai.stream.duration")
+                    .description("流式生成总耗时")
+                    .tags(tags)
+                    .publishPercentileHistogram()
+                    .maximumExpectedValue(Duration.ofMinutes(10))
+                    .register(registry)
+                    .record(end - startNanos, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder("ai.stream.tokens")
+                    .description("单次流式生成的增量段数")
+                    .tags(tags)
+                    .register(registry)
+                    .record(tokens);
+            // 吞吐只统计首字之后的生成阶段，排除排队与建连
+            if (tokens > 1 && end > firstTokenNanos) {
+                DistributionSummary.builder("ai.stream.tokens.per.second")
+                        .description("首字之后的生成速率")
+                        .tags(context)
+                        .tag("model", model)
+                        .publishPercentileHistogram()
+                        .register(registry)
+                        .record((tokens - 1) * 1e9 / (end - firstTokenNanos));
+            }
+        }
+    }
+}
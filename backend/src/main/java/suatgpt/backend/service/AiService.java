@@ -2,6 +2,8 @@ package suatgpt.backend.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
@@ -9,6 +11,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
@@ -17,6 +21,7 @@ import suatgpt.backend.model.ChatSession;
 import suatgpt.backend.model.User;
 import suatgpt.backend.repository.ChatMessageRepository;
 import suatgpt.backend.repository.ChatSessionRepository;
+import suatgpt.backend.service.AiCapacityScheduler.Priority;
 
 import java.io.BufferedReader;
 import java.io.InputStream;
@@ -28,6 +33,13 @@ import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
 
 @Service
 public class AiService implements InitializingBean {
@@ -38,6 +50,9 @@ public class AiService implements InitializingBean {
     private final ChatSessionRepository chatSessionRepository;
     private final RestTemplate restTemplate;
     private final MailService mailService;
+    private final SseStreamSupervisor streamSupervisor;
+    private final AiMetrics metrics;
+    private final AiCapacityScheduler scheduler;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
 
@@ -66,14 +81,26 @@ public class AiService implements InitializingBean {
     @Value("${ai.aliyun-coding.api-key:}") private String codingApiKey;
     @Value("${ai.aliyun-coding.model:}") private String codingModel;
 
+    // 🚦 流式对话 / 临时任务专用线程：在跑的不超过调度器名额，多出来的线程在调度器里排队，
+    // 这样才能按优先级出队、收到名次推送；再多就直接回“繁忙”，不挤占公共线程池
+    @Value("${ai-scheduler.capacity:16}") private int schedulerCapacity;
+    @Value("${ai-scheduler.max-waiting-streams:64}") private int maxWaitingStreams;
+    private ThreadPoolExecutor aiExecutor;
+
     public AiService(ChatMessageRepository chatMessageRepository,
                      ChatSessionRepository chatSessionRepository,
                      RestTemplate restTemplate,
-                     MailService mailService) {
+                     MailService mailService,
+                     SseStreamSupervisor streamSupervisor,
+                     AiMetrics metrics,
+                     AiCapacityScheduler scheduler) {
         this.chatMessageRepository = chatMessageRepository;
         this.chatSessionRepository = chatSessionRepository;
         this.restTemplate = restTemplate;
         this.mailService = mailService;
+        this.streamSupervisor = streamSupervisor;
+        this.metrics = metrics;
+        this.scheduler = scheduler;
     }
 
     @Override
@@ -81,6 +108,31 @@ public class AiService implements InitializingBean {
         if (this.qwenPubBaseUrl == null || this.qwenPubBaseUrl.isBlank()) {
             this.qwenPubBaseUrl = "https://dashscope.aliyuncs.com/compatible-mode/v1";
         }
+        AtomicInteger seq = new AtomicInteger();
+        this.aiExecutor = new ThreadPoolExecutor(0, schedulerCapacity + maxWaitingStreams, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), r -> {
+            Thread t = new Thread(r, "ai-stream-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        aiExecutor.shutdownNow();
+    }
+
+    /**
+     * 交给专用线程执行；线程已满（在跑的和排队的都到上限）时返回 false，由调用方回复繁忙
+     */
+    private boolean dispatch(Runnable task) {
+        try {
+            aiExecutor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("🚦 AI 工作线程已满，请求直接拒绝", kv("activeThreads", aiExecutor.getActiveCount()));
+            return false;
+        }
     }
 
     @Transactional
@@ -118,55 +170,95 @@ public class AiService implements InitializingBean {
                 .build();
 
         StringBuilder fullResponse = new StringBuilder();
+        SseStreamSupervisor.Handle stream = streamSupervisor.watch(emitter, "/api/ai/chat/stream");
+        AiMetrics.StreamRecorder recorder = metrics.startStream(modelKey);
+        long submitted = System.nanoTime();
 
-        CompletableFuture.runAsync(() -> {
+        boolean accepted = dispatch(() -> {
+            metrics.queueWait("ai-stream", System.nanoTime() - submitted, recorder.context());
+            AiCapacityScheduler.Permit permit;
             try {
-                HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                // 排队期间把名次以 queue 事件推给前端，断开即出队
+                permit = scheduler.acquire(Priority.INTERACTIVE, stream::onCancel, ahead -> stream.sendEvent("queue", ahead));
+            } catch (RuntimeException e) {
+                recorder.finish(stream.isCancelled() ? "cancelled" : "error");
+                stream.send(e.getMessage());
+                stream.complete();
+                return;
+            }
+            try (permit) {
+                // 客户端断开时取消上游请求：响应头未到则取消 future，已在读流则直接关流打断 readLine
+                CompletableFuture<HttpResponse<InputStream>> pending = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+                stream.onCancel(() -> pending.cancel(true));
+                HttpResponse<InputStream> response = pending.join();
+                recorder.upstreamStatus(response.statusCode());
 
                 if (response.statusCode() != 200) {
-                    emitter.send("AI API Error: " + response.statusCode());
-                    emitter.complete();
+                    response.body().close();
+                    stream.send("AI API Error: " + response.statusCode());
+                    stream.complete();
+                    recorder.finish("error");
                     return;
                 }
 
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+                InputStream body = response.body();
+                stream.onCancel(() -> closeQuietly(body));
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
                     String line;
-                    while ((line = reader.readLine()) != null) {
-                        if (line.startsWith("data:")) {
-                            String dataStr = line.substring(5).trim();
-                            if (dataStr.isEmpty() || "[DONE]".equals(dataStr)) continue;
-
-                            try {
-                                JsonNode node = objectMapper.readTree(dataStr);
-                                // 🚀 物理兼容：尝试多种 JSON 路径取内容
-                                String chunk = "";
-                                if (node.has("choices")) {
-                                    chunk = node.path("choices").get(0).path("delta").path("content").asText("");
-                                } else if (node.has("content")) { // WeKnora 格式
-                                    chunk = node.path("content").asText("");
-                                }
-
-                                if (!chunk.isEmpty()) {
-                                    emitter.send(chunk);
-                                    fullResponse.append(chunk);
-                                }
-                            } catch (Exception e) {
-                                log.warn("JSON解析跳过: {}", dataStr);
-                            }
+                    while (!stream.isCancelled() && (line = reader.readLine()) != null) {
+                        String chunk = parseDelta(line);
+                        if (chunk != null && !chunk.isEmpty()) {
+                            recorder.token();
+                            fullResponse.append(chunk);
+                            if (!stream.send(chunk)) break;
                         }
                     }
                 }
-                chatMessageRepository.save(new ChatMessage(session, "AI", fullResponse.toString()));
-                emitter.complete();
+                recorder.finish(stream.isCancelled() ? "cancelled" : "completed");
+                saveReply(session, fullResponse, stream.isCancelled());
+                stream.complete();
             } catch (Exception e) {
+                if (stream.isCancelled()) {
+                    // 取消导致的读流中断属于预期，保留已生成的部分
+                    recorder.finish("cancelled");
+                    saveReply(session, fullResponse, true);
+                    return;
+                }
+                // 响应头都没拿到说明连不上上游
+                if (!recorder.responded()) recorder.upstreamStatus(0);
+                recorder.finish("error");
                 log.error("流式响应异常: ", e);
-                emitter.completeWithError(e);
+                stream.completeWithError(e);
             }
         });
+        if (!accepted) {
+            recorder.finish("error");
+            stream.send(OpenClawAgentBridge.BUSY_REPLY);
+            stream.complete();
+        }
+    }
+
+    /**
+     * 落库 AI 回复；中途取消时保存已生成的部分并打上标记，空回复不落库
+     */
+    private void saveReply(ChatSession session, StringBuilder reply, boolean cancelled) {
+        if (cancelled) {
+            if (reply.length() == 0) return;
+            reply.append("\n\n[回复已中断]");
+        }
+        chatMessageRepository.save(new ChatMessage(session, "AI", reply.toString()));
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (Exception ignore) {
+            // 连接已断开
+        }
     }
 
     private void handleHomeworkTask(ChatSession session, String userMessage, SseEmitter emitter) {
-        CompletableFuture.runAsync(() -> {
+        dispatchOrBusy(emitter, () -> {
             try {
                 emitter.send("[Agent 正在分析指令...]\n");
                 chatMessageRepository.save(new ChatMessage(session, "USER", userMessage));
@@ -182,16 +274,44 @@ public class AiService implements InitializingBean {
     }
 
     public void processTemporaryTask(User user, String message, String modelKey, SseEmitter emitter) {
-        CompletableFuture.runAsync(() -> {
+        Tags context = AiMetrics.context();
+        dispatchOrBusy(emitter, () -> {
             try {
-                emitter.send(generateCommonText(message, modelKey));
+                emitter.send(generateCommonText(Priority.INTERACTIVE, message, modelKey, context));
                 emitter.complete();
             } catch (Exception e) { emitter.completeWithError(e); }
         });
     }
 
-    public String generateCommonText(String prompt, String modelKey) {
+    private void dispatchOrBusy(SseEmitter emitter, Runnable task) {
+        if (dispatch(task)) return;
+        try {
+            emitter.send(OpenClawAgentBridge.BUSY_REPLY);
+            emitter.complete();
+        } catch (Exception e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    public String generateCommonText(Priority priority, String prompt, String modelKey) {
+        return generateCommonText(priority, prompt, modelKey, AiMetrics.context());
+    }
+
+    private String generateCommonText(Priority priority, String prompt, String modelKey, Tags context) {
+        AiCapacityScheduler.Permit permit;
+        try {
+            permit = scheduler.acquire(priority);
+        } catch (RuntimeException e) {
+            return e.getMessage();
+        }
+        try (permit) {
+            return requestCommonText(prompt, modelKey, context);
+        }
+    }
+
+    private String requestCommonText(String prompt, String modelKey, Tags context) {
         Map<String, String> config = getModelConfig(modelKey);
+        long start = System.nanoTime();
         try {
             Map<String, Object> body = Map.of(
                     "model", config.get("model"),
@@ -202,11 +322,21 @@ public class AiService implements InitializingBean {
             headers.setBearerAuth(config.get("key"));
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(body, headers);
             ResponseEntity<Map> response = restTemplate.postForEntity(config.get("url") + "/chat/completions", entity, Map.class);
+            metrics.upstreamStatus(modelKey, response.getStatusCode().value(), context);
             if (response.getStatusCode() == HttpStatus.OK) {
                 List<?> choices = (List<?>) response.getBody().get("choices");
-                return Objects.toString(((Map)((Map)choices.get(0)).get("message")).get("content"), "");
+                String content = Objects.toString(((Map)((Map)choices.get(0)).get("message")).get("content"), "");
+                metrics.generation(modelKey, System.nanoTime() - start, "ok", context);
+                return content;
             }
+        } catch (HttpStatusCodeException e) {
+            metrics.upstreamStatus(modelKey, e.getStatusCode().value(), context);
+            log.error("生成失败", e);
+        } catch (ResourceAccessException e) {
+            metrics.upstreamStatus(modelKey, 0, context);
+            log.error("生成失败", e);
         } catch (Exception e) { log.error("生成失败", e); }
+        metrics.generation(modelKey, System.nanoTime() - start, "error", context);
         return "AI 生成失败。";
     }
 
@@ -265,7 +395,30 @@ public class AiService implements InitializingBean {
         return true;
     }
 
-    private String escapeJson(String input) {
+    /**
+     * 解析一行 SSE 数据，返回其中的增量文本；非 data 行、[DONE] 或无法解析时返回 null
+     */
+    String parseDelta(String line) {
+        if (!line.startsWith("data:")) return null;
+        String dataStr = line.substring(5).trim();
+        if (dataStr.isEmpty() || "[DONE]".equals(dataStr)) return null;
+
+        try {
+            JsonNode node = objectMapper.readTree(dataStr);
+            // 🚀 物理兼容：尝试多种 JSON 路径取内容
+            if (node.has("choices")) {
+                return node.path("choices").get(0).path("delta").path("content").asText("");
+            } else if (node.has("content")) { // WeKnora 格式
+                return node.path("content").asText("");
+            }
+            return "";
+        } catch (Exception e) {
+            log.warn("JSON解析跳过: {}", dataStr);
+            return null;
+        }
+    }
+
+    static String escapeJson(String input) {
         if (input == null) return "";
         return input.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "\\r");
     }
@@ -0,0 +1,185 @@
+package suatgpt.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import suatgpt.backend.repository.UserRepository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 心跳与会话过期引擎
+ * 心跳只写内存，由定时任务批量刷盘；候选人的超时由到期队列在截止时刻直接触发，
+ * 不再依赖每 30 秒一次的全表 UPDATE 扫描。
+ */
+@Service
+public class HeartbeatService {
+
+    private static final Logger log = LoggerFactory.getLogger(HeartbeatService.class);
+
+    // 与旧版巡警保持一致：5 分钟无交互即取消面试资格
+    public static final long TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final UserRepository userRepository;
+
+    // username -> 当前有效的截止时间（毫秒）；队列中截止时间不匹配的条目视为过期残留，直接丢弃
+    private final Map<String, Long> deadlines = new ConcurrentHashMap<>();
+    private final DelayQueue<Expiry> expiryQueue = new DelayQueue<>();
+
+    // 待刷盘的心跳：username -> 最近一次心跳时间
+    private final Map<String, Long> pendingFlush = new ConcurrentHashMap<>();
+
+    private volatile Thread reaper;
+
+    public HeartbeatService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * 启动时从库里恢复处于面试中的候选人，并拉起到期处理线程
+     */
+    @PostConstruct
+    public void start() {
+        try {
+            for (Object[] row : userRepository.findActiveCandidateHeartbeats()) {
+                String username = (String) row[0];
+                LocalDateTime last = (LocalDateTime) row[1];
+                long lastMillis = last != null ? last.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : System.currentTimeMillis();
+                schedule(username, lastMillis + TIMEOUT_MILLIS);
+            }
+        } catch (Exception e) {
+            // 恢复失败不影响启动，低频兜底巡检会处理遗漏的候选人
+            log.warn("心跳队列恢复失败，交由兜底巡检处理: {}", e.getMessage());
+        }
+
+        reaper = new Thread(this::reapLoop, "heartbeat-reaper");
+        reaper.setDaemon(true);
+        reaper.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread t = reaper;
+        reaper = null;
+        if (t != null) t.interrupt();
+        flushHeartbeats();
+    }
+
+    /**
+     * 记录一次心跳（纯内存操作，不触库）
+     *
+     * @param username  用户名
+     * @param candidate 是否为需要计时的候选人（role = CANDIDATE 且 status = ACTIVE）
+     */
+    public void touch(String username, boolean candidate) {
+        if (username == null) return;
+        long now = System.currentTimeMillis();
+        pendingFlush.put(username, now);
+        if (candidate) {
+            schedule(username, now + TIMEOUT_MILLIS);
+        } else {
+            deadlines.remove(username);
+        }
+    }
+
+    /**
+     * 当前仍在计时中的候选人数量
+     */
+    public int trackedCount() {
+        return deadlines.size();
+    }
+
+    private void schedule(String username, long deadline) {
+        deadlines.put(username, deadline);
+        expiryQueue.offer(new Expiry(username, deadline));
+    }
+
+    /**
+     * 批量刷盘：按心跳所在的秒分组，每组一条 UPDATE。
+     * 时间向下取整到秒，写入值不会晚于用户真实的最后一次心跳，兜底巡检的过期判断不会被推迟；
+     * 刷盘间隔 5 秒，一批最多六七条语句。
+     */
+    @Scheduled(fixedDelay = 5000)
+    public void flushHeartbeats() {
+        if (pendingFlush.isEmpty()) return;
+
+        Map<Long, List<String>> bySecond = new TreeMap<>();
+        for (String username : new ArrayList<>(pendingFlush.keySet())) {
+            Long ts = pendingFlush.remove(username);
+            if (ts == null) continue;
+            bySecond.computeIfAbsent(ts - Math.floorMod(ts, 1000L), k -> new ArrayList<>()).add(username);
+        }
+
+        bySecond.forEach((second, batch) -> {
+            LocalDateTime stamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(second), ZoneId.systemDefault());
+            try {
+                userRepository.updateHeartbeats(batch, stamp);
+            } catch (Exception e) {
+                log.warn("心跳批量刷盘失败 ({} 条)，下次重试: {}", batch.size(), e.getMessage());
+                for (String username : batch) pendingFlush.putIfAbsent(username, second);
+            }
+        });
+    }
+
+    private void reapLoop() {
+        while (reaper != null) {
+            try {
+                List<Expiry> due = new ArrayList<>();
+                due.add(expiryQueue.take());
+                expiryQueue.drainTo(due);
+
+                List<String> expired = new ArrayList<>();
+                for (Expiry e : due) {
+                    // 只有截止时间仍然匹配的条目才是真正的超时，其余是被后续心跳续期后的残留
+                    if (deadlines.remove(e.username, e.deadline)) {
+                        expired.add(e.username);
+                    }
+                }
+                if (!expired.isEmpty()) {
+                    int count = userRepository.expireCandidates(expired);
+                    if (count > 0) {
+                        log.info("【系统巡警】检测到物理超时！已取消 {} 名求职者的面试资格。", count);
+                    }
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("超时处理失败，交由兜底巡检处理: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static final class Expiry implements Delayed {
+        final String username;
+        final long deadline;
+
+        Expiry(String username, long deadline) {
+            this.username = username;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            return Long.compare(deadline, ((Expiry) o).deadline);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package suatgpt.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * 📝 周报审计队列
+ * 周五截止前大家集中提交，同一个学生还会改完再传。审计统一排进固定大小的线程池，按（学号, 周次）只认最新一次提交：
+ * <ul>
+ *   <li>提交即返回，不占请求线程；审计结果由调用方给的 commit 回写，前端轮询记录拿结果；</li>
+ *   <li>新提交进来时，同一学号同一周次还在排队的审计直接作废，正在跑的连同 agent 进程一起终止；
+ *       调用方要先 {@link #supersede} 再清空记录上的旧报告，旧审计就没有机会往清空的记录上写；</li>
+ *   <li>审计结果只有在自己仍是最新提交时才落库，旧文件的审计即便跑完也不会覆盖新结果；</li>
+ *   <li>排队数超过上限时直接拒绝，让学生稍后重交；</li>
+ *   <li>应用关闭时还没出结果的审计统一以“请重新提交”收尾，结果落库失败时也尽量写上失败提示，不会让记录一直停在审计中。</li>
+ * </ul>
+ * 每次审计的去向记在 homework.audit{outcome}：completed / superseded / rejected / aborted / failed。
+ */
+@Component
+public class HomeworkAuditQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(HomeworkAuditQueue.class);
+    private static final String QUEUE = "homework-audit";
+
+    public static final String BUSY_REPLY = "周报提交高峰，审计队列已满，请稍后重新提交";
+    public static final String ABORTED_REPLY = "⚠️ 服务重启，本次审计未完成，请重新提交周报";
+    public static final String FAILED_REPLY = "⚠️ 审计结果保存失败，请重新提交周报";
+
+    private final OpenClawAgentBridge agentBridge;
+    private final AiMetrics metrics;
+    private final ThreadPoolExecutor executor;
+    // （学号, 周次）-> 最新一次提交的审计
+    private final Map<String, Audit> latest = new ConcurrentHashMap<>();
+
+    public HomeworkAuditQueue(OpenClawAgentBridge agentBridge, AiMetrics metrics,
+                              @Value("${homework.audit.workers:4}") int workers,
+                              @Value("${homework.audit.queue-capacity:200}") int queueCapacity) {
+        this.agentBridge = agentBridge;
+        this.metrics = metrics;
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread t = new Thread(r, "homework-audit-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        Gauge.builder("homework.audit.queued", executor, e -> e.getQueue().size())
+                .description("排队等待审计的周报数")
+                .register(metrics.registry());
+    }
+
+    /**
+     * 在容器开始销毁 Bean 之前收尾：此时仓储还能用，没出结果的审计都通过各自的 commit 写上中断提示
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        executor.shutdownNow();
+        latest.values().forEach(audit -> {
+            if (audit.supersede()) {
+                record("aborted");
+                try {
+                    audit.commit.accept(ABORTED_REPLY);
+                } catch (RuntimeException e) {
+                    log.warn("📝 中断提示写入失败: {}", e.getMessage(), kv("audit", audit.key));
+                }
+            }
+        });
+        latest.clear();
+    }
+
+    /**
+     * 作废同一学号同一周次尚未出结果的审计。返回之后旧审计不会再调用自己的 commit，
+     * 正在落库的会先落完再返回，所以调用方此后清空记录不会被旧结果覆盖
+     */
+    public void supersede(String studentId, Integer weekNumber) {
+        Audit previous = latest.remove(key(studentId, weekNumber));
+        if (previous != null) supersede(previous);
+    }
+
+    /**
+     * 排队审计一份周报，立即返回
+     *
+     * @param commit 审计完成且仍是最新提交时在工作线程上调用，负责落库；
+     *               应用关闭时以 {@link #ABORTED_REPLY}、落库失败时以 {@link #FAILED_REPLY} 调用
+     * @throws RuntimeException 队列已满
+     */
+    public void submit(String studentId, Integer weekNumber, String prompt, Consumer<String> commit) {
+        String key = key(studentId, weekNumber);
+        Audit audit = new Audit(key, commit);
+        Audit previous = latest.put(key, audit);
+        if (previous != null) supersede(previous);
+        Tags context = AiMetrics.context();
+        long submitted = System.nanoTime();
+        audit.task = () -> run(audit, prompt, submitted, context);
+        try {
+            executor.execute(audit.task);
+        } catch (RejectedExecutionException e) {
+            latest.remove(key, audit);
+            record("rejected");
+            throw new RuntimeException(BUSY_REPLY);
+        }
+    }
+
+    private static String key(String studentId, Integer weekNumber) {
+        return studentId + "#" + weekNumber;
+    }
+
+    private void supersede(Audit previous) {
+        if (!previous.supersede()) return;
+        // 还在排队的直接移出队列，腾出的位置正好给这次提交
+        if (previous.task != null) executor.remove(previous.task);
+        record("superseded");
+        log.info("📝 同一周次重新提交，旧的审计已取消", kv("audit", previous.key));
+    }
+
+    private void run(Audit audit, String prompt, long submitted, Tags context) {
+        metrics.queueWait(QUEUE, System.nanoTime() - submitted, context);
+        try {
+            if (audit.isSuperseded()) return;
+            // 截止前的审计高峰按批处理排队，不跟正在进行的面试 / 答疑抢名额
+            String reply;
+            try {
+                reply = agentBridge.call(AiCapacityScheduler.Priority.BATCH, prompt, audit::onCancel);
+            } catch (RuntimeException e) {
+                log.error("📝 审计调用异常", kv("audit", audit.key), e);
+                reply = FAILED_REPLY;
+            }
+            // 与 supersede 互斥：要么先落库（之后的新提交审计完会再覆盖），要么先被取代（不再落库）。
+            // 失败提示也在锁内写，免得落在新提交已经清空的记录上
+            synchronized (audit) {
+                if (audit.superseded) return;
+                audit.done = true;
+                try {
+                    audit.commit.accept(reply);
+                    record(FAILED_REPLY.equals(reply) ? "failed" : "completed");
+                } catch (RuntimeException e) {
+                    log.error("📝 审计结果落库失败", kv("audit", audit.key), e);
+                    record("failed");
+                    try {
+                        audit.commit.accept(FAILED_REPLY);
+                    } catch (RuntimeException again) {
+                        log.warn("📝 失败提示写入失败: {}", again.getMessage(), kv("audit", audit.key));
+                    }
+                }
+            }
+        } finally {
+            latest.remove(audit.key, audit);
+        }
+    }
+
+    private void record(String outcome) {
+        Counter.builder("homework.audit")
+                .description("周报审计的最终去向")
+                .tag("outcome", outcome)
+                .register(metrics.registry())
+                .increment();
+    }
+
+    private static final class Audit {
+        final String key;
+        final Consumer<String> commit;
+        volatile Runnable task;
+        boolean superseded;
+        boolean done;
+        Runnable cancel;
+
+        Audit(String key, Consumer<String> commit) {
+            this.key = key;
+            this.commit = commit;
+        }
+
+        synchronized boolean isSuperseded() {
+            return superseded;
+        }
+
+        /** agent 进程启动后登记终止动作；此前已被取代则立即终止 */
+        synchronized void onCancel(Runnable cancel) {
+            if (superseded) cancel.run();
+            else this.cancel = cancel;
+        }
+
+        /** @return false 表示已经出结果（或已被取代），无需再处理 */
+        synchronized boolean supersede() {
+            if (done || superseded) return false;
+            superseded = true;
+            if (cancel != null) cancel.run();
+            return true;
+        }
+    }
+}
@@ -1,82 +1,110 @@
 package suatgpt.backend.service;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import suatgpt.backend.model.HomeworkRecord;
 import suatgpt.backend.model.MentorMapping;
 import suatgpt.backend.repository.HomeworkRecordRepository;
-import suatgpt.backend.repository.MentorMappingRepository;
 import suatgpt.backend.config.HomeworkPromptRegistry;
+import suatgpt.backend.service.AiCapacityScheduler.Priority;
 
 import java.io.File;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Objects;
 
 @Service
 public class HomeworkService {
 
     private final HomeworkRecordRepository homeworkRepo;
-    private final MentorMappingRepository mentorRepo;
-    private final InterviewService openclawService; // 复用您刚才修好的底层调用方法
-
-    public HomeworkService(HomeworkRecordRepository homeworkRepo, MentorMappingRepository mentorRepo, InterviewService openclawService) {
+    private final MentorRosterCache rosterCache;
+    private final OpenClawAgentBridge agentBridge; // 与咨询、面试共用同一个智能体出口
+    private final HomeworkAuditQueue auditQueue;   // 审计排队，同一学号同一周次只认最新提交
+    // 同一学号同一周次的提交串行处理（作废旧审计 → 落库 → 排队新审计），按键分段加锁
+    private final Object[] uploadLocks = new Object[64];
+
+    public HomeworkService(HomeworkRecordRepository homeworkRepo, MentorRosterCache rosterCache, OpenClawAgentBridge agentBridge,
+                           HomeworkAuditQueue auditQueue) {
         this.homeworkRepo = homeworkRepo;
-        this.mentorRepo = mentorRepo;
-        this.openclawService = openclawService;
+        this.rosterCache = rosterCache;
+        this.agentBridge = agentBridge;
+        this.auditQueue = auditQueue;
+        for (int i = 0; i < uploadLocks.length; i++) uploadLocks[i] = new Object();
     }
 
     // HomeworkService.java 关键片段
 
     public Map<String, Object> processReportUpload(MultipartFile file, String studentId, Integer weekNumber) throws Exception {
         // 🚀 物理对齐：不再按姓名找，直接按学号（studentId）锁定导师映射
-        MentorMapping mapping = mentorRepo.findByStudentId(studentId)
+        MentorMapping mapping = rosterCache.findByStudentId(studentId)
                 .orElseThrow(() -> new RuntimeException("物理匹配失败：学号 [" + studentId + "] 未在导师映射表中注册。"));
 
         String studentName = mapping.getStudentName(); // 从映射表获取真实姓名
 
         // ... 文件保存逻辑保持不变 ...
-        String dirPath = System.getProperty("os.name").toLowerCase().contains("win") ? "D:/OpenClawTest" : "/www/wwwroot/suat_data";
-        File dir = new File(dirPath);
-        if (!dir.exists()) dir.mkdirs();
+        File dir = agentBridge.workspaceDir();
 
         String safeName = "Week" + weekNumber + "_" + studentId + "_" + System.currentTimeMillis() + ".docx";
         file.transferTo(new File(dir, safeName));
-        String dockerFilePath = "/root/.openclaw/workspace/" + safeName;
+        String dockerFilePath = agentBridge.agentPath(safeName);
 
         // ... AI 审计 Prompt 注入 ...
         String prompt = String.format(HomeworkPromptRegistry.AUDIT_PROMPT, studentName, weekNumber, dockerFilePath);
-        String aiAudit = openclawService.callOpenClawCLI(prompt);
 
-        // 🚀 落库：通过学号 + 周次进行唯一性校验（覆盖或新建）
-        Optional<HomeworkRecord> existing = homeworkRepo.findByStudentIdAndWeekNumber(studentId, weekNumber);
-        HomeworkRecord record = existing.orElse(new HomeworkRecord());
+        synchronized (uploadLocks[Math.floorMod(Objects.hash(studentId, weekNumber), uploadLocks.length)]) {
+            // 先作废旧审计再清空旧报告：顺序反过来，旧审计可能恰好在中间把旧文件的报告写回清空的记录
+            auditQueue.supersede(studentId, weekNumber);
+            Long recordId = upsertSubmission(studentId, weekNumber, studentName, mapping.getMentorName());
+
+            // 审计排队执行，结果回写到这条记录；期间同一周次又交了新文件，这次审计作废，由新提交回写
+            try {
+                auditQueue.submit(studentId, weekNumber, prompt, aiAudit -> homeworkRepo.updateAiEvaluation(recordId, aiAudit));
+            } catch (RuntimeException e) {
+                // 没排上队也要给记录一个结论，免得前端一直轮询
+                homeworkRepo.updateAiEvaluation(recordId, e.getMessage());
+                throw e;
+            }
+            return Map.of("code", 202, "status", "AUDITING", "recordId", recordId, "studentName", studentName);
+        }
+    }
 
+    /**
+     * 🚀 先落库：学号 + 周次唯一（覆盖或新建），审计报告清空表示审计中。
+     * 多实例下两个首次提交可能同时插入，后到的撞上唯一约束，重查一次改为覆盖先到的那条
+     */
+    private Long upsertSubmission(String studentId, Integer weekNumber, String studentName, String mentorName) {
+        try {
+            return saveSubmission(studentId, weekNumber, studentName, mentorName);
+        } catch (DataIntegrityViolationException e) {
+            return saveSubmission(studentId, weekNumber, studentName, mentorName);
+        }
+    }
+
+    private Long saveSubmission(String studentId, Integer weekNumber, String studentName, String mentorName) {
+        HomeworkRecord record = homeworkRepo.findByStudentIdAndWeekNumber(studentId, weekNumber).orElse(new HomeworkRecord());
         record.setStudentName(studentName);
         record.setStudentId(studentId);
-        record.setMentorName(mapping.getMentorName()); // 锁定导师
+        record.setMentorName(mentorName); // 锁定导师
         record.setWeekNumber(weekNumber);
-        record.setAiEvaluation(aiAudit);
+        record.setAiEvaluation(null);
         record.setStatus("SUBMITTED");
-        homeworkRepo.save(record);
-
-        return Map.of("code", 200, "analysis", aiAudit, "recordId", record.getId(), "studentName", studentName);
+        return homeworkRepo.save(record).getId();
     }
 
     public String processLiveChat(Long recordId, String userMsg, int chatCount) {
-        HomeworkRecord record = homeworkRepo.findById(recordId).orElseThrow();
+        HomeworkRecord record = homeworkRepo.findForChatById(recordId).orElseThrow();
 
         String prompt = String.format(HomeworkPromptRegistry.TA_CHAT_TEMPLATE,
                 record.getStudentName(), record.getMentorName(), record.getWeekNumber(),
                 record.getAiEvaluation(), chatCount,
                 record.getChatHistory() != null ? record.getChatHistory() : "", userMsg);
 
-        String aiReply = openclawService.callOpenClawCLI(prompt);
+        String aiReply = agentBridge.call(Priority.INTERACTIVE, prompt);
 
         // 物理追写
         String updatedHistory = (record.getChatHistory() != null ? record.getChatHistory() : "")
                 + "\n【学生】: " + userMsg + "\n【AI助教】: " + aiReply;
-        record.setChatHistory(updatedHistory);
-        homeworkRepo.save(record);
+        homeworkRepo.updateChatHistory(recordId, updatedHistory);
 
         return aiReply;
     }
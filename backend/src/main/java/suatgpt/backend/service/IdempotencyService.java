@@ -0,0 +1,201 @@
+package suatgpt.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * 🔁 上传 / 生成类接口的幂等层
+ * 双击上传、网关超时重试都会让同一份简历再跑一整轮 agent、再落一条记录。这里按“用户 + 接口 + 幂等键”合并重复请求：
+ * <ul>
+ *   <li>第一个请求照常执行；执行期间到达的重复请求挂在它的结果上等，不再调用模型；</li>
+ *   <li>执行成功（2xx）的响应缓存 TTL 时长，期间的重复请求直接拿到同一份响应（响应头 Idempotent-Replayed: true）；</li>
+ *   <li>失败的结果、以及带 Cache-Control: no-store 的响应（如 agent 故障时的兜底文案）只交给已经挂上来的请求，
+ *       不缓存，客户端重试会重新执行。</li>
+ * </ul>
+ * 幂等键优先取请求头 {@value #HEADER}；没带时按请求内容（文件字节 + 表单字段）的哈希推导，
+ * 同一人对同一接口重复提交完全相同的内容即视为重复。带了键但内容与首次不同，返回 422。
+ * <p>
+ * 只在单实例内存里合并，重启或请求落到别的实例时退回正常执行。
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+    private static final int MAX_KEY_LENGTH = 128;
+
+    private final AiMetrics metrics;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // 成功响应保留多久，期间的重复请求直接回放
+    @Value("${idempotency.ttl-minutes:10}")
+    private long ttlMinutes;
+
+    // 重复请求最多等首个请求多久；agent 解析简历本身就要几分钟，默认与其超时同量级
+    @Value("${idempotency.join-timeout-seconds:600}")
+    private long joinTimeoutSeconds;
+
+    public IdempotencyService(AiMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @FunctionalInterface
+    public interface Action {
+        ResponseEntity<?> run() throws Exception;
+    }
+
+    /**
+     * 以幂等方式执行一次请求
+     *
+     * @param endpoint    接口名，同时用作埋点标签
+     * @param key         客户端带来的幂等键，可为空
+     * @param fingerprint 请求内容摘要，见 {@link #fingerprint(MultipartFile, Object...)}
+     */
+    public ResponseEntity<?> execute(String endpoint, String key, String fingerprint, Action action) throws Exception {
+        if (key != null && (key.isBlank() || key.length() > MAX_KEY_LENGTH)) {
+            return ResponseEntity.badRequest().body(Map.of("error", HEADER + " 长度须在 1~" + MAX_KEY_LENGTH + " 之间"));
+        }
+        String id = endpoint + "|" + currentUser() + "|" + (key != null ? "key:" + key : "sha:" + fingerprint);
+        Entry mine = new Entry(fingerprint);
+        Entry existing = entries.putIfAbsent(id, mine);
+        if (existing == null) return runFirst(endpoint, id, mine, action);
+
+        if (!existing.fingerprint.equals(fingerprint)) {
+            record(endpoint, "mismatch");
+            return ResponseEntity.unprocessableEntity().body(Map.of("error", "该 " + HEADER + " 已用于内容不同的另一个请求"));
+        }
+        boolean done = existing.future.isDone();
+        try {
+            ResponseEntity<?> response = existing.future.get(joinTimeoutSeconds, TimeUnit.SECONDS);
+            record(endpoint, done ? "replayed" : "joined");
+            log.info("🔁 重复请求已合并到首个请求的结果", kv("endpoint", endpoint), kv("outcome", done ? "replayed" : "joined"));
+            return ResponseEntity.status(response.getStatusCode()).header(REPLAYED_HEADER, "true").body(response.getBody());
+        } catch (TimeoutException e) {
+            record(endpoint, "timeout");
+            return ResponseEntity.status(409).header("Retry-After", "30").body(Map.of("error", "相同的请求仍在处理中，请稍后重试"));
+        } catch (ExecutionException e) {
+            record(endpoint, "joined");
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    private ResponseEntity<?> runFirst(String endpoint, String id, Entry entry, Action action) throws Exception {
+        record(endpoint, "executed");
+        try {
+            ResponseEntity<?> response = action.run();
+            entry.future.complete(response);
+            String cacheControl = response.getHeaders().getCacheControl();
+            if (response.getStatusCode().is2xxSuccessful() && (cacheControl == null || !cacheControl.contains("no-store"))) {
+                entry.completedNanos = System.nanoTime();
+            } else {
+                entries.remove(id, entry);
+            }
+            return response;
+        } catch (Exception | Error e) {
+            entries.remove(id, entry);
+            entry.future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 清理过期的已完成响应；执行中的请求不受影响
+     */
+    @Scheduled(fixedRate = 60000, initialDelay = 60000)
+    public void evictExpired() {
+        long deadline = System.nanoTime() - TimeUnit.MINUTES.toNanos(ttlMinutes);
+        entries.forEach((id, e) -> {
+            long completed = e.completedNanos;
+            if (completed != 0 && completed < deadline) entries.remove(id, e);
+        });
+    }
+
+    /**
+     * 调 agent 的接口统一用它包装 200 响应：agent 故障时的兜底回复带上 no-store，不进幂等缓存，用户重试会重新调用
+     *
+     * @param agentReply 响应里 agent 给出的那段文本
+     */
+    public static ResponseEntity<Object> agentResponse(Object body, String agentReply) {
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (OpenClawAgentBridge.isFailureReply(agentReply)) ok.cacheControl(CacheControl.noStore());
+        return ok.body(body);
+    }
+
+    /**
+     * 请求内容摘要：上传文件的全部字节 + 各表单字段，字段之间带分隔，避免拼接歧义
+     */
+    public static String fingerprint(MultipartFile file, Object... fields) throws IOException {
+        MessageDigest digest = sha256();
+        for (Object field : fields) {
+            digest.update(String.valueOf(field).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        if (file != null) {
+            try (InputStream in = file.getInputStream()) {
+                byte[] buf = new byte[8192];
+                for (int n; (n = in.read(buf)) > 0; ) digest.update(buf, 0, n);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 候选人端的上传不登录，统一归到 anonymous，靠内容哈希 / 客户端生成的键区分
+    private static String currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.isAuthenticated() ? auth.getName() : "anonymous";
+    }
+
+    private void record(String endpoint, String outcome) {
+        Counter.builder("idempotency.requests")
+                .description("幂等层处理的请求及其去向")
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .register(metrics.registry())
+                .increment();
+    }
+
+    private static final class Entry {
+        final String fingerprint;
+        final CompletableFuture<ResponseEntity<?>> future = new CompletableFuture<>();
+        // 0 表示仍在执行
+        volatile long completedNanos;
+
+        Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
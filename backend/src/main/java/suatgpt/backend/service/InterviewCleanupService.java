@@ -1,38 +1,44 @@
 package suatgpt.backend.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import suatgpt.backend.repository.UserRepository;
 import java.time.LocalDateTime;
 
 /**
- * 自动巡逻服务
- * 负责物理扫描数据库，清理超过5分钟未交互的求职者
+ * 兜底巡逻服务
+ * 正常超时由 {@link HeartbeatService} 的到期队列实时处理；
+ * 这里只做低频兜底（进程重启、刷盘失败等遗漏情况），走 (role, status, last_heartbeat) 索引。
  */
 @Service
 public class InterviewCleanupService {
 
+    private static final Logger log = LoggerFactory.getLogger(InterviewCleanupService.class);
+
     private final UserRepository userRepository;
+    private final HeartbeatService heartbeatService;
 
-    public InterviewCleanupService(UserRepository userRepository) {
+    public InterviewCleanupService(UserRepository userRepository, HeartbeatService heartbeatService) {
         this.userRepository = userRepository;
+        this.heartbeatService = heartbeatService;
     }
 
     /**
-     * 自动执行逻辑：每 30 秒扫描一次
-     * fixedRate = 30000 毫秒 = 30 秒
+     * 兜底执行逻辑：每 10 分钟扫描一次
      */
-    @Scheduled(fixedRate = 30000)
+    @Scheduled(fixedRate = 600000, initialDelay = 600000)
     public void cleanupTask() {
+        // 先把内存中的心跳刷盘，避免把刚活跃过的候选人误判为超时
+        heartbeatService.flushHeartbeats();
+
         // 定义“物理死亡线”：当前时间往前推 5 分钟
         LocalDateTime deadline = LocalDateTime.now().minusMinutes(5);
-
-        // 调用我们之前在 UserRepository 里写好的物理清理方法
         int count = userRepository.clearExpiredInterviews(deadline);
 
         if (count > 0) {
-            // 在控制台打印物理日志，方便你（部长）监控系统运行
-            System.out.println("【系统巡警】检测到物理超时！已取消 " + count + " 名求职者的面试资格。时间：" + LocalDateTime.now());
+            log.info("【系统巡警】兜底巡检补漏！已取消 {} 名求职者的面试资格。", count);
         }
     }
-}
\ No newline at end of file
+}
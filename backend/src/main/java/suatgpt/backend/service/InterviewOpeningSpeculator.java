@@ -0,0 +1,188 @@
+package suatgpt.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import suatgpt.backend.config.InterviewPromptRegistry;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * 🚀 开场题预生成
+ * 简历解析完成后，顺手在后台把第 1 轮（自我介绍阶段）的考官开场题生成好；候选人第一次发言时直接取用，
+ * 省掉一整轮 agent 往返。只在内存里保留，重启丢失就退回现场生成。
+ * <p>
+ * 每条预生成的结局都记到 interview.opening.speculation{outcome}：
+ * used（现成可用）/ joined（还在生成，等它出结果）/ miss（没有或还在排队）/ stale（机构提示词已变）/
+ * skipped（候选人第一句话就是实质回答）/ failed（生成失败）/ expired（迟迟没开始面试）。
+ */
+@Component
+public class InterviewOpeningSpeculator {
+
+    private static final Logger log = LoggerFactory.getLogger(InterviewOpeningSpeculator.class);
+    private static final String QUEUE = "interview-opening";
+
+    private final AiMetrics metrics;
+    private final Map<Long, Speculation> speculations = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    // 已开始生成时，首轮最多等它多久；超过就放弃，由调用方现场生成
+    @Value("${interview.opening.join-timeout-seconds:120}")
+    private long joinTimeoutSeconds;
+
+    // 上传后迟迟不开始面试的预生成结果保留多久
+    @Value("${interview.opening.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    // 候选人第一句话超过这个长度，视为已在正式作答，不再套用预生成的开场题
+    @Value("${interview.opening.max-starter-length:20}")
+    private int maxStarterLength;
+
+    public InterviewOpeningSpeculator(AiMetrics metrics,
+                                      @Value("${interview.opening.workers:2}") int workers) {
+        this.metrics = metrics;
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "interview-opening-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 提交一次预生成
+     *
+     * @param fingerprint 生成时所用提示词的指纹（模式 + 机构模板），首轮取用时对不上就作废
+     * @param generator   真正的生成调用，在后台线程执行
+     */
+    public void speculate(Long recordId, String fingerprint, Supplier<String> generator) {
+        Tags context = AiMetrics.context();
+        Speculation s = new Speculation(fingerprint);
+        Speculation previous = speculations.put(recordId, s);
+        if (previous != null) previous.future.cancel(false);
+
+        long submitted = System.nanoTime();
+        executor.execute(() -> {
+            if (s.future.isDone()) return;
+            metrics.queueWait(QUEUE, System.nanoTime() - submitted, context);
+            s.started = true;
+            long start = System.nanoTime();
+            String reply;
+            try {
+                reply = generator.get();
+            } catch (Exception e) {
+                reply = null;
+                log.warn("开场题预生成异常: {}", e.getMessage(), kv("recordId", recordId));
+            }
+            // agent / 模型调用失败时返回的兜底文案不能当开场题用
+            boolean ok = !OpenClawAgentBridge.isFailureReply(reply) && !InterviewPromptRegistry.ERROR_RESPONSE.equals(reply.trim());
+            Timer.builder("interview.opening.generation")
+                    .description("开场题预生成耗时")
+                    .tags(context)
+                    .tag("outcome", ok ? "ok" : "failed")
+                    .register(metrics.registry())
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            s.future.complete(ok ? reply : null);
+        });
+    }
+
+    /**
+     * 首轮取用。拿不到（没有、还在排队、失败、超时、已作废）时返回 null，调用方照常现场生成。
+     * 无论结果如何，这条预生成都会被移除，只能用一次。
+     */
+    public String claim(Long recordId, String fingerprint, String firstMessage) {
+        Speculation s = speculations.remove(recordId);
+        if (s == null) {
+            record("miss");
+            return null;
+        }
+        if (!s.fingerprint.equals(fingerprint)) {
+            return drop(s, "stale");
+        }
+        if (firstMessage != null && firstMessage.trim().length() > maxStarterLength) {
+            return drop(s, "skipped");
+        }
+        if (!s.future.isDone() && !s.started) {
+            // 还在排队，等下去不会比现场生成更快
+            return drop(s, "miss");
+        }
+        String outcome = s.future.isDone() ? "used" : "joined";
+        try {
+            String reply = s.future.get(joinTimeoutSeconds, TimeUnit.SECONDS);
+            if (reply == null) {
+                record("failed");
+                return null;
+            }
+            record(outcome);
+            log.info("⚡ 首轮直接使用预生成的开场题", kv("recordId", recordId), kv("outcome", outcome),
+                    kv("ageMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - s.createdNanos)));
+            return reply;
+        } catch (TimeoutException e) {
+            return drop(s, "miss");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return drop(s, "miss");
+        } catch (Exception e) {
+            record("failed");
+            return null;
+        }
+    }
+
+    /**
+     * 清理上传后长时间没开始面试的预生成结果
+     */
+    @Scheduled(fixedRate = 300000, initialDelay = 300000)
+    public void evictExpired() {
+        long deadline = System.nanoTime() - TimeUnit.MINUTES.toNanos(ttlMinutes);
+        speculations.forEach((recordId, s) -> {
+            if (s.createdNanos < deadline && speculations.remove(recordId, s)) drop(s, "expired");
+        });
+    }
+
+    private String drop(Speculation s, String outcome) {
+        s.future.cancel(false);
+        record(outcome);
+        return null;
+    }
+
+    private void record(String outcome) {
+        Counter.builder("interview.opening.speculation")
+                .description("开场题预生成的最终去向")
+                .tag("outcome", outcome)
+                .register(metrics.registry())
+                .increment();
+    }
+
+    private static final class Speculation {
+        final String fingerprint;
+        final long createdNanos = System.nanoTime();
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        volatile boolean started;
+
+        Speculation(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package suatgpt.backend.service;
+
+import suatgpt.backend.config.InterviewPromptRegistry;
+import suatgpt.backend.model.InterviewRecord;
+
+import java.util.ArrayList;
+import java.util.IllegalFormatException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 面试提示词的消息式排版
+ * 机构设定、岗位公告、简历画像组成不变的 system 块；之前每一轮按原样重放成 user / assistant，
+ * 本轮的进度与阶段任务放在最后一条 user 里。同一场面试的请求前缀逐轮只增不改，
+ * vLLM 一类推理端的前缀缓存每轮只需预填新增的那一段。
+ */
+final class InterviewPromptLayout {
+
+    static final String CANDIDATE_MARK = "\n【候选人】: ";
+    static final String INTERVIEWER_MARK = "\n【AI考官】: ";
+
+    private InterviewPromptLayout() {}
+
+    /**
+     * @param tenantTemplate 机构自定义的单串模板（可为空，空则用内置 system 模板）
+     * @param chatCount      本轮序号，从 1 开始
+     */
+    static List<Map<String, String>> build(String tenantTemplate, InterviewRecord record, int chatCount, String userMsg) {
+        List<Map<String, String>> messages = new ArrayList<>();
+        messages.add(message("system", systemBlock(tenantTemplate, record)));
+
+        // 历史轮次按与当时完全相同的文本重放，保证前缀不变
+        int turn = 0;
+        for (String[] t : parseHistory(record.getChatHistory())) {
+            turn++;
+            messages.add(message("user", turnBlock(turn, record.getJobTitle(), t[0])));
+            if (t[1] != null) messages.add(message("assistant", t[1]));
+        }
+        messages.add(message("user", turnBlock(chatCount, record.getJobTitle(), userMsg)));
+        return messages;
+    }
+
+    static String systemBlock(String tenantTemplate, InterviewRecord record) {
+        String detail = record.getJobAd() + "\n\n【候选人简历深度画像】：\n" + record.getResumeAnalysis();
+        if (tenantTemplate == null || tenantTemplate.isBlank()) {
+            return String.format(InterviewPromptRegistry.INTERVIEW_SYSTEM_TEMPLATE,
+                    record.getCandidateName(), record.getJobTitle(), detail);
+        }
+        // 机构模板沿用单串格式（姓名、岗位、详情、轮次、任务、历史、回答），逐轮变化的坑位填固定占位，
+        // %d 统一当 %s 处理，填进去的只是占位文字
+        try {
+            return String.format(tenantTemplate.replace("%d", "%s"),
+                    record.getCandidateName(), record.getJobTitle(), detail,
+                    InterviewPromptRegistry.TURN_SLOT, InterviewPromptRegistry.TURN_SLOT,
+                    InterviewPromptRegistry.HISTORY_SLOT, InterviewPromptRegistry.TURN_SLOT);
+        } catch (IllegalFormatException e) {
+            // 坑位对不上的机构模板退回内置设定，不让整轮面试失败
+            return systemBlock(null, record);
+        }
+    }
+
+    static String turnBlock(int chatCount, String jobTitle, String answer) {
+        return String.format(InterviewPromptRegistry.INTERVIEW_TURN_TEMPLATE,
+                chatCount, InterviewPromptRegistry.getDynamicStageTask(chatCount, jobTitle), answer);
+    }
+
+    /**
+     * 把库里的单串历史（"\n【候选人】: ...\n【AI考官】: ..." 逐轮追加）拆回 [候选人, 考官] 对；
+     * 考官回复缺失时为 null
+     */
+    static List<String[]> parseHistory(String history) {
+        List<String[]> turns = new ArrayList<>();
+        if (history == null || history.isEmpty()) return turns;
+        int pos = history.indexOf(CANDIDATE_MARK);
+        while (pos >= 0) {
+            int answerStart = pos + CANDIDATE_MARK.length();
+            int next = history.indexOf(CANDIDATE_MARK, answerStart);
+            int end = next >= 0 ? next : history.length();
+            int reply = history.indexOf(INTERVIEWER_MARK, answerStart);
+            if (reply >= 0 && reply < end) {
+                turns.add(new String[]{history.substring(answerStart, reply), history.substring(reply + INTERVIEWER_MARK.length(), end)});
+            } else {
+                turns.add(new String[]{history.substring(answerStart, end), null});
+            }
+            pos = next;
+        }
+        return turns;
+    }
+
+    private static Map<String, String> message(String role, String content) {
+        return Map.of("role", role, "content", content);
+    }
+}
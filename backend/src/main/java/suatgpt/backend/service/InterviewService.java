@@ -1,6 +1,9 @@
 package suatgpt.backend.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import suatgpt.backend.model.Job;
@@ -9,46 +12,114 @@ import suatgpt.backend.model.TenantConfig;
 import suatgpt.backend.repository.InterviewRecordRepository;
 import suatgpt.backend.repository.TenantConfigRepository;
 import suatgpt.backend.config.InterviewPromptRegistry;
+import suatgpt.backend.service.AiCapacityScheduler.Priority;
 
 import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
 @Service
 public class InterviewService {
 
+    // 对话内容单独成类，便于按租户量级调级别 / 抽样
+    private static final Logger transcript = LoggerFactory.getLogger("suatgpt.transcript.interview");
+
     private final InterviewRecordRepository interviewRecordRepository;
 
     // 🚀 注入分身配置仓库
     private final TenantConfigRepository tenantConfigRepository;
 
-    private final String WORKSPACE_HOST = System.getProperty("os.name").toLowerCase().contains("win")
-            ? "D:/OpenClawTest"
-            : "/www/wwwroot/suat_data";
-    private final String WORKSPACE_DOCKER = "/root/.openclaw/workspace";
+    private final OpenClawAgentBridge agentBridge;
+    private final LlmService llmService;
+    private final InterviewOpeningSpeculator openingSpeculator;
+
+    // flat：整串拼好交给 agent（旧行为）；messages：system / user / assistant 分条直连模型，前缀可被推理端缓存
+    @Value("${interview.prompt.mode:flat}")
+    private String promptMode;
+
+    // messages 模式下使用的模型，默认内网千问
+    @Value("${interview.prompt.model-key:qwen-internal}")
+    private String promptModelKey;
 
     @Autowired
-    public InterviewService(InterviewRecordRepository interviewRecordRepository, TenantConfigRepository tenantConfigRepository) {
+    public InterviewService(InterviewRecordRepository interviewRecordRepository, TenantConfigRepository tenantConfigRepository,
+                            OpenClawAgentBridge agentBridge, LlmService llmService,
+                            InterviewOpeningSpeculator openingSpeculator) {
         this.interviewRecordRepository = interviewRecordRepository;
         this.tenantConfigRepository = tenantConfigRepository;
+        this.agentBridge = agentBridge;
+        this.llmService = llmService;
+        this.openingSpeculator = openingSpeculator;
     }
 
     // ==========================================
     // 🚀 1. 动态大脑：15 轮面试对话引擎
     // ==========================================
     public String processLiveChat(Long recordId, String userMsg, int chatCount, String tenantId) {
-        InterviewRecord record = interviewRecordRepository.findById(recordId)
+        AiMetrics.bindTenant(tenantId);
+        InterviewRecord record = interviewRecordRepository.findForChatById(recordId)
                 .orElseThrow(() -> new RuntimeException("档案丢失"));
 
-        System.out.println("----------------------------------------");
-        System.out.println("[" + LocalDateTime.now() + "] 🎤 [应聘者输入]: " + userMsg);
+        transcript.info("🎤 [应聘者输入] {}", userMsg, kv("tenantId", tenantId), kv("recordId", recordId), kv("turn", chatCount));
 
         // 💡 提取该分身专属的面试官提示词
+        String tenantTemplate = interviewTemplate(tenantId);
+
+        long start = System.currentTimeMillis();
+        // 第 1 轮优先取上传时预生成好的开场题
+        String aiReply = null;
+        if (chatCount == 1 && (record.getChatHistory() == null || record.getChatHistory().isEmpty())) {
+            aiReply = openingSpeculator.claim(recordId, promptFingerprint(tenantTemplate), userMsg);
+        }
+        if (aiReply == null) aiReply = ask(Priority.INTERACTIVE, tenantTemplate, record, chatCount, userMsg);
+        long cost = System.currentTimeMillis() - start;
+
+        String currentHistory = record.getChatHistory() != null ? record.getChatHistory() : "";
+        String updatedHistory = currentHistory
+                + InterviewPromptLayout.CANDIDATE_MARK + userMsg
+                + InterviewPromptLayout.INTERVIEWER_MARK + aiReply;
+
+        interviewRecordRepository.updateChatHistory(recordId, updatedHistory);
+
+        transcript.info("🤖 [AI 回复] {}", aiReply, kv("tenantId", tenantId), kv("recordId", recordId), kv("turn", chatCount),
+                kv("durationMs", cost));
+
+        return aiReply;
+    }
+
+    private String ask(Priority priority, String tenantTemplate, InterviewRecord record, int chatCount, String userMsg) {
+        return "messages".equalsIgnoreCase(promptMode)
+                ? askModel(priority, tenantTemplate, record, chatCount, userMsg)
+                : askAgent(priority, tenantTemplate, record, chatCount, userMsg);
+    }
+
+    private String interviewTemplate(String tenantId) {
         TenantConfig config = tenantConfigRepository.findByTenantId(tenantId).orElse(null);
-        String interviewPromptTemplate = (config != null && config.getPromptInterview() != null && !config.getPromptInterview().isEmpty())
-                ? config.getPromptInterview()
+        return (config != null && config.getPromptInterview() != null && !config.getPromptInterview().isEmpty())
+                ? config.getPromptInterview() : null;
+    }
+
+    // 预生成与首轮取用时的提示词必须一致，机构中途改了模板或切换了模式就作废
+    private String promptFingerprint(String tenantTemplate) {
+        return promptMode.toLowerCase() + ":" + (tenantTemplate != null ? Integer.toHexString(tenantTemplate.hashCode()) : "builtin");
+    }
+
+    /**
+     * 消息模式：不变的设定在前、历史逐轮追加、本轮进度放最后，直接走 OpenAI 兼容接口
+     */
+    private String askModel(Priority priority, String tenantTemplate, InterviewRecord record, int chatCount, String userMsg) {
+        List<Map<String, String>> messages = InterviewPromptLayout.build(tenantTemplate, record, chatCount, userMsg);
+        Object answer = llmService.callAI(priority, messages, promptModelKey).get("answer");
+        return answer != null ? answer.toString() : InterviewPromptRegistry.ERROR_RESPONSE;
+    }
+
+    /**
+     * 单串模式：沿用机构模板（或内置模板）整串交给 agent
+     */
+    private String askAgent(Priority priority, String tenantTemplate, InterviewRecord record, int chatCount, String userMsg) {
+        String interviewPromptTemplate = tenantTemplate != null
+                ? tenantTemplate
                 : InterviewPromptRegistry.INTERVIEW_TEMPLATE; // 兜底：用您原来写死在 Registry 里的模板
 
         String resumeContext = "【候选人简历深度画像】：\n" + record.getResumeAnalysis();
@@ -65,21 +136,7 @@ public class InterviewService {
                 record.getChatHistory() != null ? record.getChatHistory() : "",
                 userMsg
         );
-
-        String aiReply = callOpenClawCLI(fullPrompt);
-
-        String currentHistory = record.getChatHistory() != null ? record.getChatHistory() : "";
-        String updatedHistory = currentHistory
-                + "\n【候选人】: " + userMsg
-                + "\n【AI考官】: " + aiReply;
-
-        record.setChatHistory(updatedHistory);
-        interviewRecordRepository.save(record);
-
-        System.out.println("[" + LocalDateTime.now() + "] 🤖 [AI 回复信号]: " + aiReply);
-        System.out.println("----------------------------------------");
-
-        return aiReply;
+        return agentBridge.call(priority, fullPrompt);
     }
 
     // ==========================================
@@ -89,9 +146,9 @@ public class InterviewService {
     // 🚀 2. 动态大脑：简历物理初筛引擎 (已修复路径自适应)
     // ==========================================
     public Map<String, Object> processResumeUpload(MultipartFile file, Job job, String candidateName, String email, String tenantId) throws Exception {
+        AiMetrics.bindTenant(tenantId);
         // 1. 物理检查并创建宿主机目录
-        File dir = new File(WORKSPACE_HOST);
-        if (!dir.exists()) dir.mkdirs();
+        File dir = agentBridge.workspaceDir();
 
         // 2. 强制对文件名进行重命名防乱码
         String originalName = file.getOriginalFilename();
@@ -104,10 +161,7 @@ public class InterviewService {
         file.transferTo(destFile);
 
         // 🚀【核心修复】：动态路径路由，适应 Windows 本机与 Linux 云端
-        boolean isWindows = System.getProperty("os.name").toLowerCase().contains("win");
-        String aiReadablePath = isWindows
-                ? (WORKSPACE_HOST + "/" + safeName)   // Windows：直接给 D:/OpenClawTest/xxx
-                : (WORKSPACE_DOCKER + "/" + safeName); // Linux/Docker：给容器映射路径
+        String aiReadablePath = agentBridge.agentPath(safeName); // 本机给宿主机路径，容器给挂载路径
 
         // 4. 提取该分身专属的简历解析指令
         TenantConfig config = tenantConfigRepository.findByTenantId(tenantId).orElse(null);
@@ -124,12 +178,13 @@ public class InterviewService {
         );
 
         // 6. 呼叫大模型解析
-        String analysisResult = callOpenClawCLI(analysisPrompt);
+        String analysisResult = agentBridge.call(Priority.NEAR_INTERACTIVE, analysisPrompt);
 
         // 7. 物理刻录入库
         InterviewRecord record = new InterviewRecord();
         record.setJobId(job.getId());
         record.setJobTitle(job.getTitle());
+        record.setTenantId(tenantId);
         record.setJobAd(job.getAdText());
         record.setCandidateName(candidateName);
         record.setEmail(email);
@@ -137,6 +192,11 @@ public class InterviewService {
         record.setStatus("APPLIED");
         interviewRecordRepository.save(record);
 
+        // 8. 趁候选人阅读初筛结果，后台把第 1 轮开场题生成好
+        String tenantTemplate = interviewTemplate(tenantId);
+        openingSpeculator.speculate(record.getId(), promptFingerprint(tenantTemplate),
+                () -> ask(Priority.NEAR_INTERACTIVE, tenantTemplate, record, 1, InterviewPromptRegistry.OPENING_STARTER));
+
         return Map.of("code", 200, "analysis", analysisResult, "recordId", record.getId());
     }
 
@@ -144,6 +204,7 @@ public class InterviewService {
     // 🚀 3. 动态大脑：部长发广告润色引擎
     // ==========================================
     public String automatedWorkflow(String jobDemand, String tenantId) {
+        AiMetrics.bindTenant(tenantId);
         // 💡 提取该分身专属的广告生成指令
         TenantConfig config = tenantConfigRepository.findByTenantId(tenantId).orElse(null);
         String baseAdPrompt = (config != null && config.getPromptAd() != null && !config.getPromptAd().isEmpty())
@@ -152,58 +213,6 @@ public class InterviewService {
 
         String finalPrompt = baseAdPrompt + "\n【部长原始需求】：" + jobDemand;
 
-        return callOpenClawCLI(finalPrompt);
-    }
-
-    // ==========================================
-    // 物理底层：呼叫大模型 (保持不变)
-    // ==========================================
-    public String callOpenClawCLI(String message) {
-        StringBuilder result = new StringBuilder();
-        DateTimeFormatter dtf = DateTimeFormatter.ofPattern("HH:mm:ss");
-        String cleanMsg = message.replace("\n", " ").replace("\r", " ");
-
-        if (System.getProperty("os.name").toLowerCase().contains("win")) {
-            String winSafeMsg = cleanMsg.replace("\"", "\"\"");
-            try {
-                ProcessBuilder pb = new ProcessBuilder("cmd", "/c", "openclaw", "agent", "--agent", "main", "--message", "\"" + winSafeMsg + "\"");
-                pb.redirectErrorStream(true);
-                Process process = pb.start();
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        if (isNotGarbage(line)) {
-                            System.out.println("[" + LocalDateTime.now().format(dtf) + "] 📬 [本地 AI 实况]: " + line);
-                            result.append(line).append("\n");
-                        }
-                    }
-                }
-                process.waitFor();
-            } catch (Exception e) { return "本地 AI 故障"; }
-        } else {
-            try { new ProcessBuilder("sh", "-c", "docker exec openclaw-aliyun rm -f /root/.openclaw/agents/main/sessions/*.lock").start().waitFor(); } catch (Exception e) {}
-            String linuxSafeMsg = cleanMsg.replace("'", "'\\''");
-            try {
-                ProcessBuilder pb = new ProcessBuilder("sh", "-c", "docker exec openclaw-aliyun openclaw agent --agent main --message '" + linuxSafeMsg + "'");
-                pb.redirectErrorStream(true);
-                Process process = pb.start();
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        if (isNotGarbage(line)) {
-                            System.out.println("[" + LocalDateTime.now().format(dtf) + "] 📬 [云端 AI 实况]: " + line);
-                            result.append(line).append("\n");
-                        }
-                    }
-                }
-                process.waitFor();
-            } catch (Exception e) { return "云端通讯故障"; }
-        }
-        return result.toString().trim();
-    }
-
-    private boolean isNotGarbage(String line) {
-        String l = line.trim();
-        return !l.isEmpty() && !l.contains("Gateway") && !l.contains("target:") && !l.contains("Source:") && !l.contains("Config:") && !l.contains("Bind:") && !l.contains("embedded") && !l.contains("ls: cannot access") && !l.contains("No such file") && !l.contains("🦞");
+        return agentBridge.call(Priority.NEAR_INTERACTIVE, finalPrompt);
     }
-}
\ No newline at end of file
+}
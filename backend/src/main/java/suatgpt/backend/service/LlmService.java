@@ -1,8 +1,13 @@
 package suatgpt.backend.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import suatgpt.backend.config.AiProperties;
+
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
@@ -10,15 +15,23 @@ import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.util.*;
 
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
 @Service
 public class LlmService {
 
+    private static final Logger log = LoggerFactory.getLogger(LlmService.class);
+
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final HttpClient httpClient;
     private final AiProperties aiProperties;
+    private final AiMetrics metrics;
+    private final AiCapacityScheduler scheduler;
 
-    public LlmService(AiProperties aiProperties) {
+    public LlmService(AiProperties aiProperties, AiMetrics metrics, AiCapacityScheduler scheduler) {
         this.aiProperties = aiProperties;
+        this.metrics = metrics;
+        this.scheduler = scheduler;
         this.httpClient = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(60)) // 招聘推演较慢，增加超时
                 .build();
@@ -86,18 +99,40 @@ public class LlmService {
     /**
      * 🛠️ 专门为招聘/制课设计的【同步返回文本】接口
      */
-    public Map<String, Object> callAI(String systemPrompt, String userPrompt, String modelKey) {
+    public Map<String, Object> callAI(AiCapacityScheduler.Priority priority, String systemPrompt, String userPrompt, String modelKey) {
+        return callAI(priority, List.of(
+                Map.of("role", "system", "content", systemPrompt),
+                Map.of("role", "user", "content", userPrompt)
+        ), modelKey);
+    }
+
+    /**
+     * 多轮消息版：调用方自行排好 system / user / assistant，原样发给模型；按 priority 排队领名额
+     */
+    public Map<String, Object> callAI(AiCapacityScheduler.Priority priority, List<Map<String, String>> messages, String modelKey) {
+        AiCapacityScheduler.Permit permit;
+        try {
+            permit = scheduler.acquire(priority);
+        } catch (RuntimeException e) {
+            log.warn("模型 {} 未领到名额: {}", modelKey, e.getMessage(), kv("model", modelKey), kv("priority", priority.tag()));
+            return Map.of("answer", "❌ " + e.getMessage());
+        }
+        try (permit) {
+            return send(messages, modelKey);
+        }
+    }
+
+    private Map<String, Object> send(List<Map<String, String>> messages, String modelKey) {
         // 1. 物理路由获取配置
         Map<String, String> config = routeModel(modelKey);
+        Tags context = AiMetrics.context();
+        long start = System.nanoTime();
 
         try {
             // 2. 物理构建 Payload
             Map<String, Object> payload = new HashMap<>();
             payload.put("model", config.get("model"));
-            payload.put("messages", List.of(
-                    Map.of("role", "system", "content", systemPrompt),
-                    Map.of("role", "user", "content", userPrompt)
-            ));
+            payload.put("messages", messages);
             payload.put("temperature", 0.7);
 
             String requestBody = objectMapper.writeValueAsString(payload);
@@ -109,10 +144,20 @@ public class LlmService {
                     .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                     .build();
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response;
+            try {
+                response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            } catch (IOException e) {
+                metrics.upstreamStatus(modelKey, 0, context);
+                throw e;
+            }
+            metrics.upstreamStatus(modelKey, response.statusCode(), context);
 
             // 3. 物理错误诊断
             if (response.statusCode() != 200) {
+                long cost = (System.nanoTime() - start) / 1_000_000;
+                metrics.generation(modelKey, System.nanoTime() - start, "error", context);
+                log.warn("模型 {} 返回 {}", modelKey, response.statusCode(), kv("model", modelKey), kv("durationMs", cost));
                 return Map.of("answer", "❌ 物理链路故障: " + response.statusCode() + " (检查模型 " + modelKey + " 是否欠费)");
             }
 
@@ -124,9 +169,15 @@ public class LlmService {
             String content = (String) message.get("content");
 
             // 5. 统一包装返回，前端只需取 "answer"
+            long cost = (System.nanoTime() - start) / 1_000_000;
+            metrics.generation(modelKey, System.nanoTime() - start, "ok", context);
+            log.info("模型 {} 返回 {} 字符", modelKey, content != null ? content.length() : 0, kv("model", modelKey), kv("durationMs", cost));
             return Map.of("answer", content);
 
         } catch (Exception e) {
+            metrics.generation(modelKey, System.nanoTime() - start, "error", context);
+            log.warn("模型 {} 调用异常: {}", modelKey, e.getMessage(), kv("model", modelKey),
+                    kv("durationMs", (System.nanoTime() - start) / 1_000_000));
             return Map.of("answer", "❌ 后端运行异常: " + e.getMessage());
         }
     }
@@ -1,6 +1,8 @@
 package suatgpt.backend.service;
 
 import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
@@ -8,9 +10,13 @@ import suatgpt.backend.model.TenantConfig;
 
 import java.util.Properties;
 
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
 @Service
 public class MailService {
 
+    private static final Logger log = LoggerFactory.getLogger(MailService.class);
+
     /**
      * 🚀 SaaS 动态发信引擎：物理穿透版
      * 核心逻辑：即时造机 -> 协议适配 -> 变量注入 -> 物理开火
@@ -80,10 +86,9 @@ public class MailService {
         // 6. 物理开火
         try {
             mailSender.send(message);
-            System.out.println("✅ [SaaS 发信成功] 租户: " + config.getTenantId() + " -> " + targetEmail);
+            log.info("✅ [SaaS 发信成功] 租户: {} -> {}", config.getTenantId(), targetEmail, kv("tenantId", config.getTenantId()));
         } catch (Exception e) {
-            System.err.println("🔥 [物理发信炸膛] 原因如下：");
-            e.printStackTrace();
+            log.error("🔥 [物理发信炸膛] 租户: {} -> {}", config.getTenantId(), targetEmail, kv("tenantId", config.getTenantId()), e);
             throw e;
         }
     }
@@ -0,0 +1,100 @@
+package suatgpt.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import suatgpt.backend.model.MentorMapping;
+import suatgpt.backend.repository.MentorMappingRepository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 学生-导师名单内存索引
+ * 名单很小且几乎不变：首次访问时整表加载，按学号 / 姓名 O(1) 查找；名单导入完成后整体替换快照。
+ * 未命中时回源数据库（走 student_id / student_name 索引）并补进快照。
+ */
+@Service
+public class MentorRosterCache {
+
+    private static final Logger log = LoggerFactory.getLogger(MentorRosterCache.class);
+
+    private final MentorMappingRepository mentorRepo;
+
+    // 不可变快照整体替换，读路径无锁
+    private volatile Snapshot snapshot;
+
+    public MentorRosterCache(MentorMappingRepository mentorRepo) {
+        this.mentorRepo = mentorRepo;
+    }
+
+    public Optional<MentorMapping> findByStudentId(String studentId) {
+        if (studentId == null) return Optional.empty();
+        String key = studentId.trim();
+        MentorMapping hit = current().byStudentId.get(key);
+        if (hit != null) return Optional.of(hit);
+
+        Optional<MentorMapping> cold = mentorRepo.findByStudentId(key);
+        cold.ifPresent(this::remember);
+        return cold;
+    }
+
+    public Optional<MentorMapping> findByStudentName(String studentName) {
+        if (studentName == null) return Optional.empty();
+        String key = studentName.trim();
+        MentorMapping hit = current().byStudentName.get(key);
+        if (hit != null) return Optional.of(hit);
+
+        Optional<MentorMapping> cold = mentorRepo.findFirstByStudentName(key);
+        cold.ifPresent(this::remember);
+        return cold;
+    }
+
+    /**
+     * 整表重新加载（名单导入完成后调用）
+     */
+    public synchronized void refresh() {
+        Snapshot next = new Snapshot();
+        for (MentorMapping m : mentorRepo.findAll()) {
+            next.put(m);
+        }
+        snapshot = next;
+        log.info("🔄 [名单索引] 已加载 {} 条学生-导师映射", next.byStudentId.size());
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            synchronized (this) {
+                if (snapshot == null) refresh();
+                s = snapshot;
+            }
+        }
+        return s;
+    }
+
+    private synchronized void remember(MentorMapping m) {
+        Snapshot next = current().copy();
+        next.put(m);
+        snapshot = next;
+    }
+
+    private static final class Snapshot {
+        final Map<String, MentorMapping> byStudentId = new HashMap<>();
+        final Map<String, MentorMapping> byStudentName = new HashMap<>();
+
+        void put(MentorMapping m) {
+            if (m.getStudentId() != null) byStudentId.put(m.getStudentId().trim(), m);
+            // 重名时保留先出现的一条，与旧版按姓名查询的行为一致
+            if (m.getStudentName() != null) byStudentName.putIfAbsent(m.getStudentName().trim(), m);
+        }
+
+        Snapshot copy() {
+            Snapshot s = new Snapshot();
+            s.byStudentId.putAll(byStudentId);
+            s.byStudentName.putAll(byStudentName);
+            return s;
+        }
+    }
+}
@@ -0,0 +1,462 @@
+package suatgpt.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * OpenClaw 智能体统一桥接
+ * 咨询、面试、周报审计共用这一个出口：负责拼装命令行、启动 agent 进程、解析输出。
+ * 每次调用先按调用方给的优先级向 {@link AiCapacityScheduler} 领名额，领到才启动进程。
+ * <p>
+ * 输出解析是单遍状态机：前导段跳过 CLI 自身打印的诊断行（Gateway / Config / 日志标签等），
+ * 进入正文后原样保留，仅合并多余空行。每行只看行首的一个标记，不再对整行做多次子串扫描。
+ * 开启 openclaw.agent.json-output 后改用 --json 结构化输出，直接取回复文本字段。
+ */
+@Service
+public class OpenClawAgentBridge {
+
+    private static final Logger log = LoggerFactory.getLogger(OpenClawAgentBridge.class);
+    // CLI 原始诊断行量大，单独成类以便抽样
+    private static final Logger agentOutput = LoggerFactory.getLogger("suatgpt.agent-output");
+
+    private static final boolean WINDOWS = System.getProperty("os.name").toLowerCase().contains("win");
+
+    // CLI 诊断输出的行首标记（"Gateway target: ..."、"Config: ..."、"ls: cannot access ..." 等）
+    private static final Set<String> NOISE_KEYS = Set.of("Gateway", "target", "Source", "Config", "Bind", "ls", "rm");
+    private static final String LOBSTER = "🦞";
+    private static final String NO_SUCH_FILE = "No such file";
+
+    private static final long KILL_GRACE_SECONDS = 5;
+    // 容器内 agent 进程的 pid 文件，终止时凭它进容器补刀
+    private static final String PID_FILE_PREFIX = "/tmp/openclaw-agent-";
+
+    // 调用失败时返回给前端的提示文案（沿用旧版措辞）
+    public static final String TIMEOUT_REPLY = "AI 响应超时，请稍后重试";
+    public static final String LOCAL_FAILURE_REPLY = "本地 AI 故障";
+    public static final String REMOTE_FAILURE_REPLY = "云端通讯故障";
+    public static final String BUSY_REPLY = "AI 通道繁忙，请稍后重试";
+    private static final Set<String> FAILURE_REPLIES = Set.of(TIMEOUT_REPLY, LOCAL_FAILURE_REPLY, REMOTE_FAILURE_REPLY, BUSY_REPLY);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ScheduledExecutorService watchdogScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "agent-watchdog");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AiMetrics metrics;
+    private final AiCapacityScheduler scheduler;
+
+    // 为空时按平台默认：Windows 直接调本机 openclaw，Linux 经 docker exec 进容器
+    @Value("${openclaw.agent.command:}")
+    private String command;
+
+    @Value("${openclaw.agent.agent-id:main}")
+    private String agentId;
+
+    @Value("${openclaw.agent.container:openclaw-aliyun}")
+    private String container;
+
+    @Value("${openclaw.agent.json-output:false}")
+    private boolean jsonOutput;
+
+    // 单次调用的最长时间，超过后终止进程
+    @Value("${openclaw.agent.timeout-seconds:300}")
+    private long timeoutSeconds;
+
+    // 宿主机上存放待审文件的目录；为空时按平台默认
+    @Value("${openclaw.workspace.host-dir:}")
+    private String hostDir;
+
+    // 同一目录在容器内的挂载路径
+    @Value("${openclaw.workspace.agent-dir:/root/.openclaw/workspace}")
+    private String agentDir;
+
+    public OpenClawAgentBridge(AiMetrics metrics, AiCapacityScheduler scheduler) {
+        this.metrics = metrics;
+        this.scheduler = scheduler;
+        FunctionCounter.builder("openclaw.agent.killed", timedOut, AtomicLong::get)
+                .description("被终止的 agent 进程数")
+                .tag("reason", "timeout")
+                .register(metrics.registry());
+        FunctionCounter.builder("openclaw.agent.killed", cancelled, AtomicLong::get)
+                .description("被终止的 agent 进程数")
+                .tag("reason", "cancelled")
+                .register(metrics.registry());
+    }
+
+    /**
+     * 是否为 {@link #call} 的故障提示（超时且无输出、进程启动失败、排队领不到名额），这类文本不能当作 AI 产出入库
+     */
+    public static boolean isFailureReply(String reply) {
+        return reply == null || reply.isBlank() || FAILURE_REPLIES.contains(reply.trim());
+    }
+
+    /**
+     * 调用智能体并返回清洗后的回复文本；失败时返回与旧版一致的故障提示
+     */
+    public String call(AiCapacityScheduler.Priority priority, String message) {
+        return call(priority, message, null);
+    }
+
+    /**
+     * 可取消的调用：cancelHook 用于登记“杀进程”动作（例如挂到 SSE 断开回调上），排队期间触发则直接出队。
+     * 超过 openclaw.agent.timeout-seconds 未结束的进程同样会被终止，已读到的部分照常返回。
+     */
+    public String call(AiCapacityScheduler.Priority priority, String message, Consumer<Runnable> cancelHook) {
+        AiCapacityScheduler.Permit permit;
+        try {
+            permit = scheduler.acquire(priority, cancelHook, null);
+        } catch (RuntimeException e) {
+            log.warn("agent 调用未领到名额: {}", e.getMessage(), kv("priority", priority.tag()));
+            return BUSY_REPLY;
+        }
+        try (permit) {
+            return run(message, cancelHook);
+        }
+    }
+
+    private String run(String message, Consumer<Runnable> cancelHook) {
+        boolean local = WINDOWS || isCustomCommand();
+        if (!local) releaseSessionLocks();
+        String pidFile = local ? null : PID_FILE_PREFIX + UUID.randomUUID() + ".pid";
+
+        Tags context = AiMetrics.context();
+        long start = System.nanoTime();
+        try {
+            Process process = new ProcessBuilder(buildCommand(message, pidFile))
+                    .redirectErrorStream(true)
+                    .start();
+            AtomicReference<String> killedBy = new AtomicReference<>();
+            ScheduledFuture<?> watchdog = watchdogScheduler.schedule(
+                    () -> terminate(process, pidFile, killedBy, "超时"), timeoutSeconds, TimeUnit.SECONDS);
+            if (cancelHook != null) cancelHook.accept(() -> terminate(process, pidFile, killedBy, "取消"));
+
+            String reply;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                reply = jsonOutput ? readJson(reader) : readText(reader);
+            } finally {
+                watchdog.cancel(false);
+            }
+            if (!process.waitFor(KILL_GRACE_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+
+            long elapsed = System.nanoTime() - start;
+            long cost = TimeUnit.NANOSECONDS.toMillis(elapsed);
+            String reason = killedBy.get();
+            metrics.agentProcess(elapsed, reason == null ? "ok" : "超时".equals(reason) ? "timeout" : "cancelled", context);
+            if (reason != null) {
+                log.warn("agent 进程因{}被终止，耗时 {} ms，已读到 {} 字符", reason, cost, reply.length(),
+                        kv("tenantId", AiMetrics.tenantOf(context)), kv("durationMs", cost));
+                if (reply.isEmpty() && "超时".equals(reason)) return TIMEOUT_REPLY;
+                return reply;
+            }
+            agentOutput.debug("📬 [AI 实况] agent 返回 {} 字符，耗时 {} ms", reply.length(), cost,
+                    kv("tenantId", AiMetrics.tenantOf(context)), kv("durationMs", cost));
+            return reply;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            metrics.agentProcess(System.nanoTime() - start, "error", context);
+            log.warn("{}调用 AI 失败: {}", local ? "本地物理机" : "云端容器", e.getMessage());
+            return local ? LOCAL_FAILURE_REPLY : REMOTE_FAILURE_REPLY;
+        }
+    }
+
+    /** 启动以来因超时被终止的 agent 进程数 */
+    public long timedOutCount() {
+        return timedOut.get();
+    }
+
+    /** 启动以来因调用方取消被终止的 agent 进程数 */
+    public long cancelledCount() {
+        return cancelled.get();
+    }
+
+    /**
+     * 先礼后兵：连同子进程一起 SIGTERM，宽限期后仍存活则强杀。
+     * docker exec 只是本机的客户端，杀掉它容器里那一轮 agent 还会接着跑，
+     * 所以容器模式下再按 pid 文件进容器发同样的信号。
+     */
+    private void terminate(Process process, String pidFile, AtomicReference<String> killedBy, String reason) {
+        if (!process.isAlive() || !killedBy.compareAndSet(null, reason)) return;
+        ("超时".equals(reason) ? timedOut : cancelled).incrementAndGet();
+        // 先记下子进程再终止父进程，避免父进程在子进程退出后继续往下执行
+        List<ProcessHandle> children = process.descendants().toList();
+        if (pidFile != null) signalInContainer(pidFile, "TERM");
+        process.destroy();
+        children.forEach(ProcessHandle::destroy);
+        watchdogScheduler.schedule(() -> {
+            if (process.isAlive()) process.destroyForcibly();
+            children.stream().filter(ProcessHandle::isAlive).forEach(ProcessHandle::destroyForcibly);
+            if (pidFile != null) signalInContainer(pidFile, "KILL");
+        }, KILL_GRACE_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 按 pid 文件给容器内的 agent 发信号；KILL 是最后一步，顺手删掉 pid 文件。
+     * 不等 docker exec 返回，免得拖住看门狗线程
+     */
+    private void signalInContainer(String pidFile, String signal) {
+        String script = "pid=$(cat \"$0\" 2>/dev/null) && kill -s \"$1\" \"$pid\" 2>/dev/null"
+                + ("KILL".equals(signal) ? "; rm -f \"$0\"" : "");
+        try {
+            new ProcessBuilder("docker", "exec", container, "sh", "-c", script, pidFile, signal)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+        } catch (IOException e) {
+            log.warn("容器内 agent 进程终止失败: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdogScheduler.shutdownNow();
+    }
+
+    /**
+     * 上传文件的落盘目录（不存在时创建）
+     */
+    public File workspaceDir() {
+        String path = hostDir != null && !hostDir.isBlank() ? hostDir.trim()
+                : (WINDOWS ? "D:/OpenClawTest" : "/www/wwwroot/suat_data");
+        File dir = new File(path);
+        if (!dir.exists() && !dir.mkdirs()) {
+            log.warn("⚠️ 警告：物理目录创建失败，可能会影响后续写盘: {}", path);
+        }
+        return dir;
+    }
+
+    /**
+     * 工作区文件在 agent 眼中的路径：本机运行时就是宿主机路径，容器运行时换成挂载路径
+     */
+    public String agentPath(String fileName) {
+        boolean local = WINDOWS || isCustomCommand();
+        return local ? workspaceDir().getPath().replace('\\', '/') + "/" + fileName : agentDir + "/" + fileName;
+    }
+
+    private boolean isCustomCommand() {
+        return command != null && !command.isBlank();
+    }
+
+    private List<String> buildCommand(String msg, String pidFile) {
+        List<String> cmd = new ArrayList<>();
+        if (isCustomCommand()) {
+            cmd.add(command.trim());
+        } else if (WINDOWS) {
+            // cmd.exe 会重新解析参数：换行会截断命令，引号需手动包一层
+            cmd.add("cmd");
+            cmd.add("/c");
+            cmd.add("openclaw");
+            msg = "\"" + msg.replace("\r", " ").replace("\n", " ").replace("\"", "\"\"") + "\"";
+        } else {
+            // 直接以 argv 传参，不再经 sh -c 拼接，引号与换行都原样保留（换行不再压成空格，提示词前缀逐轮稳定）。
+            // 外面包一层 sh 只为记下 pid：脚本是常量，pid 文件和 openclaw 的参数都走位置参数，exec 后 pid 不变
+            cmd.add("docker");
+            cmd.add("exec");
+            cmd.add(container);
+            cmd.add("sh");
+            cmd.add("-c");
+            cmd.add("echo $$ > \"$0\"; exec \"$@\"");
+            cmd.add(pidFile);
+            cmd.add("openclaw");
+        }
+        cmd.add("agent");
+        cmd.add("--agent");
+        cmd.add(agentId);
+        if (jsonOutput) cmd.add("--json");
+        cmd.add("--message");
+        cmd.add(msg);
+        return cmd;
+    }
+
+    /**
+     * 清理上一轮残留的会话锁，以及早已跑完的 agent 留下的 pid 文件；通配符需要在容器内展开
+     */
+    private void releaseSessionLocks() {
+        // 比超时再多等一会儿，保证不会删到还在跑的那一轮
+        long staleMinutes = TimeUnit.SECONDS.toMinutes(timeoutSeconds + KILL_GRACE_SECONDS) + 1;
+        try {
+            new ProcessBuilder("docker", "exec", container, "sh", "-c",
+                    "rm -f /root/.openclaw/agents/" + agentId + "/sessions/*.lock; "
+                            + "find /tmp -maxdepth 1 -name '" + PID_FILE_PREFIX.substring("/tmp/".length())
+                            + "*.pid' -mmin +" + staleMinutes + " -delete 2>/dev/null")
+                    .redirectErrorStream(true)
+                    .start()
+                    .waitFor();
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            log.debug("解锁会话失败 (可能本就没有锁): {}", e.getMessage());
+        }
+    }
+
+    // ==========================================
+    // 文本模式：单遍状态机
+    // ==========================================
+    private enum State { PREAMBLE, BODY, BODY_AFTER_BLANK }
+
+    String readText(BufferedReader reader) throws IOException {
+        StringBuilder result = new StringBuilder();
+        State state = State.PREAMBLE;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            boolean blank = line.isBlank();
+            // 诊断头只会出现在回复之前；回复开始后只剔除 agent 自己的日志标签，其余原样保留
+            if (!blank && (isLogTag(line) || state == State.PREAMBLE && isNoise(line))) {
+                agentOutput.debug("[agent] {}", line);
+                continue;
+            }
+            switch (state) {
+                case PREAMBLE -> {
+                    if (!blank) {
+                        result.append(line.strip());
+                        state = State.BODY;
+                    }
+                }
+                case BODY -> {
+                    if (blank) {
+                        state = State.BODY_AFTER_BLANK;
+                    } else {
+                        result.append('\n').append(line.stripTrailing());
+                    }
+                }
+                case BODY_AFTER_BLANK -> {
+                    // 连续空行只保留一个段落分隔；结尾的空行直接丢弃
+                    if (!blank) {
+                        result.append("\n\n").append(line.stripTrailing());
+                        state = State.BODY;
+                    }
+                }
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * 回复开始前的诊断输出：龙虾 banner、"Key:" 形式的诊断头、容器里 shell 的 "No such file" 报错
+     */
+    static boolean isNoise(String line) {
+        int i = 0;
+        int n = line.length();
+        while (i < n && Character.isWhitespace(line.charAt(i))) i++;
+        if (i == n) return false;
+        if (line.startsWith(LOBSTER, i)) return true;
+        if (line.contains(NO_SUCH_FILE)) return true;
+
+        int j = i;
+        while (j < n && Character.isLetter(line.charAt(j)) && j - i < 16) j++;
+        if (j == i || j == n) return false;
+        char sep = line.charAt(j);
+        if (sep != ':' && sep != ' ') return false;
+        return NOISE_KEYS.contains(line.substring(i, j));
+    }
+
+    /**
+     * agent 自己的日志标签，形如 [agent/embedded]、[tools/exec]：斜杠两边都是标识符。
+     * [1/3] 这类编号、Markdown 链接 [文字](url) 都不算
+     */
+    static boolean isLogTag(String line) {
+        int i = 0;
+        int n = line.length();
+        while (i < n && Character.isWhitespace(line.charAt(i))) i++;
+        if (i == n || line.charAt(i) != '[') return false;
+        int close = line.indexOf(']', i);
+        if (close < 0 || close + 1 < n && line.charAt(close + 1) == '(') return false;
+        int slash = line.indexOf('/', i);
+        if (slash < 0 || slash > close) return false;
+        return isTagWord(line, i + 1, slash) && isTagWord(line, slash + 1, close);
+    }
+
+    private static boolean isTagWord(String s, int from, int to) {
+        if (from >= to || !Character.isLetter(s.charAt(from))) return false;
+        for (int k = from; k < to; k++) {
+            char c = s.charAt(k);
+            if (!Character.isLetterOrDigit(c) && c != '-' && c != '_' && c != '.' && c != '/') return false;
+        }
+        return true;
+    }
+
+    // ==========================================
+    // 结构化模式：--json 输出
+    // ==========================================
+    private String readJson(BufferedReader reader) throws IOException {
+        StringBuilder raw = new StringBuilder();
+        StringBuilder text = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            raw.append(line).append('\n');
+            String t = line.strip();
+            if (!t.startsWith("{")) {
+                if (!t.isEmpty()) agentOutput.debug("[agent] {}", line);
+                continue;
+            }
+            // JSON Lines：每行一个事件对象
+            try {
+                appendReply(objectMapper.readTree(t), text);
+            } catch (Exception ignore) {
+                // 不是完整的单行 JSON（多行美化输出），交给下面整体解析
+            }
+        }
+        if (text.length() == 0) {
+            int begin = raw.indexOf("{");
+            if (begin >= 0) {
+                try {
+                    appendReply(objectMapper.readTree(raw.substring(begin)), text);
+                } catch (Exception e) {
+                    log.warn("agent JSON 输出解析失败，退回文本模式: {}", e.getMessage());
+                    return readText(new BufferedReader(new StringReader(raw.toString())));
+                }
+            }
+        }
+        return text.toString().trim();
+    }
+
+    private void appendReply(JsonNode node, StringBuilder out) {
+        JsonNode payloads = node.path("result").path("payloads");
+        if (!payloads.isArray()) payloads = node.path("payloads");
+        if (payloads.isArray()) {
+            for (JsonNode p : payloads) {
+                String t = p.path("text").asText("");
+                if (!t.isEmpty()) out.append(out.length() > 0 ? "\n\n" : "").append(t);
+            }
+            return;
+        }
+        for (String field : new String[]{"text", "content", "reply"}) {
+            JsonNode v = node.get(field);
+            if (v != null && v.isTextual()) {
+                out.append(v.asText());
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package suatgpt.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import org.apache.poi.common.usermodel.fonts.FontGroup;
+import org.apache.poi.sl.usermodel.Placeholder;
+import org.apache.poi.sl.usermodel.TableCell;
+import org.apache.poi.sl.usermodel.TextParagraph;
+import org.apache.poi.xslf.usermodel.XMLSlideShow;
+import org.apache.poi.xslf.usermodel.XSLFNotes;
+import org.apache.poi.xslf.usermodel.XSLFSlide;
+import org.apache.poi.xslf.usermodel.XSLFTable;
+import org.apache.poi.xslf.usermodel.XSLFTableCell;
+import org.apache.poi.xslf.usermodel.XSLFTableRow;
+import org.apache.poi.xslf.usermodel.XSLFTextBox;
+import org.apache.poi.xslf.usermodel.XSLFTextParagraph;
+import org.apache.poi.xslf.usermodel.XSLFTextRun;
+import org.apache.poi.xslf.usermodel.XSLFTextShape;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.geom.Rectangle2D;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 🚀 学员手册 PPTX 导出（进程内 XSLF 渲染）
+ * 直接把第 6 步产出的 JSON（slides + Marp markdown）排成 16:9 的 .pptx，
+ * 不落临时文件、不起 marp-cli / LibreOffice 进程。
+ * <p>
+ * 同一份内容渲染一次：按内容 SHA-256 做 LRU 缓存，缓存总量按字节封顶；哈希同时作为 ETag。
+ * 排版规则变了要改 {@link #RENDER_VERSION}，旧缓存自然失效。
+ */
+@Service
+public class PptxRenderService {
+
+    private static final Logger log = LoggerFactory.getLogger(PptxRenderService.class);
+
+    private static final String RENDER_VERSION = "xslf-1";
+    private static final String FONT = "Microsoft YaHei";
+    private static final Color THEME = new Color(0x6A, 0x1B, 0x9A); // 与前端 suat-theme 同色
+    private static final Color TEXT = new Color(0x33, 0x33, 0x33);
+    private static final Color MUTED = new Color(0x99, 0x99, 0x99);
+
+    private static final int WIDTH = 960;   // 13.33 英寸
+    private static final int HEIGHT = 540;  // 7.5 英寸
+    private static final int MARGIN = 48;
+
+    private static final Pattern HEADING = Pattern.compile("^(#{1,6})\\s+(.*)$");
+    private static final Pattern BULLET = Pattern.compile("^(\\s*)[-*+]\\s+(.*)$");
+    private static final Pattern NUMBERED = Pattern.compile("^(\\s*)(\\d+[.)])\\s+(.*)$");
+    private static final Pattern TABLE_RULE = Pattern.compile("^\\|?\\s*:?-{2,}:?\\s*(\\|\\s*:?-{2,}:?\\s*)*\\|?$");
+    private static final Pattern IMAGE = Pattern.compile("!\\[([^]]*)]\\([^)]*\\)");
+    private static final Pattern LINK = Pattern.compile("\\[([^]]+)]\\([^)]*\\)");
+    private static final Pattern HTML_COMMENT = Pattern.compile("<!--.*?-->", Pattern.DOTALL);
+    private static final Pattern FRONT_MATTER_LINE = Pattern.compile("^[A-Za-z_][\\w-]*\\s*:.*$");
+
+    private final AiMetrics metrics;
+    private final long cacheMaxBytes;
+    private long cachedBytes;
+
+    // access-order 的 LinkedHashMap 即 LRU；整体加锁，导出频率很低
+    private final LinkedHashMap<String, byte[]> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    public PptxRenderService(AiMetrics metrics, @Value("${course.pptx.cache-max-mb:64}") long cacheMaxMb) {
+        this.metrics = metrics;
+        this.cacheMaxBytes = cacheMaxMb * 1024 * 1024;
+    }
+
+    /**
+     * 渲染结果：内容哈希（可作 ETag）+ 文件字节
+     */
+    public record Deck(String hash, byte[] bytes) {}
+
+    /**
+     * 第 6 步 JSON → pptx；相同内容直接命中缓存
+     */
+    public Deck render(JsonNode step6) {
+        String markdown = step6.path("markdown").asText("");
+        JsonNode slides = step6.path("slides");
+        String hash = hashOf(step6);
+
+        byte[] bytes = cached(hash);
+        if (bytes != null) {
+            exports("hit");
+            return new Deck(hash, bytes);
+        }
+
+        long start = System.nanoTime();
+        try (XMLSlideShow ppt = new XMLSlideShow()) {
+            ppt.setPageSize(new Dimension(WIDTH, HEIGHT));
+            List<SlideContent> pages = parseMarkdown(markdown);
+            if (pages.isEmpty()) pages = fromSlides(slides);
+            if (pages.isEmpty()) throw new IllegalArgumentException("学员手册内容为空，无法导出");
+
+            for (int i = 0; i < pages.size(); i++) {
+                JsonNode meta = slides.isArray() && i < slides.size() ? slides.get(i) : null;
+                drawSlide(ppt, pages.get(i), meta, i + 1, pages.size());
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+            ppt.write(out);
+            bytes = out.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("PPT 渲染失败: " + e.getMessage(), e);
+        }
+        Timer.builder("course.pptx.render")
+                .description("学员手册 PPTX 渲染耗时")
+                .register(metrics.registry())
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        exports("miss");
+        put(hash, bytes);
+        log.info("📊 学员手册 PPTX 渲染完成：{} 字节，耗时 {} ms", bytes.length,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return new Deck(hash, bytes);
+    }
+
+    // ==========================================
+    // 1. 内容哈希与缓存
+    // ==========================================
+
+    /** 内容哈希，客户端带着同一 ETag 回来时不必渲染 */
+    public String hashOf(JsonNode step6) {
+        return contentHash(step6.path("markdown").asText(""), step6.path("slides"));
+    }
+
+    static String contentHash(String markdown, JsonNode slides) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(RENDER_VERSION.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(markdown.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(slides.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private synchronized byte[] cached(String hash) {
+        return cache.get(hash);
+    }
+
+    private synchronized void put(String hash, byte[] bytes) {
+        if (bytes.length > cacheMaxBytes || cache.containsKey(hash)) return;
+        cache.put(hash, bytes);
+        cachedBytes += bytes.length;
+        Iterator<Map.Entry<String, byte[]>> it = cache.entrySet().iterator();
+        while (cachedBytes > cacheMaxBytes && it.hasNext()) {
+            cachedBytes -= it.next().getValue().length;
+            it.remove();
+        }
+    }
+
+    private void exports(String cache) {
+        Counter.builder("course.pptx.exports")
+                .description("学员手册 PPTX 导出次数（是否命中缓存）")
+                .tag("cache", cache)
+                .register(metrics.registry())
+                .increment();
+    }
+
+    // ==========================================
+    // 2. Marp markdown → 页面结构
+    // ==========================================
+
+    /** 一页幻灯片：标题 + 正文块（段落 / 表格） */
+    static final class SlideContent {
+        String title;
+        final List<Block> blocks = new ArrayList<>();
+    }
+
+    /** 正文块：段落时 rows 为空；表格时 text 为空 */
+    record Block(String text, int level, Kind kind, List<List<String>> rows) {}
+
+    enum Kind { HEADING, BULLET, NUMBERED, QUOTE, TEXT, TABLE }
+
+    static List<SlideContent> parseMarkdown(String markdown) {
+        List<SlideContent> pages = new ArrayList<>();
+        if (markdown == null || markdown.isBlank()) return pages;
+
+        String source = HTML_COMMENT.matcher(markdown.replace("\r\n", "\n")).replaceAll("");
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        boolean inCode = false;
+        for (String line : source.split("\n", -1)) {
+            if (line.trim().startsWith("```")) inCode = !inCode;
+            if (!inCode && line.trim().equals("---")) {
+                chunks.add(current);
+                current = new ArrayList<>();
+            } else {
+                current.add(line);
+            }
+        }
+        chunks.add(current);
+
+        for (int i = 0; i < chunks.size(); i++) {
+            List<String> chunk = chunks.get(i);
+            // Marp 头部的 front matter（marp: true、theme: ...）不是幻灯片
+            if (i <= 1 && isFrontMatter(chunk)) continue;
+            SlideContent page = parsePage(chunk);
+            if (page != null) pages.add(page);
+        }
+        return pages;
+    }
+
+    private static boolean isFrontMatter(List<String> lines) {
+        boolean any = false;
+        for (String line : lines) {
+            if (line.isBlank()) continue;
+            if (!FRONT_MATTER_LINE.matcher(line.trim()).matches()) return false;
+            any = true;
+        }
+        return any;
+    }
+
+    private static SlideContent parsePage(List<String> lines) {
+        SlideContent page = new SlideContent();
+        List<List<String>> table = null;
+        for (String raw : lines) {
+            String line = raw.stripTrailing();
+            String trimmed = line.trim();
+
+            if (trimmed.startsWith("|")) {
+                if (TABLE_RULE.matcher(trimmed).matches()) continue;
+                if (table == null) table = new ArrayList<>();
+                table.add(splitRow(trimmed));
+                continue;
+            }
+            if (table != null) {
+                page.blocks.add(new Block(null, 0, Kind.TABLE, table));
+                table = null;
+            }
+            if (trimmed.isEmpty() || trimmed.startsWith("```")) continue;
+
+            Matcher m;
+            if ((m = HEADING.matcher(trimmed)).matches()) {
+                String text = inline(m.group(2));
+                if (page.title == null && page.blocks.isEmpty()) page.title = text;
+                else page.blocks.add(new Block(text, 0, Kind.HEADING, List.of()));
+            } else if ((m = BULLET.matcher(line)).matches()) {
+                page.blocks.add(new Block(inline(m.group(2)), indent(m.group(1)), Kind.BULLET, List.of()));
+            } else if ((m = NUMBERED.matcher(line)).matches()) {
+                page.blocks.add(new Block(m.group(2) + " " + inline(m.group(3)), indent(m.group(1)), Kind.NUMBERED, List.of()));
+            } else if (trimmed.startsWith(">")) {
+                page.blocks.add(new Block(inline(trimmed.replaceFirst("^>+\\s*", "")), 0, Kind.QUOTE, List.of()));
+            } else {
+                page.blocks.add(new Block(inline(trimmed), 0, Kind.TEXT, List.of()));
+            }
+        }
+        if (table != null) page.blocks.add(new Block(null, 0, Kind.TABLE, table));
+        return page.title == null && page.blocks.isEmpty() ? null : page;
+    }
+
+    private static List<String> splitRow(String row) {
+        String body = row.replaceAll("^\\|", "").replaceAll("\\|$", "");
+        List<String> cells = new ArrayList<>();
+        for (String cell : body.split("\\|", -1)) cells.add(inline(cell.trim()));
+        return cells;
+    }
+
+    private static int indent(String leading) {
+        return Math.min(leading.replace("\t", "    ").length() / 2, 4);
+    }
+
+    /** 去掉图片、链接语法与行内代码标记；粗体标记保留给排版时切 run */
+    private static String inline(String text) {
+        String s = IMAGE.matcher(text).replaceAll("[图] $1");
+        s = LINK.matcher(s).replaceAll("$1");
+        return s.replace("`", "").replace("__", "**");
+    }
+
+    /** 没有 markdown 源码时退回 slides 数组：标题 + 配图建议 */
+    private static List<SlideContent> fromSlides(JsonNode slides) {
+        List<SlideContent> pages = new ArrayList<>();
+        if (!slides.isArray()) return pages;
+        for (JsonNode s : slides) {
+            SlideContent page = new SlideContent();
+            page.title = s.path("title").asText("");
+            String visual = s.path("visual").asText("");
+            if (!visual.isBlank()) page.blocks.add(new Block("建议配图：" + visual, 0, Kind.QUOTE, List.of()));
+            pages.add(page);
+        }
+        return pages;
+    }
+
+    // ==========================================
+    // 3. XSLF 排版
+    // ==========================================
+
+    private void drawSlide(XMLSlideShow ppt, SlideContent page, JsonNode meta, int number, int total) {
+        XSLFSlide slide = ppt.createSlide();
+        int top = MARGIN;
+
+        if (page.title != null && !page.title.isBlank()) {
+            XSLFTextBox title = slide.createTextBox();
+            title.setAnchor(new Rectangle2D.Double(MARGIN, top, WIDTH - 2 * MARGIN, 64));
+            title.clearText();
+            XSLFTextParagraph p = title.addNewTextParagraph();
+            appendRuns(p, page.title, 28, THEME, true);
+            top += 80;
+        }
+
+        int bodyBottom = HEIGHT - MARGIN - 20;
+        List<Block> paragraphs = new ArrayList<>();
+        for (Block block : page.blocks) {
+            if (block.kind() == Kind.TABLE) {
+                top = drawParagraphs(slide, paragraphs, top, bodyBottom);
+                paragraphs.clear();
+                top = drawTable(slide, block.rows(), top, bodyBottom);
+            } else {
+                paragraphs.add(block);
+            }
+        }
+        drawParagraphs(slide, paragraphs, top, bodyBottom);
+
+        XSLFTextBox footer = slide.createTextBox();
+        footer.setAnchor(new Rectangle2D.Double(WIDTH - MARGIN - 120, HEIGHT - MARGIN, 120, 20));
+        footer.clearText();
+        XSLFTextParagraph fp = footer.addNewTextParagraph();
+        fp.setTextAlign(TextParagraph.TextAlign.RIGHT);
+        appendRuns(fp, number + " / " + total, 10, MUTED, false);
+
+        // 配图建议与时长写进备注，讲师放映时看得到，学员版面保持干净
+        if (meta != null) {
+            String visual = meta.path("visual").asText("");
+            String time = meta.path("time").asText("");
+            if (!visual.isBlank() || !time.isBlank()) {
+                XSLFNotes notes = ppt.getNotesSlide(slide);
+                for (XSLFTextShape shape : notes.getPlaceholders()) {
+                    if (shape.getTextType() == Placeholder.BODY) {
+                        shape.setText((visual.isBlank() ? "" : "建议配图：" + visual)
+                                + (time.isBlank() ? "" : (visual.isBlank() ? "" : "\n") + "建议时长：" + time + " 分钟"));
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private int drawParagraphs(XSLFSlide slide, List<Block> blocks, int top, int bottom) {
+        if (blocks.isEmpty() || top >= bottom) return top;
+        // 字号随行数收缩，尽量一页放下
+        double size = blocks.size() <= 6 ? 20 : blocks.size() <= 10 ? 16 : blocks.size() <= 14 ? 14 : 12;
+        XSLFTextBox body = slide.createTextBox();
+        body.setAnchor(new Rectangle2D.Double(MARGIN, top, WIDTH - 2 * MARGIN, bottom - top));
+        body.clearText();
+        body.setWordWrap(true);
+        for (Block block : blocks) {
+            XSLFTextParagraph p = body.addNewTextParagraph();
+            p.setSpaceBefore(size * 0.3);
+            switch (block.kind()) {
+                case BULLET -> {
+                    p.setBullet(true);
+                    p.setIndentLevel(block.level());
+                    p.setLeftMargin(24.0 + 24.0 * block.level());
+                    p.setIndent(-16.0);
+                    appendRuns(p, block.text(), size, TEXT, false);
+                }
+                case NUMBERED -> {
+                    p.setLeftMargin(8.0 + 24.0 * block.level());
+                    appendRuns(p, block.text(), size, TEXT, false);
+                }
+                case HEADING -> appendRuns(p, block.text(), size + 2, THEME, true);
+                case QUOTE -> {
+                    p.setLeftMargin(16.0);
+                    for (XSLFTextRun r : appendRuns(p, block.text(), size, MUTED, false)) r.setItalic(true);
+                }
+                default -> appendRuns(p, block.text(), size, TEXT, false);
+            }
+        }
+        double used = Math.min(bottom - top, blocks.size() * size * 1.6 + 10);
+        return (int) (top + used + 8);
+    }
+
+    private int drawTable(XSLFSlide slide, List<List<String>> rows, int top, int bottom) {
+        if (rows.isEmpty() || top >= bottom) return top;
+        int cols = rows.stream().mapToInt(List::size).max().orElse(1);
+        double size = rows.size() <= 6 ? 14 : 11;
+        double rowHeight = size * 2.2;
+        double colWidth = (WIDTH - 2.0 * MARGIN) / cols;
+
+        XSLFTable table = slide.createTable();
+        for (int r = 0; r < rows.size(); r++) {
+            XSLFTableRow row = table.addRow();
+            row.setHeight(rowHeight);
+            List<String> cells = rows.get(r);
+            for (int c = 0; c < cols; c++) {
+                XSLFTableCell cell = row.addCell();
+                cell.clearText();
+                XSLFTextParagraph p = cell.addNewTextParagraph();
+                boolean header = r == 0;
+                appendRuns(p, c < cells.size() ? cells.get(c) : "", size, header ? Color.WHITE : TEXT, header);
+                cell.setFillColor(header ? THEME : (r % 2 == 0 ? new Color(0xF6, 0xF1, 0xFA) : Color.WHITE));
+                cell.setBorderColor(TableCell.BorderEdge.bottom, new Color(0xDD, 0xDD, 0xDD));
+            }
+        }
+        for (int c = 0; c < cols; c++) table.setColumnWidth(c, colWidth);
+        double height = Math.min(bottom - top, rows.size() * rowHeight);
+        table.setAnchor(new Rectangle2D.Double(MARGIN, top, WIDTH - 2 * MARGIN, height));
+        return (int) (top + height + 12);
+    }
+
+    /** 按 ** 切分粗体 run，中西文字体都设为雅黑 */
+    private static List<XSLFTextRun> appendRuns(XSLFTextParagraph p, String text, double size, Color color, boolean bold) {
+        List<XSLFTextRun> runs = new ArrayList<>();
+        String[] parts = text.split("\\*\\*", -1);
+        for (int i = 0; i < parts.length; i++) {
+            if (parts[i].isEmpty()) continue;
+            XSLFTextRun r = p.addNewTextRun();
+            r.setText(parts[i]);
+            r.setFontSize(size);
+            r.setFontColor(color);
+            r.setBold(bold || i % 2 == 1);
+            r.setFontFamily(FONT, FontGroup.LATIN);
+            r.setFontFamily(FONT, FontGroup.EAST_ASIAN);
+            runs.add(r);
+        }
+        if (runs.isEmpty()) {
+            XSLFTextRun r = p.addNewTextRun();
+            r.setText("");
+            r.setFontSize(size);
+            runs.add(r);
+        }
+        return runs;
+    }
+}
@@ -0,0 +1,132 @@
+package suatgpt.backend.service;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import suatgpt.backend.repository.ConsultRecordRepository;
+import suatgpt.backend.repository.HomeworkRecordRepository;
+import suatgpt.backend.repository.InterviewRecordRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * 📤 批量导出：面试档案 / 咨询记录 / 周报
+ * 仓库层以 Stream 游标逐行读取（fetch size 500，按列投影，行不进持久化上下文），
+ * 写出端是 CSV 或 SXSSF，整个过程堆占用与行数无关。
+ * MySQL 需在连接串上开启 useCursorFetch=true，fetch size 才会变成服务端游标，否则驱动会整表读进内存。
+ */
+@Service
+public class RecordExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecordExportService.class);
+
+    public enum Format {
+        CSV("text/csv;charset=UTF-8", ".csv"),
+        XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", ".xlsx");
+
+        final String contentType;
+        final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public static Format of(String value) {
+            return "csv".equalsIgnoreCase(value) ? CSV : XLSX;
+        }
+    }
+
+    private final InterviewRecordRepository interviewRecordRepository;
+    private final ConsultRecordRepository consultRecordRepository;
+    private final HomeworkRecordRepository homeworkRecordRepository;
+
+    public RecordExportService(InterviewRecordRepository interviewRecordRepository, ConsultRecordRepository consultRecordRepository,
+                               HomeworkRecordRepository homeworkRecordRepository) {
+        this.interviewRecordRepository = interviewRecordRepository;
+        this.consultRecordRepository = consultRecordRepository;
+        this.homeworkRecordRepository = homeworkRecordRepository;
+    }
+
+    /**
+     * 写响应头并返回输出流；文件名带上导出日期
+     */
+    public OutputStream prepare(HttpServletResponse response, Format format, String baseName) throws IOException {
+        response.setContentType(format.contentType);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(baseName + "_" + LocalDate.now() + format.extension, StandardCharsets.UTF_8).build().toString());
+        return response.getOutputStream();
+    }
+
+    // ==========================================
+    // 1. 三类记录
+    // ==========================================
+
+    @Transactional(readOnly = true)
+    public long exportInterviews(String tenant, Long jobId, String status, Format format, OutputStream out) throws IOException {
+        List<String> header = List.of("档案ID", "租户", "岗位ID", "岗位", "候选人", "邮箱", "状态", "投递时间",
+                "简历评估", "笔试阅卷", "面试实录");
+        try (Stream<InterviewRecordRepository.ExportRow> rows = interviewRecordRepository.streamForExport(tenant, jobId, status)) {
+            return write("interviews", rows, format, out, "面试档案", header, r -> Arrays.asList(
+                    r.getId(), r.getTenantId(), r.getJobId(), r.getJobTitle(), r.getCandidateName(), r.getEmail(),
+                    r.getStatus(), r.getInterviewDate(), r.getResumeAnalysis(), r.getWrittenTestEvaluation(), r.getChatHistory()));
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long exportConsults(String tenant, String status, Format format, OutputStream out) throws IOException {
+        List<String> header = List.of("记录ID", "租户", "姓名", "邮箱", "状态", "提问轮数", "创建时间", "咨询报告", "对话记录");
+        try (Stream<ConsultRecordRepository.ExportRow> rows = consultRecordRepository.streamForExport(tenant, status)) {
+            return write("consults", rows, format, out, "咨询记录", header, r -> Arrays.asList(
+                    r.getId(), r.getTenantId(), r.getUserName(), r.getContactEmail(), r.getStatus(), r.getChatCount(),
+                    r.getCreatedAt(), r.getFinalReport(), r.getChatHistory()));
+        }
+    }
+
+    /**
+     * @param mentor 普通导师传本人姓名；总负责人传 null 或指定导师
+     */
+    @Transactional(readOnly = true)
+    public long exportHomework(String mentor, Integer week, String status, Format format, OutputStream out) throws IOException {
+        List<String> header = List.of("记录ID", "学号", "姓名", "导师", "周次", "状态", "评分", "提交时间", "AI 审计报告");
+        try (Stream<HomeworkRecordRepository.ExportRow> rows = homeworkRecordRepository.streamForExport(mentor, week, status)) {
+            return write("homework", rows, format, out, "周报", header, r -> Arrays.asList(
+                    r.getId(), r.getStudentId(), r.getStudentName(), r.getMentorName(), r.getWeekNumber(), r.getStatus(),
+                    r.getScore(), r.getSubmitTime(), r.getAiEvaluation()));
+        }
+    }
+
+    // ==========================================
+    // 2. 逐行写出
+    // ==========================================
+
+    private <T> long write(String kind, Stream<T> rows, Format format, OutputStream out, String sheetName,
+                           List<String> header, Function<T, List<?>> mapper) throws IOException {
+        long start = System.currentTimeMillis();
+        long count = 0;
+        try (TabularWriter writer = TabularWriter.open(format, out, sheetName, header)) {
+            Iterator<T> it = rows.iterator();
+            while (it.hasNext()) {
+                writer.row(mapper.apply(it.next()));
+                count++;
+            }
+        }
+        log.info("📤 导出 {} 完成：{} 行", kind, count, kv("format", format.name()), kv("rows", count),
+                kv("durationMs", System.currentTimeMillis() - start));
+        return count;
+    }
+}
@@ -0,0 +1,401 @@
+package suatgpt.backend.service;
+
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 学生-导师名单批量导入引擎
+ * CSV 逐行流式读取、XLSX 走 POI SAX 事件解析，按批次 JDBC upsert（以 student_id 唯一索引去重）。
+ * 上传的文件先落到临时文件再交给后台线程，整个过程不把文件整体读进内存；
+ * XLSX 按文件打开（按流打开时 POI 会把整个压缩包缓存在内存里）。
+ * 导入在后台单线程执行，进度可通过 jobId 查询，结束后保留 job-ttl-minutes 供前端取结果。
+ */
+@Service
+public class RosterImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(RosterImportService.class);
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MentorRosterCache rosterCache;
+    private final AiMetrics metrics;
+    private final ExecutorService importExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "roster-import");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Map<String, ImportProgress> jobs = new ConcurrentHashMap<>();
+    private volatile String upsertSql;
+
+    // 已结束的导入任务进度保留多久
+    @Value("${roster.import-job-ttl-minutes:60}")
+    private long jobTtlMinutes;
+
+    public RosterImportService(JdbcTemplate jdbcTemplate, MentorRosterCache rosterCache, AiMetrics metrics) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rosterCache = rosterCache;
+        this.metrics = metrics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        importExecutor.shutdownNow();
+    }
+
+    /**
+     * 提交一个上传文件的后台导入任务：先把上传内容转存到临时文件，导入结束后删除
+     *
+     * @param charset CSV 编码，教务导出的表格通常是 GBK；为空时按 UTF-8 处理
+     */
+    public ImportProgress submit(MultipartFile file, String charset) throws IOException {
+        Path spooled = Files.createTempFile("roster-import-", ".tmp");
+        try {
+            file.transferTo(spooled);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+        return submit(file.getOriginalFilename(), new FileSystemResource(spooled), charset, spooled);
+    }
+
+    /**
+     * 提交一个后台导入任务
+     *
+     * @param fileName 原始文件名（用于判断 CSV / XLSX）
+     * @param source   名单文件，在后台线程上按流读取
+     * @param charset  CSV 编码，教务导出的表格通常是 GBK；为空时按 UTF-8 处理
+     */
+    public ImportProgress submit(String fileName, Resource source, String charset) {
+        return submit(fileName, source, charset, null);
+    }
+
+    private ImportProgress submit(String fileName, Resource source, String charset, Path spooled) {
+        ImportProgress progress = new ImportProgress(UUID.randomUUID().toString(), fileName);
+        jobs.put(progress.getJobId(), progress);
+        Tags context = AiMetrics.context();
+        long submitted = System.nanoTime();
+        importExecutor.submit(() -> {
+            metrics.queueWait("roster-import", System.nanoTime() - submitted, context);
+            try {
+                run(progress, source, charset);
+            } finally {
+                deleteQuietly(spooled);
+            }
+        });
+        return progress;
+    }
+
+    public Optional<ImportProgress> getProgress(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * 清理结束超过 TTL 的任务进度；进行中的任务不受影响
+     */
+    @Scheduled(fixedRate = 600000, initialDelay = 600000)
+    public void evictFinishedJobs() {
+        LocalDateTime deadline = LocalDateTime.now().minusMinutes(jobTtlMinutes);
+        jobs.values().removeIf(p -> p.getFinishedAt() != null && p.getFinishedAt().isBefore(deadline));
+    }
+
+    private void run(ImportProgress progress, Resource source, String charset) {
+        long start = System.currentTimeMillis();
+        try {
+            BatchWriter writer = new BatchWriter(progress);
+            String name = progress.getFileName() != null ? progress.getFileName().toLowerCase() : "";
+            if (name.endsWith(".xlsx")) {
+                readXlsx(source, writer);
+            } else {
+                Charset cs = (charset == null || charset.isBlank()) ? StandardCharsets.UTF_8 : Charset.forName(charset);
+                try (InputStream in = source.getInputStream()) {
+                    readCsv(in, cs, writer);
+                }
+            }
+            writer.flush();
+            // 🚀 名单变了，内存索引整体换新
+            rosterCache.refresh();
+            progress.finish("DONE", null);
+            log.info("✅ [名单导入] {} 完成：读取 {} 行，写入 {} 行，跳过 {} 行，耗时 {} ms",
+                    progress.getFileName(), progress.getRowsRead(), progress.getRowsWritten(),
+                    progress.getRowsSkipped(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            progress.finish("FAILED", e.getMessage());
+            log.error("❌ [名单导入] {} 失败", progress.getFileName(), e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) return;
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("临时文件删除失败: {}", path);
+        }
+    }
+
+    // ==========================================
+    // 1. CSV：逐行读取，兼容 BOM 与老式 \r 换行
+    // ==========================================
+    private void readCsv(InputStream in, Charset charset, BatchWriter writer) throws Exception {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, charset))) {
+            String line;
+            boolean first = true;
+            while ((line = reader.readLine()) != null) {
+                if (first && line.startsWith("\uFEFF")) line = line.substring(1);
+                first = false;
+                if (line.isBlank()) continue;
+                writer.acceptRaw(splitCsvLine(line));
+            }
+        }
+    }
+
+    static List<String> splitCsvLine(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') { cur.append('"'); i++; }
+                    else quoted = false;
+                } else {
+                    cur.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cur.toString());
+                cur.setLength(0);
+            } else {
+                cur.append(c);
+            }
+        }
+        cells.add(cur.toString());
+        return cells;
+    }
+
+    // ==========================================
+    // 2. XLSX：POI SAX 事件模型，只读第一个 sheet，内存占用与行数无关
+    // ==========================================
+    private void readXlsx(Resource source, BatchWriter writer) throws Exception {
+        // 类路径里（jar 内）的名单不是文件，先转存一份
+        Path copied = null;
+        File file;
+        if (source.isFile()) {
+            file = source.getFile();
+        } else {
+            copied = Files.createTempFile("roster-import-", ".xlsx");
+            try (InputStream in = source.getInputStream()) {
+                Files.copy(in, copied, StandardCopyOption.REPLACE_EXISTING);
+            }
+            file = copied.toFile();
+        }
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader xssfReader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = xssfReader.getStylesTable();
+            Iterator<InputStream> sheets = xssfReader.getSheetsData();
+            if (!sheets.hasNext()) return;
+
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings,
+                        new SheetRowCollector(cells -> {
+                            if (cells.stream().allMatch(String::isBlank)) return;
+                            writer.acceptRaw(cells);
+                        }), new DataFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            }
+        } finally {
+            deleteQuietly(copied);
+        }
+    }
+
+    /**
+     * 把 SAX 回调的单元格拼回整行
+     */
+    private static final class SheetRowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final Consumer<List<String>> rowConsumer;
+        private final List<String> cells = new ArrayList<>();
+
+        SheetRowCollector(Consumer<List<String>> rowConsumer) {
+            this.rowConsumer = rowConsumer;
+        }
+
+        @Override
+        public void startRow(int rowNum) { cells.clear(); }
+
+        @Override
+        public void endRow(int rowNum) { rowConsumer.accept(new ArrayList<>(cells)); }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int col = cellReference != null ? new CellReference(cellReference).getCol() : cells.size();
+            while (cells.size() < col) cells.add("");
+            cells.add(formattedValue != null ? formattedValue : "");
+        }
+    }
+
+    // ==========================================
+    // 3. 表头识别：支持教务原始表格（序号,姓名,学号,...,导师,学院）与简表（学号,姓名,导师,学院）
+    // ==========================================
+    private static final class HeaderMapping {
+        int studentId = 0, studentName = 1, mentorName = 2, college = 3;
+        boolean fromHeader;
+
+        static HeaderMapping detect(List<String> firstRow) {
+            HeaderMapping m = new HeaderMapping();
+            Map<String, Integer> idx = new HashMap<>();
+            for (int i = 0; i < firstRow.size(); i++) {
+                String h = firstRow.get(i).trim();
+                if (h.equals("学号") || h.equalsIgnoreCase("studentId")) idx.putIfAbsent("id", i);
+                else if (h.equals("姓名") || h.equalsIgnoreCase("studentName")) idx.putIfAbsent("name", i);
+                else if (h.contains("导师") || h.equalsIgnoreCase("mentorName")) idx.putIfAbsent("mentor", i);
+                else if (h.contains("学院") || h.equalsIgnoreCase("college")) idx.putIfAbsent("college", i);
+            }
+            if (idx.containsKey("id") && idx.containsKey("name")) {
+                m.fromHeader = true;
+                m.studentId = idx.get("id");
+                m.studentName = idx.get("name");
+                m.mentorName = idx.getOrDefault("mentor", -1);
+                m.college = idx.getOrDefault("college", -1);
+            }
+            return m;
+        }
+
+        String[] toRow(List<String> cells) {
+            return new String[]{cell(cells, studentId), cell(cells, studentName), cell(cells, mentorName), cell(cells, college)};
+        }
+
+        private static String cell(List<String> cells, int i) {
+            return (i >= 0 && i < cells.size()) ? cells.get(i).trim() : "";
+        }
+    }
+
+    // ==========================================
+    // 4. 批量落库：JDBC batch upsert，一批一个往返
+    // ==========================================
+    private final class BatchWriter {
+        private final ImportProgress progress;
+        private final List<Object[]> buffer = new ArrayList<>(BATCH_SIZE);
+        private HeaderMapping mapping;
+
+        BatchWriter(ImportProgress progress) {
+            this.progress = progress;
+        }
+
+        void acceptRaw(List<String> cells) {
+            if (mapping == null) {
+                mapping = HeaderMapping.detect(cells);
+                if (mapping.fromHeader) return;
+            }
+            accept(mapping.toRow(cells));
+        }
+
+        void accept(String[] row) {
+            progress.rowsRead.incrementAndGet();
+            // row: 学号, 姓名, 导师, 学院
+            if (row[0].isEmpty() || row[1].isEmpty()) {
+                progress.rowsSkipped.incrementAndGet();
+                return;
+            }
+            buffer.add(new Object[]{row[0], row[1], row[2], row[3]});
+            if (buffer.size() >= BATCH_SIZE) flush();
+        }
+
+        void flush() {
+            if (buffer.isEmpty()) return;
+            jdbcTemplate.batchUpdate(upsertSql(), buffer);
+            progress.rowsWritten.addAndGet(buffer.size());
+            buffer.clear();
+        }
+    }
+
+    private String upsertSql() {
+        if (upsertSql == null) {
+            String product = jdbcTemplate.execute((Connection c) -> c.getMetaData().getDatabaseProductName());
+            upsertSql = (product != null && product.toLowerCase().contains("h2"))
+                    ? "MERGE INTO mentor_mapping (student_id, student_name, mentor_name, college) KEY (student_id) VALUES (?, ?, ?, ?)"
+                    : "INSERT INTO mentor_mapping (student_id, student_name, mentor_name, college) VALUES (?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE student_name = VALUES(student_name), mentor_name = VALUES(mentor_name), college = VALUES(college)";
+        }
+        return upsertSql;
+    }
+
+    /**
+     * 导入进度快照（Jackson 直接序列化给前端）
+     */
+    public static class ImportProgress {
+        private final String jobId;
+        private final String fileName;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicInteger rowsRead = new AtomicInteger();
+        private final AtomicInteger rowsWritten = new AtomicInteger();
+        private final AtomicInteger rowsSkipped = new AtomicInteger();
+        private volatile String status = "RUNNING"; // RUNNING, DONE, FAILED
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+
+        ImportProgress(String jobId, String fileName) {
+            this.jobId = jobId;
+            this.fileName = fileName;
+        }
+
+        void finish(String status, String error) {
+            this.status = status;
+            this.error = error;
+            this.finishedAt = LocalDateTime.now();
+        }
+
+        public String getJobId() { return jobId; }
+        public String getFileName() { return fileName; }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public int getRowsRead() { return rowsRead.get(); }
+        public int getRowsWritten() { return rowsWritten.get(); }
+        public int getRowsSkipped() { return rowsSkipped.get(); }
+        public String getStatus() { return status; }
+        public String getError() { return error; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+    }
+}
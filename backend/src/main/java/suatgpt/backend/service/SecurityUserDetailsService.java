@@ -1,12 +1,16 @@
 package suatgpt.backend.service;
 
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import suatgpt.backend.config.UserPrincipal;
 import suatgpt.backend.model.User;
 import suatgpt.backend.repository.UserRepository;
 
+import java.util.List;
+
 /**
  * 安全用户详情服务
  * 实现 Spring Security 的 UserDetailsService 接口，用于从数据库加载用户认证信息。
@@ -43,16 +47,9 @@ public class SecurityUserDetailsService implements UserDetailsService {
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
         // 2. 将自定义的 User 实体转换为 Spring Security 要求的 UserDetails 对象
-        // 使用 Spring Security 提供的 User.builder() 来创建 UserDetails 实例
-        return org.springframework.security.core.userdetails.User
-                .builder()
-                // 设置用户名
-                .username(user.getUsername())
-                // 设置加密后的密码。Spring Security 会使用 PasswordEncoder 与用户输入的密码进行比较。
-                .password(user.getPassword())
-                // 设置用户角色/权限。如果 user.getRole() 返回 "USER"，则权限为 "ROLE_USER"。
-                .roles(user.getRole())
-                // 构建最终的 UserDetails 对象
-                .build();
+        // 带上用户 ID：控制器用 @AuthenticationPrincipal UserPrincipal 直接拿到，不必再按用户名查一次库
+        // 用户角色/权限：如果 user.getRole() 返回 "USER"，则权限为 "ROLE_USER"。
+        return new UserPrincipal(user.getId(), user.getUsername(), user.getPassword(),
+                List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole())));
     }
 }
\ No newline at end of file
@@ -0,0 +1,197 @@
+package suatgpt.backend.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SSE 生命周期看护
+ * 把 SseEmitter 的 onCompletion / onTimeout / onError 与定时 keepalive 注释统一成一个“取消信号”，
+ * 上游 HTTP 流、agent 进程等资源通过 {@link Handle#onCancel} 挂上去，客户端一断开就一起释放。
+ */
+@Component
+public class SseStreamSupervisor {
+
+    private static final Logger log = LoggerFactory.getLogger(SseStreamSupervisor.class);
+
+    private final ScheduledExecutorService keepaliveScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "sse-keepalive");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong cancelled = new AtomicLong();
+
+    // 代理 / 负载均衡的空闲超时通常在 60 秒上下，15 秒一次足够探测死连接
+    @Value("${sse.keepalive-seconds:15}")
+    private long keepaliveSeconds;
+
+    public SseStreamSupervisor(MeterRegistry registry) {
+        Gauge.builder("sse.emitters.inflight", inFlight, AtomicInteger::get)
+                .description("仍在推送中的 SSE 连接数")
+                .register(registry);
+        FunctionCounter.builder("sse.streams.cancelled", cancelled, AtomicLong::get)
+                .description("被客户端中途断开的 SSE 流")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        keepaliveScheduler.shutdownNow();
+    }
+
+    /**
+     * 开始看护一个 emitter；endpoint 仅用于日志
+     */
+    public Handle watch(SseEmitter emitter, String endpoint) {
+        Handle handle = new Handle(emitter, endpoint);
+        inFlight.incrementAndGet();
+        emitter.onCompletion(() -> handle.finish("连接关闭"));
+        emitter.onTimeout(() -> handle.finish("超时"));
+        emitter.onError(e -> handle.finish("连接异常: " + e.getMessage()));
+        handle.keepalive = keepaliveScheduler.scheduleAtFixedRate(handle::ping, keepaliveSeconds, keepaliveSeconds, TimeUnit.SECONDS);
+        return handle;
+    }
+
+    /** 当前仍在推送中的 SSE 连接数 */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /** 启动以来被客户端中途取消的流数量 */
+    public long cancelledCount() {
+        return cancelled.get();
+    }
+
+    public final class Handle {
+        private final SseEmitter emitter;
+        private final String endpoint;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private final AtomicBoolean cancelledFlag = new AtomicBoolean();
+        private final List<Runnable> cancelActions = new CopyOnWriteArrayList<>();
+        private volatile ScheduledFuture<?> keepalive;
+
+        private Handle(SseEmitter emitter, String endpoint) {
+            this.emitter = emitter;
+            this.endpoint = endpoint;
+        }
+
+        public boolean isCancelled() {
+            return cancelledFlag.get();
+        }
+
+        /**
+         * 登记取消时要执行的释放动作；已取消则立即执行
+         */
+        public void onCancel(Runnable action) {
+            cancelActions.add(action);
+            if (cancelledFlag.get() && cancelActions.remove(action)) runQuietly(action);
+        }
+
+        /**
+         * 推送一段数据；写失败说明客户端已断开，转为取消并返回 false
+         */
+        public boolean send(String data) {
+            if (done.get()) return false;
+            try {
+                emitter.send(data);
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                cancel("推送失败: " + e.getMessage());
+                return false;
+            }
+        }
+
+        /**
+         * 推送一个具名事件（如排队名次），不混进正文；写失败同样转为取消
+         */
+        public boolean sendEvent(String name, Object data) {
+            if (done.get()) return false;
+            try {
+                emitter.send(SseEmitter.event().name(name).data(data));
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                cancel("推送失败: " + e.getMessage());
+                return false;
+            }
+        }
+
+        /** 正常结束 */
+        public void complete() {
+            if (done.compareAndSet(false, true)) {
+                release();
+                emitter.complete();
+            }
+        }
+
+        public void completeWithError(Throwable t) {
+            if (done.compareAndSet(false, true)) {
+                release();
+                emitter.completeWithError(t);
+            }
+        }
+
+        private void ping() {
+            if (done.get()) return;
+            try {
+                emitter.send(SseEmitter.event().comment("keepalive"));
+            } catch (IOException | IllegalStateException e) {
+                cancel("keepalive 失败");
+            }
+        }
+
+        // emitter 回调：我们自己 complete 过的连接不算取消
+        private void finish(String reason) {
+            if (done.get()) return;
+            cancel(reason);
+        }
+
+        private void cancel(String reason) {
+            if (!done.compareAndSet(false, true)) return;
+            cancelledFlag.set(true);
+            cancelled.incrementAndGet();
+            log.info("✂️ [SSE] {} 客户端已断开（{}），释放上游资源", endpoint, reason);
+            release();
+            for (Runnable action : cancelActions) {
+                if (cancelActions.remove(action)) runQuietly(action);
+            }
+            try {
+                emitter.complete();
+            } catch (Exception ignore) {
+                // 连接已不可用
+            }
+        }
+
+        private void release() {
+            ScheduledFuture<?> k = keepalive;
+            if (k != null) k.cancel(false);
+            inFlight.decrementAndGet();
+        }
+
+        private void runQuietly(Runnable action) {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.debug("取消动作执行失败: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package suatgpt.backend.service;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 导出用的逐行写出器：CSV 直接写响应流；XLSX 走 SXSSF，内存里只保留最近一个窗口的行，
+ * 其余行压缩后暂存磁盘，写完即清理。两种格式都不会把整张表留在堆上。
+ */
+interface TabularWriter extends Closeable {
+
+    void row(List<?> cells) throws IOException;
+
+    static TabularWriter open(RecordExportService.Format format, OutputStream out, String sheetName, List<String> header)
+            throws IOException {
+        TabularWriter writer = format == RecordExportService.Format.XLSX
+                ? new Xlsx(out, sheetName) : new Csv(out);
+        writer.row(header);
+        return writer;
+    }
+
+    /**
+     * RFC 4180 CSV，带 UTF-8 BOM 以便 Excel 直接识别中文
+     */
+    final class Csv implements TabularWriter {
+        private static final int FLUSH_EVERY = 1000;
+
+        private final Writer writer;
+        private long rows;
+
+        Csv(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            writer.write('\uFEFF');
+        }
+
+        @Override
+        public void row(List<?> cells) throws IOException {
+            for (int i = 0; i < cells.size(); i++) {
+                if (i > 0) writer.write(',');
+                writer.write(escape(cells.get(i)));
+            }
+            writer.write("\r\n");
+            // 定期推给客户端，浏览器能尽早开始下载
+            if (++rows % FLUSH_EVERY == 0) writer.flush();
+        }
+
+        private static String escape(Object value) {
+            if (value == null) return "";
+            String s = value.toString();
+            if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) return s;
+            return '"' + s.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+
+    final class Xlsx implements TabularWriter {
+        // 内存中保留的行数；更早的行落到压缩临时文件
+        private static final int WINDOW = 100;
+        // Excel 单元格上限
+        private static final int MAX_CELL_CHARS = 32767;
+
+        private final OutputStream out;
+        private final SXSSFWorkbook workbook = new SXSSFWorkbook(WINDOW);
+        private final SXSSFSheet sheet;
+        private final CellStyle headerStyle;
+        private final CellStyle dateStyle;
+        private int rowIndex;
+
+        Xlsx(OutputStream out, String sheetName) {
+            this.out = out;
+            workbook.setCompressTempFiles(true);
+            sheet = workbook.createSheet(sheetName);
+            sheet.createFreezePane(0, 1);
+
+            Font bold = workbook.createFont();
+            bold.setBold(true);
+            headerStyle = workbook.createCellStyle();
+            headerStyle.setFont(bold);
+            dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd hh:mm"));
+        }
+
+        @Override
+        public void row(List<?> cells) {
+            Row row = sheet.createRow(rowIndex);
+            for (int i = 0; i < cells.size(); i++) {
+                Cell cell = row.createCell(i);
+                Object v = cells.get(i);
+                if (v == null) continue;
+                if (v instanceof Number n) {
+                    cell.setCellValue(n.doubleValue());
+                } else if (v instanceof LocalDateTime t) {
+                    cell.setCellValue(t);
+                    cell.setCellStyle(dateStyle);
+                } else if (v instanceof Date d) {
+                    cell.setCellValue(LocalDateTime.ofInstant(d.toInstant(), ZoneId.systemDefault()));
+                    cell.setCellStyle(dateStyle);
+                } else {
+                    String s = v.toString();
+                    cell.setCellValue(s.length() > MAX_CELL_CHARS ? s.substring(0, MAX_CELL_CHARS) : s);
+                }
+                if (rowIndex == 0) cell.setCellStyle(headerStyle);
+            }
+            rowIndex++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                workbook.write(out);
+                out.flush();
+            } finally {
+                workbook.dispose();
+                workbook.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package suatgpt.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import suatgpt.backend.model.CompressedTextConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * 🗜️ 存量大文本在线压缩
+ * V5 只改了列类型，改之前写入的行仍是未压缩的 UTF-8。这里按主键分批扫出这些行，压缩后写回，
+ * 每批之间停顿一下，不和线上请求抢库。
+ * <ul>
+ *   <li>只挑“够长且没有压缩头”的行，和 {@link CompressedTextConverter} 的写入规则一致，跑完一遍即收敛；</li>
+ *   <li>写回带条件：行仍未压缩且长度没变才覆盖。应用自己写的值一定带压缩头，滚动发布期间旧实例追加的实录长度会变，
+ *       两种情况都跳过，不会用旧内容盖掉新内容；</li>
+ *   <li>周期执行，滚动发布期间旧实例写进来的未压缩行下一轮会被补上。</li>
+ * </ul>
+ */
+@Service
+public class TextCompressionBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(TextCompressionBackfill.class);
+
+    /** 与实体上标了 {@code @Convert(converter = CompressedTextConverter.class)} 的列一一对应 */
+    private static final List<Target> TARGETS = List.of(
+            new Target("interview_records", "resume_analysis"),
+            new Target("interview_records", "chat_history"),
+            new Target("consult_records", "final_report"),
+            new Target("homework_record", "ai_evaluation"),
+            new Target("chat_messages", "content"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AiMetrics metrics;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${text-compression.backfill.enabled:true}")
+    private boolean enabled;
+
+    @Value("${text-compression.backfill.batch-size:200}")
+    private int batchSize;
+
+    // 每批写完后停顿多久
+    @Value("${text-compression.backfill.pause-ms:200}")
+    private long pauseMs;
+
+    public TextCompressionBackfill(JdbcTemplate jdbcTemplate, AiMetrics metrics) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.metrics = metrics;
+    }
+
+    @Scheduled(fixedDelay = 3600000, initialDelay = 180000)
+    public void backfill() {
+        if (!enabled || !running.compareAndSet(false, true)) return;
+        try {
+            for (Target target : TARGETS) {
+                if (!backfill(target)) return;
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * @return false 表示线程被中断（进程正在退出），后面的表不再处理
+     */
+    private boolean backfill(Target target) {
+        String column = target.column();
+        String legacy = column + " IS NOT NULL AND OCTET_LENGTH(" + column + ") >= ? AND SUBSTRING(" + column + ", 1, 1) <> X'FF'";
+        String select = "SELECT id, " + column + " FROM " + target.table() + " WHERE id > ? AND " + legacy + " ORDER BY id LIMIT ?";
+        String update = "UPDATE " + target.table() + " SET " + column + " = ? WHERE id = ? AND OCTET_LENGTH(" + column + ") = ? " +
+                "AND SUBSTRING(" + column + ", 1, 1) <> X'FF'";
+        Counter counter = Counter.builder("storage.compression.backfill.rows")
+                .description("后台压缩改写的存量行数")
+                .tag("table", target.table())
+                .tag("column", column)
+                .register(metrics.registry());
+
+        long start = System.currentTimeMillis();
+        long cursor = 0;
+        long rows = 0;
+        long rawBytes = 0;
+        long compressedBytes = 0;
+        while (true) {
+            List<Row> batch = jdbcTemplate.query(select, (rs, i) -> new Row(rs.getLong(1), rs.getBytes(2)),
+                    cursor, CompressedTextConverter.MIN_COMPRESS_BYTES, batchSize);
+            if (batch.isEmpty()) break;
+
+            List<Object[]> args = new ArrayList<>(batch.size());
+            for (Row row : batch) {
+                byte[] compressed = CompressedTextConverter.compress(new String(row.data(), StandardCharsets.UTF_8));
+                args.add(new Object[]{compressed, row.id(), row.data().length});
+                rawBytes += row.data().length;
+                compressedBytes += compressed.length;
+            }
+            int written = 0;
+            for (int n : jdbcTemplate.batchUpdate(update, args)) {
+                // rewriteBatchedStatements 合并后驱动只回 SUCCESS_NO_INFO
+                if (n > 0 || n == Statement.SUCCESS_NO_INFO) written++;
+            }
+            rows += written;
+            counter.increment(written);
+            cursor = batch.get(batch.size() - 1).id();
+            if (batch.size() < batchSize) break;
+
+            try {
+                Thread.sleep(pauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        if (rows > 0) {
+            log.info("🗜️ {}.{} 存量压缩 {} 行，{} -> {} 字节", target.table(), column, rows, rawBytes, compressedBytes,
+                    kv("table", target.table()), kv("column", column), kv("rows", rows),
+                    kv("durationMs", System.currentTimeMillis() - start));
+        }
+        return true;
+    }
+
+    private record Target(String table, String column) {}
+
+    private record Row(long id, byte[] data) {}
+}
@@ -1,5 +1,7 @@
 package suatgpt.backend.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -14,17 +16,21 @@ import java.time.LocalDateTime;
 
 @Service
 public class UserService {
+    private static final Logger log = LoggerFactory.getLogger(UserService.class);
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtUtils jwtUtils;
+    private final HeartbeatService heartbeatService;
 
     public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
-                       AuthenticationManager authenticationManager, JwtUtils jwtUtils) {
+                       AuthenticationManager authenticationManager, JwtUtils jwtUtils,
+                       HeartbeatService heartbeatService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
         this.jwtUtils = jwtUtils;
+        this.heartbeatService = heartbeatService;
     }
 
     @Transactional
@@ -56,7 +62,7 @@ public class UserService {
             newUser.setRole("CANDIDATE");
         }
 
-        System.out.println("🆕 [用户注册] 账号: " + trimmedName + " -> 物理权限分配: " + newUser.getRole());
+        log.info("🆕 [用户注册] 账号: {} -> 物理权限分配: {}", trimmedName, newUser.getRole());
         return userRepository.save(newUser);
     }
 
@@ -70,11 +76,17 @@ public class UserService {
                 new UsernamePasswordAuthenticationToken(username, password)
         );
 
-        userRepository.findByUsername(username).ifPresent(u -> {
-            u.setLastHeartbeat(LocalDateTime.now());
-            userRepository.save(u);
-        });
+        // 🚀 心跳只记内存，由 HeartbeatService 批量刷盘，不再整实体 save
+        userRepository.findByUsername(username).ifPresent(this::touchHeartbeat);
 
         return jwtUtils.generateToken((UserDetails) auth.getPrincipal());
     }
+
+    /**
+     * 记录一次心跳：候选人且处于 ACTIVE 时进入超时计时
+     */
+    public void touchHeartbeat(User user) {
+        boolean candidate = "CANDIDATE".equals(user.getRole()) && "ACTIVE".equals(user.getStatus());
+        heartbeatService.touch(user.getUsername(), candidate);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,295 @@
+package suatgpt.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import suatgpt.backend.config.InterviewPromptRegistry;
+import suatgpt.backend.model.InterviewRecord;
+import suatgpt.backend.model.Job;
+import suatgpt.backend.model.WrittenTestPaper;
+import suatgpt.backend.repository.InterviewRecordRepository;
+import suatgpt.backend.repository.JobRepository;
+import suatgpt.backend.repository.WrittenTestPaperRepository;
+import suatgpt.backend.service.AiCapacityScheduler.Priority;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * 🚀 笔试环节：岗位题库 + 异步阅卷
+ * <ul>
+ *   <li>每个需要笔试的岗位在库里备着若干套预生成的试卷，可用数低于水位线时后台补到目标数；</li>
+ *   <li>候选人开考时用条件 UPDATE 领走一套，并发开考不会领到同一套；题库空了才现场出卷；</li>
+ *   <li>交卷只落库并排队，阅卷在后台跑完后回写档案，不占用候选人的请求。</li>
+ * </ul>
+ */
+@Service
+public class WrittenTestService {
+
+    private static final Logger log = LoggerFactory.getLogger(WrittenTestService.class);
+
+    // 一次取几套候选试卷来抢，够覆盖同一岗位的并发开考
+    private static final int CLAIM_CANDIDATES = 5;
+
+    private final WrittenTestPaperRepository paperRepository;
+    private final InterviewRecordRepository interviewRecordRepository;
+    private final JobRepository jobRepository;
+    private final OpenClawAgentBridge agentBridge;
+    private final AiMetrics metrics;
+
+    // 出卷和阅卷各用一条线程：出卷是后台补库存，阅卷不该排在补库存后面
+    private final ExecutorService poolExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "written-test-pool");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ExecutorService evaluationExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "written-test-eval");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // 正在补库存的岗位、已在阅卷队列里的档案，防止重复排队
+    private final Set<Long> refilling = ConcurrentHashMap.newKeySet();
+    private final Set<Long> evaluating = ConcurrentHashMap.newKeySet();
+
+    // 可用试卷少于等于这个数就开始补
+    @Value("${written-test.pool.low-watermark:2}")
+    private int lowWatermark;
+
+    // 每次补到这个数
+    @Value("${written-test.pool.target:5}")
+    private int target;
+
+    public WrittenTestService(WrittenTestPaperRepository paperRepository, InterviewRecordRepository interviewRecordRepository,
+                              JobRepository jobRepository, OpenClawAgentBridge agentBridge, AiMetrics metrics) {
+        this.paperRepository = paperRepository;
+        this.interviewRecordRepository = interviewRecordRepository;
+        this.jobRepository = jobRepository;
+        this.agentBridge = agentBridge;
+        this.metrics = metrics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poolExecutor.shutdownNow();
+        evaluationExecutor.shutdownNow();
+    }
+
+    // ==========================================
+    // 1. 发卷
+    // ==========================================
+
+    /**
+     * 为档案发一套试卷；已经发过则原样返回，重复点击“开始笔试”不会换卷
+     */
+    public String startTest(Long recordId) {
+        InterviewRecord record = interviewRecordRepository.findForWrittenTestById(recordId)
+                .orElseThrow(() -> new RuntimeException("档案丢失"));
+        if (record.getWrittenTestPaper() != null) return record.getWrittenTestPaper();
+
+        Job job = jobRepository.findById(record.getJobId())
+                .orElseThrow(() -> new RuntimeException("岗位不存在或已删除"));
+        if (!job.isNeedsTest() || !record.isNeedsWrittenTest()) {
+            throw new RuntimeException("该岗位无需笔试");
+        }
+
+        WrittenTestPaper paper = claim(job.getId(), recordId);
+        String content;
+        if (paper != null) {
+            content = paper.getContent();
+        } else {
+            // 题库见底：只能让候选人等一次现场出卷，顺便按简历定制
+            content = agentBridge.call(Priority.NEAR_INTERACTIVE, String.format(InterviewPromptRegistry.WRITTEN_TEST_GENERATE_TEMPLATE,
+                    job.getAdText(), record.getResumeAnalysis()));
+            if (OpenClawAgentBridge.isFailureReply(content)) {
+                refill(job.getId());
+                throw new RuntimeException("试卷生成失败，请稍后重试");
+            }
+        }
+
+        if (interviewRecordRepository.assignWrittenTest(recordId, content) == 0) {
+            // 同一档案的并发请求已经先发了卷，这套退回题库
+            if (paper != null) paperRepository.release(paper.getId());
+            content = interviewRecordRepository.findWrittenTestPaperById(recordId).orElse(content);
+        } else {
+            handout(paper != null ? "pool" : "on_demand");
+        }
+        refillIfLow(job.getId());
+        return content;
+    }
+
+    private WrittenTestPaper claim(Long jobId, Long recordId) {
+        List<Long> candidates = paperRepository.findAvailableIds(jobId, PageRequest.of(0, CLAIM_CANDIDATES));
+        for (Long id : candidates) {
+            if (paperRepository.assign(id, recordId, LocalDateTime.now()) == 1) {
+                return paperRepository.findById(id).orElse(null);
+            }
+        }
+        return null;
+    }
+
+    private void handout(String source) {
+        Counter.builder("interview.written.papers.handout")
+                .description("笔试发卷次数（题库 / 现场出卷）")
+                .tags(AiMetrics.context())
+                .tag("source", source)
+                .register(metrics.registry())
+                .increment();
+    }
+
+    // ==========================================
+    // 2. 题库补货
+    // ==========================================
+
+    /** 可用试卷不高于水位线时触发后台补货 */
+    public void refillIfLow(Long jobId) {
+        if (paperRepository.countByJobIdAndStatus(jobId, "AVAILABLE") <= lowWatermark) refill(jobId);
+    }
+
+    /**
+     * 后台把岗位题库补到目标数；同一岗位同时只有一个补货任务
+     */
+    public void refill(Long jobId) {
+        if (!refilling.add(jobId)) return;
+        Tags context = AiMetrics.context();
+        long submitted = System.nanoTime();
+        poolExecutor.execute(() -> {
+            metrics.queueWait("written-test-pool", System.nanoTime() - submitted, context);
+            try {
+                fillPool(jobId);
+            } catch (Exception e) {
+                log.warn("岗位 {} 题库补货失败: {}", jobId, e.getMessage());
+            } finally {
+                refilling.remove(jobId);
+            }
+        });
+    }
+
+    private void fillPool(Long jobId) {
+        Job job = jobRepository.findById(jobId).orElse(null);
+        if (job == null || !job.isNeedsTest() || !"OPEN".equals(job.getStatus())) return;
+
+        long available = paperRepository.countByJobIdAndStatus(jobId, "AVAILABLE");
+        int added = 0;
+        while (available + added < target) {
+            // 侧重点按该岗位累计出卷数轮换，相邻几套不重样
+            int serial = (int) paperRepository.countByJobId(jobId) + 1;
+            String focus = InterviewPromptRegistry.WRITTEN_TEST_FOCUS[(serial - 1) % InterviewPromptRegistry.WRITTEN_TEST_FOCUS.length];
+            String content = agentBridge.call(Priority.BATCH, String.format(InterviewPromptRegistry.WRITTEN_TEST_POOL_TEMPLATE,
+                    job.getAdText(), focus, serial));
+            if (OpenClawAgentBridge.isFailureReply(content)) {
+                // 上游故障时不原地重试，留给下次发卷或巡检再补
+                generated("failed");
+                log.warn("岗位 {} 题库出卷失败，本轮补货中止", jobId);
+                break;
+            }
+            WrittenTestPaper paper = new WrittenTestPaper();
+            paper.setJobId(jobId);
+            paper.setFocus(focus);
+            paper.setContent(content);
+            paperRepository.save(paper);
+            generated("ok");
+            added++;
+        }
+        if (added > 0) {
+            log.info("📚 岗位 {} 题库补货 {} 套", jobId, added, kv("jobId", jobId));
+        }
+    }
+
+    private void generated(String outcome) {
+        Counter.builder("interview.written.papers.generated")
+                .description("后台预生成的笔试试卷")
+                .tag("outcome", outcome)
+                .register(metrics.registry())
+                .increment();
+    }
+
+    /**
+     * 巡检：开放中的笔试岗位逐个检查水位（新发布的岗位、补货失败的岗位都靠这里兜住）
+     */
+    @Scheduled(fixedDelay = 600000, initialDelay = 60000)
+    public void patrolPools() {
+        for (Job job : jobRepository.findByStatusAndNeedsTestTrue("OPEN")) {
+            refillIfLow(job.getId());
+        }
+    }
+
+    // ==========================================
+    // 3. 交卷与异步阅卷
+    // ==========================================
+
+    /**
+     * 交卷：答卷落库后进入阅卷队列，立即返回
+     */
+    public void submitAnswer(Long recordId, String answer) {
+        if (answer == null || answer.isBlank()) throw new RuntimeException("答卷为空");
+        InterviewRecordRepository.WrittenTestView test = interviewRecordRepository.findWrittenTestById(recordId)
+                .orElseThrow(() -> new RuntimeException("档案丢失"));
+        if (test.getWrittenTestPaper() == null) throw new RuntimeException("尚未领取试卷");
+
+        interviewRecordRepository.saveWrittenTestAnswer(recordId, answer);
+        enqueueEvaluation(recordId);
+    }
+
+    private void enqueueEvaluation(Long recordId) {
+        if (!evaluating.add(recordId)) return;
+        Tags context = AiMetrics.context();
+        long submitted = System.nanoTime();
+        evaluationExecutor.execute(() -> {
+            metrics.queueWait("written-test-eval", System.nanoTime() - submitted, context);
+            boolean requeue = false;
+            try {
+                requeue = evaluate(recordId);
+            } catch (Exception e) {
+                log.warn("档案 {} 阅卷失败: {}", recordId, e.getMessage());
+            } finally {
+                evaluating.remove(recordId);
+            }
+            if (requeue) enqueueEvaluation(recordId);
+        });
+    }
+
+    /**
+     * @return 阅卷期间候选人重新交过卷，需要再阅一次
+     */
+    private boolean evaluate(Long recordId) {
+        InterviewRecordRepository.WrittenTestView test = interviewRecordRepository.findWrittenTestById(recordId).orElse(null);
+        if (test == null || test.getWrittenTestAnswer() == null) return false;
+
+        String answer = test.getWrittenTestAnswer();
+        long start = System.currentTimeMillis();
+        String evaluation = agentBridge.call(Priority.BATCH, String.format(InterviewPromptRegistry.WRITTEN_TEST_EVAL_TEMPLATE,
+                test.getWrittenTestPaper(), answer));
+        if (OpenClawAgentBridge.isFailureReply(evaluation)) {
+            // 阅卷结果留空，巡检会再排一次
+            log.warn("档案 {} 阅卷未拿到有效结果: {}", recordId, evaluation);
+            return false;
+        }
+        if (interviewRecordRepository.saveWrittenTestEvaluation(recordId, answer, evaluation) == 0) return true;
+        log.info("📝 笔试阅卷完成", kv("recordId", recordId), kv("durationMs", System.currentTimeMillis() - start));
+        return false;
+    }
+
+    /**
+     * 巡检：进程重启丢掉的阅卷任务、上游故障没阅成的答卷重新排队
+     */
+    @Scheduled(fixedDelay = 600000, initialDelay = 120000)
+    public void patrolEvaluations() {
+        for (Long recordId : interviewRecordRepository.findIdsAwaitingEvaluation()) {
+            enqueueEvaluation(recordId);
+        }
+    }
+}
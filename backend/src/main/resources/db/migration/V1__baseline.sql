@@ -0,0 +1,137 @@
+-- =======================================
+-- V1 基线：原先由 ddl-auto: update 建出来的表结构
+-- 已在运行的老库启动时直接标记为 V1（baseline-on-migrate），不会重复执行本脚本；
+-- 只有全新的空库才从这里建表。
+-- =======================================
+
+CREATE TABLE users (
+    id             BIGINT       NOT NULL AUTO_INCREMENT,
+    username       VARCHAR(255) NOT NULL,
+    password       VARCHAR(255) NOT NULL,
+    role           VARCHAR(255),
+    status         VARCHAR(255),
+    last_heartbeat DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT UK_r43af9ap4edm43mmtq01oddj6 UNIQUE (username)
+) ENGINE = InnoDB;
+
+CREATE TABLE chat_sessions (
+    id         BIGINT       NOT NULL AUTO_INCREMENT,
+    title      VARCHAR(255) NOT NULL,
+    user_id    BIGINT       NOT NULL,
+    created_at DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT FK82ky97glaomlmhjqae1d0esmy FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE chat_messages (
+    id         BIGINT       NOT NULL AUTO_INCREMENT,
+    session_id BIGINT       NOT NULL,
+    sender     VARCHAR(255) NOT NULL,
+    content    TEXT         NOT NULL,
+    timestamp  DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT FK3cpkdtwdxndrjhrx3gt9q5ux9 FOREIGN KEY (session_id) REFERENCES chat_sessions (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE jobs (
+    id           BIGINT NOT NULL AUTO_INCREMENT,
+    title        VARCHAR(255),
+    description  TEXT,
+    status       TEXT,
+    publisher    VARCHAR(255),
+    needs_test   BIT    NOT NULL,
+    ad_text      LONGTEXT,
+    publisher_id BIGINT,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE interview_records (
+    id                      BIGINT NOT NULL AUTO_INCREMENT,
+    job_id                  BIGINT,
+    job_title               VARCHAR(255),
+    candidate_name          VARCHAR(255),
+    email                   VARCHAR(255),
+    file_name               VARCHAR(255),
+    needs_written_test      BIT,
+    status                  VARCHAR(255),
+    resume_analysis         LONGTEXT,
+    written_test_paper      TEXT,
+    written_test_answer     TEXT,
+    written_test_evaluation TEXT,
+    job_ad                  TEXT,
+    chat_history            LONGTEXT,
+    interview_date          DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE homework_record (
+    id            BIGINT NOT NULL AUTO_INCREMENT,
+    student_name  VARCHAR(255),
+    student_id    VARCHAR(255),
+    mentor_name   VARCHAR(255),
+    week_number   INTEGER,
+    ai_evaluation TEXT,
+    chat_history  TEXT,
+    status        VARCHAR(255),
+    submit_time   DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE mentor_mapping (
+    id           BIGINT NOT NULL AUTO_INCREMENT,
+    student_name VARCHAR(255),
+    student_id   VARCHAR(255),
+    college      VARCHAR(255),
+    mentor_name  VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE consult_records (
+    id            BIGINT NOT NULL AUTO_INCREMENT,
+    user_name     VARCHAR(255),
+    contact_email VARCHAR(255),
+    resume_text   LONGTEXT,
+    chat_history  LONGTEXT,
+    chat_count    INTEGER,
+    final_report  LONGTEXT,
+    status        VARCHAR(255),
+    created_at    DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE consult_configs (
+    id               BIGINT       NOT NULL AUTO_INCREMENT,
+    tenant_id        VARCHAR(255) NOT NULL,
+    remark           VARCHAR(255),
+    ui_page_title    VARCHAR(255),
+    ui_welcome_msg   VARCHAR(255),
+    ui_btn_text      VARCHAR(255),
+    prompt_greeting  LONGTEXT,
+    prompt_interview LONGTEXT,
+    prompt_report    LONGTEXT,
+    updated_at       DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT UK_nxu5l378e3j5jug76st6u89js UNIQUE (tenant_id)
+) ENGINE = InnoDB;
+
+CREATE TABLE tenant_configs (
+    id               BIGINT       NOT NULL AUTO_INCREMENT,
+    tenant_id        VARCHAR(255) NOT NULL,
+    remark           VARCHAR(255),
+    prompt_interview LONGTEXT,
+    prompt_resume    LONGTEXT,
+    prompt_ad        LONGTEXT,
+    email_sender     VARCHAR(255),
+    email_password   VARCHAR(255),
+    email_host       VARCHAR(255),
+    email_port       INTEGER,
+    email_subject    VARCHAR(255),
+    email_template   LONGTEXT,
+    ui_title         VARCHAR(255),
+    ui_subtitle      VARCHAR(255),
+    ui_btn_text      VARCHAR(255),
+    updated_at       DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT UK_fitx4bcdyqwx2wc5nw1kw368d UNIQUE (tenant_id)
+) ENGINE = InnoDB;
@@ -0,0 +1,37 @@
+-- =======================================
+-- V2 补齐基线之后实体上新增、但线上库从未建过的字段、表和索引
+-- （ddl-auto 配置一直没生效，这些变更只存在于代码里）
+-- =======================================
+
+-- 心跳巡检与启动恢复
+CREATE INDEX idx_users_role_status_heartbeat ON users (role, status, last_heartbeat);
+
+-- 名单导入按学号 upsert，依赖学号唯一；建约束前先去掉重复学号，保留最后导入的一条
+DELETE FROM mentor_mapping
+WHERE student_id IS NOT NULL
+  AND id NOT IN (SELECT keep_id FROM (SELECT MAX(id) AS keep_id FROM mentor_mapping
+                                      WHERE student_id IS NOT NULL GROUP BY student_id) latest);
+ALTER TABLE mentor_mapping ADD CONSTRAINT uk_mentor_mapping_student_id UNIQUE (student_id);
+CREATE INDEX idx_mentor_mapping_student_name ON mentor_mapping (student_name);
+
+-- 导师评分与看板
+ALTER TABLE homework_record ADD COLUMN score INTEGER;
+CREATE INDEX idx_homework_mentor_week ON homework_record (mentor_name, week_number);
+
+-- 导出按租户筛选
+ALTER TABLE interview_records ADD COLUMN tenant_id VARCHAR(255);
+ALTER TABLE consult_records ADD COLUMN tenant_id VARCHAR(255);
+
+-- 笔试题库
+CREATE TABLE written_test_papers (
+    id          BIGINT NOT NULL AUTO_INCREMENT,
+    job_id      BIGINT,
+    content     TEXT,
+    focus       VARCHAR(255),
+    status      VARCHAR(255),
+    record_id   BIGINT,
+    created_at  DATETIME(6),
+    assigned_at DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+CREATE INDEX idx_paper_job_status ON written_test_papers (job_id, status);
@@ -0,0 +1,62 @@
+-- =======================================
+-- V3 状态列改为 ENUM（1 字节、可进索引），并补齐各仓库方法过滤 / 排序用到的复合索引
+-- 改列前先把历史数据规整到枚举取值内：去空白、转大写，空值给实体默认值，
+-- 认不出的值落到“不再活跃”的那一档，避免它们重新出现在公开列表或待办里。
+-- =======================================
+
+-- ---------- jobs ----------
+UPDATE jobs SET status = UPPER(TRIM(status)) WHERE status IS NOT NULL;
+UPDATE jobs SET status = 'OPEN' WHERE status IS NULL;
+UPDATE jobs SET status = 'CLOSED' WHERE status NOT IN ('OPEN', 'CLOSED');
+ALTER TABLE jobs MODIFY COLUMN status ENUM('OPEN', 'CLOSED') DEFAULT 'OPEN';
+-- 公开岗位列表 findByStatus、笔试题库巡检 findByStatusAndNeedsTestTrue
+CREATE INDEX idx_jobs_status_needs_test ON jobs (status, needs_test);
+-- 我发布的岗位 findByPublisherId
+CREATE INDEX idx_jobs_publisher ON jobs (publisher_id);
+
+-- ---------- interview_records ----------
+UPDATE interview_records SET status = UPPER(TRIM(status)) WHERE status IS NOT NULL;
+UPDATE interview_records SET status = 'APPLIED' WHERE status IS NULL;
+UPDATE interview_records SET status = 'INTERRUPTED'
+WHERE status NOT IN ('APPLIED', 'TESTING', 'INTERVIEWING', 'INTERRUPTED', 'HIRED', 'REJECTED');
+ALTER TABLE interview_records MODIFY COLUMN status
+    ENUM('APPLIED', 'TESTING', 'INTERVIEWING', 'INTERRUPTED', 'HIRED', 'REJECTED') DEFAULT 'APPLIED';
+-- 岗位下的候选人 findByJobId、导出按岗位 + 状态
+CREATE INDEX idx_interview_job_status ON interview_records (job_id, status);
+-- 导出按租户 + 状态
+CREATE INDEX idx_interview_tenant_status ON interview_records (tenant_id, status);
+
+-- ---------- homework_record ----------
+UPDATE homework_record SET status = UPPER(TRIM(status)) WHERE status IS NOT NULL;
+UPDATE homework_record SET status = 'SUBMITTED'
+WHERE status IS NULL OR status NOT IN ('SUBMITTED', 'REJECTED', 'APPROVED');
+ALTER TABLE homework_record MODIFY COLUMN status ENUM('SUBMITTED', 'REJECTED', 'APPROVED') DEFAULT 'SUBMITTED';
+-- 学生重交查重 findByStudentIdAndWeekNumber、findByStudentId
+CREATE INDEX idx_homework_student_week ON homework_record (student_id, week_number);
+-- 主管看全部：按周次倒序 / 只按周次过滤
+CREATE INDEX idx_homework_week ON homework_record (week_number);
+
+-- ---------- consult_records ----------
+UPDATE consult_records SET status = UPPER(TRIM(status)) WHERE status IS NOT NULL;
+UPDATE consult_records SET status = 'CONSULTING' WHERE status IS NULL;
+UPDATE consult_records SET status = 'FINISHED' WHERE status NOT IN ('CONSULTING', 'FINISHED');
+ALTER TABLE consult_records MODIFY COLUMN status ENUM('CONSULTING', 'FINISHED') DEFAULT 'CONSULTING';
+-- 导出按租户 + 状态
+CREATE INDEX idx_consult_tenant_status ON consult_records (tenant_id, status);
+
+-- ---------- users ----------
+UPDATE users SET status = UPPER(TRIM(status)) WHERE status IS NOT NULL;
+UPDATE users SET status = 'ACTIVE' WHERE status IS NULL;
+UPDATE users SET status = 'TIMEOUT' WHERE status NOT IN ('ACTIVE', 'TIMEOUT', 'GUEST');
+ALTER TABLE users MODIFY COLUMN status ENUM('ACTIVE', 'TIMEOUT', 'GUEST') DEFAULT 'ACTIVE';
+
+-- ---------- written_test_papers ----------
+UPDATE written_test_papers SET status = 'AVAILABLE' WHERE status IS NULL AND record_id IS NULL;
+UPDATE written_test_papers SET status = 'ASSIGNED' WHERE status IS NULL OR status NOT IN ('AVAILABLE', 'ASSIGNED');
+ALTER TABLE written_test_papers MODIFY COLUMN status ENUM('AVAILABLE', 'ASSIGNED') DEFAULT 'AVAILABLE';
+
+-- ---------- 对话 ----------
+-- 会话消息 findBySessionIdOrderByTimestampAsc：过滤 + 排序一条索引走完
+CREATE INDEX idx_chat_messages_session_time ON chat_messages (session_id, timestamp);
+-- 我的会话 findByUserOrderByCreatedAtDesc
+CREATE INDEX idx_chat_sessions_user_created ON chat_sessions (user_id, created_at);
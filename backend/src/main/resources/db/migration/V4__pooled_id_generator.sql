@@ -0,0 +1,25 @@
+-- =======================================
+-- V4 主键改由 id_generator 号段分配（pooled-lo，每次取 50 个）
+-- IDENTITY 主键要插一行才拿得到 id，Hibernate 因此无法批量插入；改为号段后
+-- 同一事务里的多条插入可以合成一次 JDBC batch。
+-- 每张表一行，next_val 记的是已经分出去的最大 id（Hibernate 6 默认语义），初始化为现有最大 id，
+-- 新号段从它之后开始，不会与存量数据撞号。
+-- mentor_mapping 的导入走 JDBC 自增主键，不参与。
+-- =======================================
+
+CREATE TABLE id_generator (
+    sequence_name VARCHAR(255) NOT NULL,
+    next_val      BIGINT,
+    PRIMARY KEY (sequence_name)
+) ENGINE = InnoDB;
+
+INSERT INTO id_generator (sequence_name, next_val) SELECT 'users', COALESCE(MAX(id), 0) FROM users;
+INSERT INTO id_generator (sequence_name, next_val) SELECT 'chat_sessions', COALESCE(MAX(id), 0) FROM chat_sessions;
+INSERT INTO id_generator (sequence_name, next_val) SELECT 'chat_messages', COALESCE(MAX(id), 0) FROM chat_messages;
+INSERT INTO id_generator (sequence_name, next_val) SELECT 'jobs', COALESCE(MAX(id), 0) FROM jobs;
+INSERT INTO id_generator (sequence_name, next_val) SELECT 'interview_records', COALESCE(MAX(id), 0) FROM interview_records;
+INSERT INTO id_generator (sequence_name, next_val) SELECT 'homework_record', COALESCE(MAX(id), 0) FROM homework_record;
+INSERT INTO id_generator (sequence_name, next_val) SELECT 'consult_records', COALESCE(MAX(id), 0) FROM consult_records;
+INSERT INTO id_generator (sequence_name, next_val) SELECT 'consult_configs', COALESCE(MAX(id), 0) FROM consult_configs;
+INSERT INTO id_generator (sequence_name, next_val) SELECT 'tenant_configs', COALESCE(MAX(id), 0) FROM tenant_configs;
+INSERT INTO id_generator (sequence_name, next_val) SELECT 'written_test_papers', COALESCE(MAX(id), 0) FROM written_test_papers;
@@ -0,0 +1,15 @@
+-- =======================================
+-- V5 大文本列改存二进制，由 CompressedTextConverter 压缩写入
+-- TEXT -> BLOB、LONGTEXT -> LONGBLOB 只改列类型，存量内容按原 UTF-8 字节原样保留，
+-- 读路径认得没有压缩头的旧值，改完即可上线；存量行由 TextCompressionBackfill 在后台分批压缩。
+-- 注意：MySQL 改列类型会重建表（ALGORITHM=COPY），大表请在低峰期执行或改用 pt-online-schema-change。
+-- =======================================
+
+ALTER TABLE interview_records MODIFY COLUMN resume_analysis LONGBLOB;
+ALTER TABLE interview_records MODIFY COLUMN chat_history LONGBLOB;
+
+ALTER TABLE consult_records MODIFY COLUMN final_report LONGBLOB;
+
+ALTER TABLE homework_record MODIFY COLUMN ai_evaluation BLOB;
+
+ALTER TABLE chat_messages MODIFY COLUMN content BLOB NOT NULL;
@@ -0,0 +1,11 @@
+-- =======================================
+-- V6 周报按 学号 + 周次 upsert，依赖这两列唯一
+-- 并发的首次提交以前会各插一条；建约束前先去掉重复，保留最后提交的一条。
+-- 唯一约束自带同列索引，原来的普通索引一并去掉
+-- =======================================
+
+DELETE FROM homework_record
+WHERE id NOT IN (SELECT keep_id FROM (SELECT MAX(id) AS keep_id FROM homework_record
+                                      GROUP BY student_id, week_number) latest);
+ALTER TABLE homework_record ADD CONSTRAINT uk_homework_student_week UNIQUE (student_id, week_number);
+ALTER TABLE homework_record DROP INDEX idx_homework_student_week;
@@ -0,0 +1,136 @@
+package suatgpt.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import suatgpt.backend.model.ChatMessage;
+import suatgpt.backend.model.ChatSession;
+import suatgpt.backend.model.HomeworkRecord;
+import suatgpt.backend.model.InterviewRecord;
+import suatgpt.backend.model.User;
+import suatgpt.backend.repository.ChatMessageRepository;
+import suatgpt.backend.repository.ChatSessionRepository;
+import suatgpt.backend.repository.HomeworkRecordRepository;
+import suatgpt.backend.repository.InterviewRecordRepository;
+import suatgpt.backend.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 关掉 open-in-view 之后，返回大字段的详情接口必须在事务里把 LAZY 列取齐；
+ * 漏取的列会在序列化时抛 LazyInitializationException，这里表现为 500 或字段为空
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class LazyColumnEndpointsTest {
+
+    @Autowired
+    private TestRestTemplate rest;
+    @Autowired
+    private Environment environment;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private UserRepository users;
+    @Autowired
+    private InterviewRecordRepository interviews;
+    @Autowired
+    private HomeworkRecordRepository homework;
+    @Autowired
+    private ChatSessionRepository sessions;
+    @Autowired
+    private ChatMessageRepository messages;
+
+    private String adminToken;
+
+    @BeforeEach
+    void login() {
+        adminToken = token("admin", "123456");
+    }
+
+    @Test
+    void openInViewIsOff() {
+        assertEquals("false", environment.getProperty("spring.jpa.open-in-view"));
+    }
+
+    @Test
+    void candidateDetailLoadsLazyColumns() {
+        InterviewRecord r = new InterviewRecord();
+        r.setJobTitle("后端开发工程师");
+        r.setTenantId("recruit");
+        r.setCandidateName("候选人");
+        r.setEmail("candidate@example.com");
+        r.setStatus("INTERVIEWING");
+        r.setJobAd("【岗位】后端开发工程师");
+        r.setResumeAnalysis("简历评估");
+        r.setChatHistory("\n【候选人】: 你好");
+        Long id = interviews.save(r).getId();
+
+        JsonNode body = get("/api/recruit/candidate/" + id, adminToken);
+        assertEquals("简历评估", body.path("resumeAnalysis").asText());
+        assertEquals("【岗位】后端开发工程师", body.path("jobAd").asText());
+        assertEquals("\n【候选人】: 你好", body.path("chatHistory").asText());
+    }
+
+    @Test
+    void homeworkDetailLoadsLazyColumns() {
+        HomeworkRecord r = new HomeworkRecord();
+        r.setStudentId("LAZY0001");
+        r.setStudentName("学生");
+        r.setMentorName("导师");
+        r.setWeekNumber(1);
+        r.setAiEvaluation("审计报告");
+        r.setChatHistory("质询实录");
+        r.setStatus("SUBMITTED");
+        r.setSubmitTime(LocalDateTime.now());
+        Long id = homework.save(r).getId();
+
+        JsonNode body = get("/api/homework/records/" + id, adminToken);
+        assertEquals("审计报告", body.path("aiEvaluation").asText());
+        assertEquals("质询实录", body.path("chatHistory").asText());
+    }
+
+    @Test
+    void chatHistoryDoesNotTouchLazyAssociations() {
+        User user = users.save(new User("lazycheck01", passwordEncoder.encode("lazycheck01")));
+        ChatSession session = sessions.save(new ChatSession(user, "会话"));
+        messages.save(new ChatMessage(session, "USER", "你好"));
+        messages.save(new ChatMessage(session, "AI", "你好，有什么可以帮你？"));
+
+        JsonNode body = get("/api/ai/history/" + session.getId(), token("lazycheck01", "lazycheck01"));
+        assertEquals(2, body.size());
+        assertEquals("你好，有什么可以帮你？", body.get(1).path("content").asText());
+    }
+
+    private JsonNode get(String path, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        ResponseEntity<JsonNode> response = rest.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), JsonNode.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode(), path + " -> " + response.getBody());
+        return response.getBody();
+    }
+
+    private String token(String username, String password) {
+        ResponseEntity<JsonNode> login = rest.postForEntity("/api/auth/login",
+                Map.of("username", username, "password", password), JsonNode.class);
+        assertEquals(HttpStatus.OK, login.getStatusCode(), username + " 登录失败");
+        String token = login.getBody().path("token").asText();
+        assertFalse(token.isEmpty());
+        return token;
+    }
+}
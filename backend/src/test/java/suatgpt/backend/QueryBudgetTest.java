@@ -0,0 +1,366 @@
+package suatgpt.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import suatgpt.backend.model.ChatMessage;
+import suatgpt.backend.model.ChatSession;
+import suatgpt.backend.model.ConsultConfig;
+import suatgpt.backend.model.ConsultRecord;
+import suatgpt.backend.model.HomeworkRecord;
+import suatgpt.backend.model.InterviewRecord;
+import suatgpt.backend.model.Job;
+import suatgpt.backend.model.TenantConfig;
+import suatgpt.backend.model.User;
+import suatgpt.backend.repository.ChatMessageRepository;
+import suatgpt.backend.repository.ChatSessionRepository;
+import suatgpt.backend.repository.ConsultConfigRepository;
+import suatgpt.backend.repository.ConsultRecordRepository;
+import suatgpt.backend.repository.HomeworkRecordRepository;
+import suatgpt.backend.repository.InterviewRecordRepository;
+import suatgpt.backend.repository.JobRepository;
+import suatgpt.backend.repository.TenantConfigRepository;
+import suatgpt.backend.repository.UserRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 每接口 SQL 条数预算（防 N+1）
+ * <p>
+ * 先按固定规模灌一批数据（每个父对象下 {@link #FANOUT} 个子对象），再逐个调用各控制器的接口，
+ * 用 {@link QueryCounter} 统计请求线程上发出的 SQL 条数，与 {@link #probes(Seed)} 里登记的上限比较。
+ * 某个接口里混进了按行补查，条数会随 FANOUT 成倍上涨，超出上限即失败并列出全部语句。
+ * <p>
+ * 新增接口时在 {@link #probes(Seed)} 里登记一行；上限按实测条数填写，不留余量，改动导致条数变化时需要有意识地更新。
+ * 每个接口的条数与语句明细写入 target/query-budget-report.json。
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=suatgpt.backend.QueryCounter")
+@ActiveProfiles("test")
+@Import(QueryCounter.Probe.class)
+class QueryBudgetTest {
+
+    /** 每个岗位的候选人数、每个会话的消息数、每位导师名下的周报数 */
+    static final int FANOUT = 8;
+
+    // 流式对话要有个上游可连，回一个增量就结束
+    private static final HttpServer LLM = startLlmStub();
+
+    @DynamicPropertySource
+    static void llm(DynamicPropertyRegistry registry) {
+        registry.add("ai.qwen-public.base-url", () -> "http://127.0.0.1:" + LLM.getAddress().getPort() + "/v1");
+    }
+
+    /** 每个接口一行：条数、预算与语句明细，不论通过与否都写入 target/query-budget-report.json */
+    private static final List<Map<String, Object>> REPORT = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterAll
+    static void writeReport() throws IOException {
+        LLM.stop(0);
+        System.out.printf("%-26s %6s %8s %8s  %s%n", "endpoint", "status", "queries", "budget", "result");
+        for (Map<String, Object> r : REPORT) {
+            System.out.printf("%-26s %6s %8s %8s  %s%n",
+                    r.get("endpoint"), r.get("status"), r.get("queries"), r.get("budget"), r.get("result"));
+        }
+        Path report = Paths.get("target/query-budget-report.json");
+        Files.createDirectories(report.getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(report.toFile(), REPORT);
+        System.out.println("📄 明细已写入 " + report.toAbsolutePath());
+    }
+
+    @Autowired
+    private TestRestTemplate rest;
+    @Autowired
+    private ApplicationContext ctx;
+
+    private String adminToken;
+    private String userToken;
+
+    @TestFactory
+    Stream<DynamicTest> endpointsStayWithinSqlBudget() {
+        Seed seed = seed(ctx);
+        adminToken = token("admin", "123456");
+        userToken = token(Seed.USERNAME, Seed.USERNAME);
+        AtomicInteger n = new AtomicInteger();
+        return probes(seed).stream()
+                .map(p -> DynamicTest.dynamicTest(p.name(), () -> check(p, "probe-" + n.incrementAndGet())));
+    }
+
+    // ==========================================
+    // 接口清单与预算（未登录 / 普通用户 / 管理员）
+    // ==========================================
+    private enum As { ANON, USER, ADMIN }
+
+    private record Probe(String name, String method, String path, Object body, As as, int budget) {}
+
+    private static List<Probe> probes(Seed seed) {
+        Long candidate = seed.candidateIds().get(0);
+        Long homework = seed.homeworkIds().get(0);
+        return List.of(
+                // 认证
+                new Probe("auth.login", "POST", "/api/auth/login", Map.of("username", "admin", "password", "123456"), As.ANON, 3),
+                new Probe("auth.me", "GET", "/api/auth/me", null, As.USER, 2),
+                new Probe("auth.heartbeat", "POST", "/api/auth/heartbeat", Map.of(), As.USER, 1),
+                // 通用对话
+                new Probe("ai.sessions", "GET", "/api/ai/sessions", null, As.USER, 2),
+                new Probe("ai.sessions.create", "POST", "/api/ai/sessions", Map.of("title", "预算检查"), As.USER, 2),
+                new Probe("ai.history", "GET", "/api/ai/history/" + seed.sessionId(), null, As.USER, 2),
+                new Probe("ai.chat.stream", "STREAM", "/api/ai/chat/stream",
+                        Map.of("message", "你好", "modelKey", "qwen-public", "sessionId", seed.sessionId()), As.USER, 3),
+                // 岗位
+                new Probe("jobs.public-list", "GET", "/api/jobs/public-list", null, As.ANON, 1),
+                new Probe("jobs.active", "GET", "/api/jobs/active", null, As.USER, 2),
+                new Probe("jobs.my-jobs", "GET", "/api/jobs/my-jobs", null, As.ADMIN, 2),
+                // 招聘看板
+                new Probe("recruit.list", "GET", "/api/recruit/list", null, As.ADMIN, 2),
+                new Probe("recruit.tenant-configs", "GET", "/api/recruit/tenant-configs", null, As.ADMIN, 2),
+                new Probe("recruit.job-stats", "GET", "/api/recruit/job-stats", null, As.ADMIN, 3),
+                new Probe("recruit.candidate", "GET", "/api/recruit/candidate/" + candidate, null, As.ADMIN, 2),
+                new Probe("recruit.candidate.status", "GET", "/api/recruit/candidate/" + candidate + "/status", null, As.ANON, 1),
+                new Probe("recruit.interrupt", "POST", "/api/recruit/interrupt", Map.of("id", candidate), As.ADMIN, 2),
+                new Probe("recruit.export", "GET", "/api/recruit/export/interviews?format=csv", null, As.ADMIN, 2),
+                new Probe("recruit.jobs.delete", "DELETE", "/api/recruit/jobs/" + seed.jobIds().get(1), null, As.ADMIN, 5),
+                // 面试
+                new Probe("interview.config", "GET", "/api/interview/config?tenantId=recruit", null, As.ANON, 1),
+                new Probe("interview.chat", "POST", "/api/interview/chat",
+                        Map.of("recordId", String.valueOf(candidate), "message", "我负责过订单服务。", "chatCount", "3"), As.ANON, 3),
+                // 咨询
+                new Probe("consult.config", "GET", "/api/consult/config?tenantId=consult0", null, As.ANON, 1),
+                new Probe("consult.admin.configs", "GET", "/api/consult/admin/configs", null, As.ADMIN, 2),
+                new Probe("consult.chat", "POST", "/api/consult/chat",
+                        Map.of("recordId", String.valueOf(seed.consultId()), "message", "我喜欢做技术。"), As.ANON, 3),
+                new Probe("consult.export", "GET", "/api/consult/admin/export?format=csv", null, As.ADMIN, 2),
+                // 周报
+                new Probe("homework.mentor-stats", "GET", "/api/homework/mentor-stats", null, As.ADMIN, 2),
+                new Probe("homework.dashboard", "GET", "/api/homework/mentor-dashboard", null, As.ADMIN, 3),
+                new Probe("homework.aggregates", "GET", "/api/homework/mentor-dashboard/aggregates", null, As.ADMIN, 2),
+                new Probe("homework.record", "GET", "/api/homework/records/" + homework, null, As.ADMIN, 2),
+                new Probe("homework.review", "POST", "/api/homework/records/" + homework + "/review",
+                        Map.of("status", "APPROVED", "score", 90), As.ADMIN, 3),
+                new Probe("homework.chat", "POST", "/api/homework/chat",
+                        Map.of("recordId", homework, "message", "本周完成了接口联调。", "chatCount", 1), As.USER, 3),
+                new Probe("homework.export", "GET", "/api/homework/export?format=csv", null, As.ADMIN, 2),
+                new Probe("health", "GET", "/api/health", null, As.USER, 1));
+    }
+
+    private void check(Probe p, String id) throws InterruptedException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(QueryCounter.PROBE_HEADER, id);
+        String token = switch (p.as()) {
+            case ANON -> null;
+            case USER -> userToken;
+            case ADMIN -> adminToken;
+        };
+        if (token != null) headers.setBearerAuth(token);
+        if (p.body() != null) headers.setContentType(MediaType.APPLICATION_JSON);
+        boolean stream = "STREAM".equals(p.method());
+        if (stream) headers.setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+        HttpMethod method = stream ? HttpMethod.POST : HttpMethod.valueOf(p.method());
+
+        ResponseEntity<String> r = rest.exchange(p.path(), method, new HttpEntity<>(p.body(), headers), String.class);
+        int status = r.getStatusCode().value();
+        boolean streamed = !stream || (r.getBody() != null && r.getBody().contains("data:"));
+        List<String> statements = awaitStatements(id);
+        int count = statements != null ? statements.size() : -1;
+
+        // 先记进报告再断言，失败的接口也要出现在报告里
+        String result;
+        if (status != 200) result = "HTTP " + status;
+        else if (!streamed) result = "NO DATA";
+        else if (statements == null) result = "NO PROBE";
+        else if (count > p.budget()) result = "OVER BUDGET";
+        else result = "OK";
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("endpoint", p.name());
+        m.put("request", method + " " + p.path());
+        m.put("status", status);
+        m.put("queries", count);
+        m.put("budget", p.budget());
+        m.put("result", result);
+        m.put("statements", statements);
+        REPORT.add(m);
+
+        assertEquals(200, status, () -> p.name() + " -> " + r.getBody());
+        assertTrue(streamed, () -> p.name() + " 没有收到增量");
+        assertNotNull(statements, p.name() + " 没有经过计数过滤器");
+        assertTrue(statements.size() <= p.budget(), () -> p.name() + " 发出 " + statements.size()
+                + " 条 SQL，预算 " + p.budget() + "：\n    " + String.join("\n    ", statements));
+    }
+
+    /** 过滤器在响应写出后才交回计数，客户端可能先一步收到响应 */
+    private static List<String> awaitStatements(String probe) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            List<String> statements = QueryCounter.take(probe);
+            if (statements != null) return statements;
+            Thread.sleep(20);
+        }
+        return null;
+    }
+
+    private String token(String username, String password) {
+        ResponseEntity<JsonNode> login = rest.postForEntity("/api/auth/login",
+                Map.of("username", username, "password", password), JsonNode.class);
+        assertEquals(HttpStatus.OK, login.getStatusCode(), username + " 登录失败");
+        return login.getBody().path("token").asText();
+    }
+
+    private static HttpServer startLlmStub() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", exchange -> {
+                exchange.getRequestBody().readAllBytes();
+                byte[] body = ("data: {\"choices\":[{\"index\":0,\"delta\":{\"content\":\"好\"}}]}\n\n"
+                        + "data: [DONE]\n\n").getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ==========================================
+    // 数据准备：直接走仓库批量写入
+    // ==========================================
+    private record Seed(List<Long> jobIds, List<Long> candidateIds, List<Long> homeworkIds, Long sessionId, Long consultId) {
+        static final String USERNAME = "querybudget01";
+    }
+
+    private static Seed seed(ApplicationContext ctx) {
+        UserRepository users = ctx.getBean(UserRepository.class);
+        User user = users.save(new User(Seed.USERNAME, ctx.getBean(PasswordEncoder.class).encode(Seed.USERNAME)));
+        Long adminId = users.findByUsername("admin").map(User::getId).orElse(null);
+        for (int i = 0; i < FANOUT; i++) users.save(new User("querybudget-extra" + i, "-"));
+
+        TenantConfigRepository tenants = ctx.getBean(TenantConfigRepository.class);
+        ConsultConfigRepository consultConfigs = ctx.getBean(ConsultConfigRepository.class);
+        for (int i = 0; i < FANOUT; i++) {
+            TenantConfig t = new TenantConfig();
+            t.setTenantId(i == 0 ? "recruit" : "recruit" + i);
+            t.setRemark("分身 " + i);
+            tenants.save(t);
+            ConsultConfig c = new ConsultConfig();
+            c.setTenantId("consult" + i);
+            c.setRemark("咨询分身 " + i);
+            consultConfigs.save(c);
+        }
+
+        JobRepository jobs = ctx.getBean(JobRepository.class);
+        InterviewRecordRepository interviews = ctx.getBean(InterviewRecordRepository.class);
+        List<Long> jobIds = new ArrayList<>();
+        List<Long> candidateIds = new ArrayList<>();
+        for (int j = 0; j < FANOUT; j++) {
+            Job job = new Job();
+            job.setTitle("岗位 " + j);
+            job.setDescription("描述");
+            job.setAdText("【岗位】岗位 " + j);
+            job.setStatus("OPEN");
+            job.setPublisherId(adminId);
+            job = jobs.save(job);
+            jobIds.add(job.getId());
+            List<InterviewRecord> batch = new ArrayList<>();
+            for (int c = 0; c < FANOUT; c++) {
+                InterviewRecord r = new InterviewRecord();
+                r.setJobId(job.getId());
+                r.setJobTitle(job.getTitle());
+                r.setTenantId("recruit");
+                r.setCandidateName("候选人 " + j + "-" + c);
+                r.setEmail("c" + j + c + "@example.com");
+                r.setStatus("INTERVIEWING");
+                r.setJobAd(job.getAdText());
+                r.setResumeAnalysis("简历评估 " + c);
+                r.setChatHistory("\n【候选人】: 你好\n【AI考官】: 请介绍一下自己");
+                batch.add(r);
+            }
+            interviews.saveAll(batch).forEach(r -> candidateIds.add(r.getId()));
+        }
+
+        ChatSessionRepository sessions = ctx.getBean(ChatSessionRepository.class);
+        ChatMessageRepository messages = ctx.getBean(ChatMessageRepository.class);
+        Long sessionId = null;
+        for (int s = 0; s < FANOUT; s++) {
+            ChatSession session = sessions.save(new ChatSession(user, "会话 " + s));
+            if (sessionId == null) sessionId = session.getId();
+            List<ChatMessage> batch = new ArrayList<>();
+            for (int m = 0; m < FANOUT; m++) {
+                batch.add(new ChatMessage(session, m % 2 == 0 ? "USER" : "AI", "消息 " + m));
+            }
+            messages.saveAll(batch);
+        }
+
+        HomeworkRecordRepository homework = ctx.getBean(HomeworkRecordRepository.class);
+        List<HomeworkRecord> records = new ArrayList<>();
+        for (int m = 0; m < FANOUT; m++) {
+            for (int w = 1; w <= FANOUT; w++) {
+                HomeworkRecord r = new HomeworkRecord();
+                r.setStudentId("QB" + m + w);
+                r.setStudentName("学生 " + m + "-" + w);
+                r.setMentorName("导师 " + m);
+                r.setWeekNumber(w);
+                r.setAiEvaluation("审计报告 " + w);
+                r.setStatus("SUBMITTED");
+                r.setSubmitTime(LocalDateTime.now());
+                records.add(r);
+            }
+        }
+        List<Long> homeworkIds = homework.saveAll(records).stream().map(HomeworkRecord::getId).toList();
+
+        ConsultRecordRepository consults = ctx.getBean(ConsultRecordRepository.class);
+        Long consultId = null;
+        for (int i = 0; i < FANOUT; i++) {
+            ConsultRecord r = new ConsultRecord();
+            r.setUserName("咨询者 " + i);
+            r.setTenantId("consult0");
+            r.setContactEmail("u" + i + "@example.com");
+            r.setResumeText("【简历路径】: /tmp/r" + i);
+            r.setChatHistory("【AI咨询师】: 你好");
+            r.setChatCount(0);
+            r = consults.save(r);
+            if (consultId == null) consultId = r.getId();
+        }
+        return new Seed(jobIds, candidateIds, homeworkIds, sessionId, consultId);
+    }
+}
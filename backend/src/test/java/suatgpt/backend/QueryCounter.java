@@ -0,0 +1,68 @@
+package suatgpt.backend;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按请求统计 Hibernate 发出的 SQL 条数，供 {@link QueryBudgetTest} 核对每个接口的 SQL 预算
+ * <p>
+ * 通过 hibernate.session_factory.statement_inspector 挂到 SessionFactory 上，每条语句预编译前回调一次；
+ * 只记在请求线程上，{@link Probe} 过滤器在请求进出时开闭计数。异步线程（流式回复落库、后台阅卷等）
+ * 和 JdbcTemplate 直发的 SQL 不计入。
+ */
+public class QueryCounter implements StatementInspector {
+
+    /** 请求头带上探针编号的请求才计数，结果按编号取回 */
+    public static final String PROBE_HEADER = "X-Query-Probe";
+
+    private static final ThreadLocal<List<String>> CURRENT = new ThreadLocal<>();
+    private static final Map<String, List<String>> RESULTS = new ConcurrentHashMap<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = CURRENT.get();
+        if (statements != null) statements.add(sql);
+        return sql;
+    }
+
+    /** 取走某次请求记下的全部 SQL；请求没到过服务端时为 null */
+    public static List<String> take(String probe) {
+        return RESULTS.remove(probe);
+    }
+
+    /**
+     * 排在所有过滤器（包括 JWT 认证）之前，认证时查用户的那一条也算在请求头上
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public static class Probe extends OncePerRequestFilter {
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            String probe = request.getHeader(PROBE_HEADER);
+            if (probe == null) {
+                chain.doFilter(request, response);
+                return;
+            }
+            List<String> statements = new ArrayList<>();
+            CURRENT.set(statements);
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                CURRENT.remove();
+                RESULTS.put(probe, statements);
+            }
+        }
+    }
+}